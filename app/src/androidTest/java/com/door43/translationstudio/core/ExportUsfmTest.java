@@ -21,6 +21,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -127,6 +128,31 @@ public class ExportUsfmTest extends InstrumentationTestCase {
         verifyExportedUsfmFile(zipFileName, separateChapters, source, usfmOutput);
     }
 
+    public void test05ValidExportBatch() throws Exception {
+        //given
+        importTestTranslation("66-JUD.usfm");
+        ImportUsfm judeImport = mUsfm;
+        TargetTranslation jude = mTargetTranslation;
+        File judeTempFolder = mTempFolder;
+        try {
+            importTestTranslation("mrk.usfm");
+            TargetTranslation mark = mTargetTranslation;
+
+            //when
+            List<Uri> usfmOutputs = ExportUsfm.saveToUSFM(Arrays.asList(jude, mark), Uri.fromFile(mOutputFolder), false);
+
+            //then
+            assertEquals(2, usfmOutputs.size());
+            mTargetTranslation = jude;
+            verifyExportedUsfmFile(null, false, "66-JUD.usfm", usfmOutputs.get(0));
+            mTargetTranslation = mark;
+            verifyExportedUsfmFile(null, false, "mrk.usfm", usfmOutputs.get(1));
+        } finally {
+            judeImport.cleanup();
+            FileUtilities.deleteQuietly(judeTempFolder);
+        }
+    }
+
 //    public void test08ValidExportIsaiahSingle() throws Exception {
 //        //given
 //        String zipFileName = null;
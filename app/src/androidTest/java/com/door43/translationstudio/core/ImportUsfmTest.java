@@ -411,6 +411,44 @@ public class ImportUsfmTest extends InstrumentationTestCase {
     }
 
 
+    public void test21SplitterVerseRanges() throws Exception {
+        verifySplitterParity("\\v 1-2 In the beginning God created the heavens and the earth. \\v 3 God said.\n\\v 4-6 God saw.\n\\v 7 God made.\n",
+                1, 4, 7);
+        // chunks that start inside of a verse range
+        verifySplitterParity("\\v 1-2 In the beginning \\v 3 God said.\n\\v 4-6 God saw.\n\\v 7 God made.\n",
+                1, 2, 5, 7);
+    }
+
+    public void test22SplitterSectionInVerse() throws Exception {
+        verifySplitterParity("\\v 1 In the beginning \\s5\nGod created \\v 2 the heavens \\s5\n\\v 3 and the earth.\\s5\n",
+                1, 2, 3);
+        // multiple sections within one verse
+        verifySplitterParity("\\p\n\\v 1 In the beginning \\s5\nGod \\s5\ncreated \\v 2 the heavens \\v 3 and the earth.\n",
+                1, 3);
+    }
+
+    public void test23SplitterOutOfOrderChunkMarkers() throws Exception {
+        String chapter = "\\v 1 In the beginning \\v 2 God created \\v 3 the heavens \\v 4 and the earth.\n";
+        verifySplitterParity(chapter, 3, 1, 4);
+        verifySplitterParity(chapter, 4, 2, 2, 1);
+        // out of order verses in the text
+        verifySplitterParity("\\v 1 In the beginning \\v 3 God created \\v 2 the heavens \\v 4 and the earth.\n", 1, 2, 3);
+    }
+
+    public void test24SplitterUnparsableVerse() throws Exception {
+        // the verse number is too large to parse
+        String chapter = "\\v 1 In the beginning \\v 2 God created \\v 99999999999 the heavens \\v 4 and the earth.\n";
+        verifySplitterParity(chapter, 1, 2);
+        verifySplitterParity(chapter, 1, 4);
+        verifySplitterParity(chapter, 3, 1);
+    }
+
+    public void test25SplitterIntro() throws Exception {
+        verifySplitterParity("\\p\nIntroduction \\v 1 In the beginning \\v 2 God created.\n", 1, 2);
+        verifySplitterParity("No verses in this chapter\n", 1);
+    }
+
+
     public void addExpectedBook(String filename, String book, boolean success, boolean missingName) throws JSONException {
         JSONObject expectedBook = new JSONObject();
         expectedBook.put("filename", filename);
@@ -701,5 +739,139 @@ public class ImportUsfmTest extends InstrumentationTestCase {
         return verseRange;
     }
 
+    /**
+     * Splits a chapter the same way the importer does and checks that each chunk matches the output of the
+     * splitter that was used before {@link ImportUsfm.ChapterSplitter}
+     * @param chapter the text of the chapter
+     * @param chunkStarts the first verse of each chunk
+     */
+    private void verifySplitterParity(String chapter, int... chunkStarts) {
+        ImportUsfm.ChapterSplitter splitter = new ImportUsfm.ChapterSplitter(chapter);
+        assertEquals(legacyIntro(chapter), splitter.getIntro() == null ? null : splitter.getIntro().toString());
+
+        for(int i = 0; i < chunkStarts.length; i ++) {
+            int start = chunkStarts[i];
+            int end = i + 1 < chunkStarts.length ? chunkStarts[i + 1] : ImportUsfm.END_MARKER;
+            String description = "chunk " + start + "-" + end + " of " + chapter;
+
+            LegacySection expected = legacyExtract(chapter, start, end);
+            boolean success = splitter.extract(start, end);
+            assertEquals(description, expected.success, success);
+            if(!success) {
+                // the importer stops at the first failure
+                return;
+            }
+            assertEquals(description, expected.section, splitter.getSection().toString());
+            assertEquals(description, expected.foundVerseCount, splitter.getFoundVerseCount());
+        }
+    }
 
-}
\ No newline at end of file
+    private static class LegacySection {
+        boolean success = true;
+        String section = "";
+        int foundVerseCount = 0;
+    }
+
+    private String legacyIntro(String text) {
+        Matcher matcher = PATTERN_USFM_VERSE_SPAN.matcher(text);
+        if (matcher.find() && matcher.start() > 0) {
+            return text.substring(0, matcher.start());
+        }
+        return null;
+    }
+
+    /**
+     * The verse extraction of the importer before it was replaced by a single pass splitter
+     */
+    private LegacySection legacyExtract(CharSequence text, int start, int end) {
+        LegacySection result = new LegacySection();
+        Matcher matcher = PATTERN_USFM_VERSE_SPAN.matcher(text);
+        int lastIndex = 0;
+        String section = "";
+        int currentVerse = 0;
+        int foundVerseCount = 0;
+        int endVerseRange = 0;
+        boolean done = false;
+        boolean matchesFound = false;
+        CharSequence pretext = "";
+        while (matcher.find()) {
+            matchesFound = true;
+
+            if (currentVerse >= end) {
+                done = true;
+                break;
+            }
+
+            if (currentVerse >= start) {
+                while(true) { // find the end of the section
+                    if(endVerseRange > 0) {
+                        foundVerseCount += (endVerseRange - currentVerse + 1);
+                    } else {
+                        foundVerseCount++;
+                    }
+
+                    int[] verseRange = getVerseRange(matcher.group(1));
+                    if(null == verseRange) {
+                        break;
+                    }
+                    currentVerse = verseRange[0];
+                    endVerseRange = verseRange[1];
+
+                    String[] results = legacySplitAtVerseEnd(text, lastIndex, matcher.start());
+                    section = section + pretext + results[0];
+                    pretext = results[1];
+                    lastIndex = matcher.start(); // update end of chunk
+
+                    if (currentVerse >= end) {
+                        break;
+                    }
+
+                    if(!matcher.find()) { // we have reached the end, use this verse
+                        results = legacySplitAtVerseEnd(text, lastIndex, text.length());
+                        section = section + pretext + results[0];
+                        pretext = "";
+                        foundVerseCount++;
+                        break;
+                    }
+                }
+
+                done = true;
+                break;
+            }
+
+            int[] verseRange = getVerseRange(matcher.group(1));
+            if(null == verseRange) {
+                result.success = false;
+                return result;
+            }
+            currentVerse = verseRange[0];
+            endVerseRange = verseRange[1];
+
+            String[] results = legacySplitAtVerseEnd(text, lastIndex, matcher.start());
+            pretext = results[1];
+            lastIndex = matcher.start();
+        }
+
+        if (!done && matchesFound && (currentVerse >= start) && (currentVerse < end)) {
+            String[] results = legacySplitAtVerseEnd(text, lastIndex, text.length());
+            section = section + pretext + results[0];
+        }
+        result.section = section;
+        result.foundVerseCount = foundVerseCount;
+        return result;
+    }
+
+    /**
+     * Splits the verse at the first section marker
+     * @return the verse and the text after the section marker
+     */
+    private static String[] legacySplitAtVerseEnd(CharSequence text, int start, int end) {
+        String verseStr = text.subSequence(start, end).toString();
+        final String sectionEnd = "\\s5\n";
+        int pos = verseStr.indexOf(sectionEnd);
+        if(pos >= 0) {
+            return new String[] {verseStr.substring(0, pos), verseStr.substring(pos + sectionEnd.length())};
+        }
+        return new String[] {verseStr, ""};
+    }
+}
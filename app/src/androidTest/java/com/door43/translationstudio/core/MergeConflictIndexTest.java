@@ -0,0 +1,156 @@
+package com.door43.translationstudio.core;
+
+import android.test.InstrumentationTestCase;
+
+import com.door43.util.FileUtilities;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+/**
+ * Tests that the merge conflict index stays in sync with the chunks of a target translation
+ */
+public class MergeConflictIndexTest extends InstrumentationTestCase {
+
+    private static final String CONFLICT = "<<<<<<< HEAD\nour text\n=======\ntheir text\n>>>>>>> branch\n";
+
+    private File mTargetTranslationDir;
+    private TargetTranslation mTargetTranslation;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        mTargetTranslationDir = new File(getInstrumentation().getTargetContext().getCacheDir(), "merge_conflict_index_test");
+        MergeConflictIndex.invalidate(mTargetTranslationDir);
+        FileUtilities.deleteQuietly(mTargetTranslationDir);
+        new File(mTargetTranslationDir, ".git").mkdirs();
+        writeManifest();
+        mTargetTranslation = TargetTranslation.open(mTargetTranslationDir);
+        assertNotNull(mTargetTranslation);
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        MergeConflictIndex.invalidate(mTargetTranslationDir);
+        FileUtilities.deleteQuietly(mTargetTranslationDir);
+    }
+
+    public void test01BuildWhenNotIndexed() throws Exception {
+        //given
+        writeChunk("01/01.txt", CONFLICT);
+        writeChunk("01/02.txt", "clean text");
+        assertNull(MergeConflictIndex.get(mTargetTranslationDir));
+
+        //when
+        MergeConflictIndex index = MergeConflictIndex.fromMerge(mTargetTranslation, null);
+
+        //then
+        assertTrue(index.hasConflicts());
+        assertEquals(Collections.singleton("01/01.txt"), index.getConflictedPaths());
+        assertSame(index, MergeConflictIndex.get(mTargetTranslationDir));
+    }
+
+    public void test02UpdateOnSave() throws Exception {
+        //given
+        writeChunk("01/01.txt", CONFLICT);
+        writeChunk("01/02.txt", "clean text");
+        MergeConflictIndex.build(mTargetTranslation);
+
+        //when
+        MergeConflictIndex.update(mTargetTranslationDir, "01/01.txt", "resolved text");
+        MergeConflictIndex.update(mTargetTranslationDir, "01/02.txt", CONFLICT);
+
+        //then
+        MergeConflictIndex index = MergeConflictIndex.get(mTargetTranslationDir);
+        assertFalse(index.isConflicted("01", "01"));
+        assertTrue(index.isConflicted("01", "02"));
+        assertEquals(Collections.singleton("01/02.txt"), index.getConflictedPaths());
+    }
+
+    public void test03UpdateWithoutIndex() throws Exception {
+        //when
+        MergeConflictIndex.update(mTargetTranslationDir, "01/01.txt", CONFLICT);
+
+        //then
+        assertNull(MergeConflictIndex.get(mTargetTranslationDir));
+    }
+
+    public void test04Invalidate() throws Exception {
+        //given
+        writeChunk("01/01.txt", CONFLICT);
+        MergeConflictIndex.build(mTargetTranslation);
+        assertNotNull(MergeConflictIndex.get(mTargetTranslationDir));
+
+        //when
+        MergeConflictIndex.invalidate(mTargetTranslationDir);
+
+        //then
+        assertNull(MergeConflictIndex.get(mTargetTranslationDir));
+        assertFalse(new File(mTargetTranslationDir, ".git/ts-merge-conflicts.json").exists());
+    }
+
+    public void test05FromMergeDropsStalePaths() throws Exception {
+        //given
+        writeChunk("01/01.txt", CONFLICT);
+        writeChunk("01/02.txt", CONFLICT);
+        writeChunk("01/03.txt", CONFLICT);
+        MergeConflictIndex.build(mTargetTranslation);
+
+        // resolve one chunk outside of the normal save methods and delete another
+        writeChunk("01/01.txt", "resolved text");
+        FileUtilities.deleteQuietly(new File(mTargetTranslationDir, "01/02.txt"));
+        writeChunk("02/01.txt", CONFLICT);
+        writeChunk("02/02.txt", "clean text");
+
+        //when
+        MergeConflictIndex index = MergeConflictIndex.fromMerge(mTargetTranslation,
+                Arrays.asList("02/01.txt", "02/02.txt", "02/03.txt", "manifest.json"));
+
+        //then
+        assertEquals(new HashSet<>(Arrays.asList("01/03.txt", "02/01.txt")), index.getConflictedPaths());
+        assertSame(index, MergeConflictIndex.get(mTargetTranslationDir));
+    }
+
+    public void test06FromMergeResolvesAll() throws Exception {
+        //given
+        writeChunk("01/01.txt", CONFLICT);
+        MergeConflictIndex.build(mTargetTranslation);
+        writeChunk("01/01.txt", "resolved text");
+
+        //when
+        MergeConflictIndex index = MergeConflictIndex.fromMerge(mTargetTranslation, Collections.<String>emptyList());
+
+        //then
+        assertFalse(index.hasConflicts());
+    }
+
+    private void writeChunk(String path, String text) throws Exception {
+        File file = new File(mTargetTranslationDir, path);
+        file.getParentFile().mkdirs();
+        FileUtilities.writeStringToFile(file, text);
+    }
+
+    private void writeManifest() throws Exception {
+        JSONObject manifest = new JSONObject();
+        manifest.put(TargetTranslation.FIELD_MANIFEST_PACKAGE_VERSION, TargetTranslation.PACKAGE_VERSION);
+        manifest.put(TargetTranslation.FIELD_MANIFEST_FORMAT, "usfm");
+        JSONObject language = new JSONObject();
+        language.put("id", "en");
+        language.put("direction", "ltr");
+        manifest.put(TargetTranslation.FIELD_MANIFEST_TARGET_LANGUAGE, language);
+        JSONObject project = new JSONObject();
+        project.put("id", "gen");
+        manifest.put(TargetTranslation.FIELD_MANIFEST_PROJECT, project);
+        JSONObject type = new JSONObject();
+        type.put("id", "text");
+        manifest.put(TargetTranslation.FIELD_MANIFEST_TRANSLATION_TYPE, type);
+        JSONObject resource = new JSONObject();
+        resource.put("id", "reg");
+        manifest.put(TargetTranslation.FIELD_MANIFEST_RESOURCE, resource);
+        FileUtilities.writeStringToFile(new File(mTargetTranslationDir, "manifest.json"), manifest.toString());
+    }
+}
@@ -0,0 +1,163 @@
+package com.door43.translationstudio.git;
+
+import android.test.InstrumentationTestCase;
+
+import com.door43.util.FileUtilities;
+
+import java.io.File;
+
+/**
+ * Tests the leases and idle eviction of cached repositories
+ */
+public class RepoCacheTest extends InstrumentationTestCase {
+
+    private File mRepoDir;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        mRepoDir = new File(getInstrumentation().getTargetContext().getCacheDir(), "repo_cache_test");
+        RepoCache.close(mRepoDir);
+        FileUtilities.deleteQuietly(mRepoDir);
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        RepoCache.close(mRepoDir);
+        FileUtilities.deleteQuietly(mRepoDir);
+    }
+
+    public void test01ReuseOpenRepository() throws Exception {
+        Repo repo = RepoCache.get(mRepoDir);
+        repo.getGit();
+
+        assertSame(repo, RepoCache.get(mRepoDir));
+    }
+
+    public void test02LeasePreventsEviction() throws Exception {
+        //given
+        Repo repo = RepoCache.get(mRepoDir);
+        repo.acquire();
+        repo.getGit();
+        Thread.sleep(10);
+
+        //when
+        RepoCache.evictIdle(0);
+
+        //then
+        assertFalse(repo.isIdle(0));
+        assertSame(repo, RepoCache.get(mRepoDir));
+        repo.getGit().getRepository().getRef("HEAD");
+
+        // release
+        repo.release();
+        Thread.sleep(10);
+        assertTrue(repo.isIdle(0));
+        RepoCache.evictIdle(0);
+        assertNotSame(repo, RepoCache.get(mRepoDir));
+    }
+
+    public void test03NestedLeases() throws Exception {
+        Repo repo = RepoCache.get(mRepoDir);
+        repo.getGit();
+        repo.acquire();
+        repo.acquire();
+        repo.release();
+        Thread.sleep(10);
+
+        assertFalse(repo.isIdle(0));
+        repo.release();
+        Thread.sleep(10);
+        assertTrue(repo.isIdle(0));
+    }
+
+    public void test04DirtyPathsPreventEviction() throws Exception {
+        //given
+        Repo repo = RepoCache.get(mRepoDir);
+        repo.getGit();
+        repo.addDirtyPath("01/01.txt");
+        Thread.sleep(10);
+
+        //when
+        RepoCache.evictIdle(0);
+
+        //then
+        assertSame(repo, RepoCache.get(mRepoDir));
+        assertEquals(1, repo.takeDirtyPaths().size());
+        Thread.sleep(10);
+        assertTrue(repo.isIdle(0));
+    }
+
+    public void test05UnopenedRepositoryIsNotIdle() throws Exception {
+        Repo repo = RepoCache.get(mRepoDir);
+        Thread.sleep(10);
+
+        assertFalse(repo.isIdle(0));
+    }
+
+    public void test06ReopenRemovedRepository() throws Exception {
+        //given
+        Repo repo = RepoCache.get(mRepoDir);
+        repo.getGit();
+
+        //when
+        FileUtilities.deleteQuietly(new File(mRepoDir, ".git"));
+
+        //then
+        Repo reopened = RepoCache.get(mRepoDir);
+        assertNotSame(repo, reopened);
+        assertTrue(new File(mRepoDir, ".git").exists());
+    }
+
+    public void test07KeepDirtyPathsAcrossClose() throws Exception {
+        //given
+        Repo repo = RepoCache.get(mRepoDir);
+        repo.markJournalComplete();
+        repo.addDirtyPath("01/01.txt");
+        repo.addDirtyPath("manifest.json");
+
+        //when
+        RepoCache.close(mRepoDir);
+
+        //then
+        Repo reopened = RepoCache.get(mRepoDir);
+        assertNotSame(repo, reopened);
+        assertTrue(reopened.isJournalComplete());
+        assertEquals(2, reopened.takeDirtyPaths().size());
+        RepoCache.close(mRepoDir);
+        Repo empty = RepoCache.get(mRepoDir);
+        assertTrue(empty.isJournalComplete());
+        assertTrue(empty.takeDirtyPaths().isEmpty());
+    }
+
+    public void test08IncompleteJournalIsNotSaved() throws Exception {
+        //given
+        Repo repo = RepoCache.get(mRepoDir);
+        repo.addDirtyPath("01/01.txt");
+        assertFalse(repo.isJournalComplete());
+
+        //when
+        RepoCache.close(mRepoDir);
+
+        //then
+        Repo reopened = RepoCache.get(mRepoDir);
+        assertFalse(reopened.isJournalComplete());
+    }
+
+    public void test09StaleJournalIsDiscarded() throws Exception {
+        //given
+        Repo repo = RepoCache.get(mRepoDir);
+        repo.markJournalComplete();
+        repo.getGit();
+        repo.close();
+        assertTrue(new File(mRepoDir, ".git/tstudio_dirty_paths").exists());
+
+        //when
+        repo.addDirtyPath("01/01.txt");
+
+        //then
+        // the saved journal is out of date so an app that is killed now must not trust it
+        assertFalse(new File(mRepoDir, ".git/tstudio_dirty_paths").exists());
+        assertFalse(new Repo(mRepoDir.getAbsolutePath()).isJournalComplete());
+    }
+}
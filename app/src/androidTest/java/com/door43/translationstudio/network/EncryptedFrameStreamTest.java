@@ -0,0 +1,180 @@
+package com.door43.translationstudio.network;
+
+import android.test.InstrumentationTestCase;
+
+import com.tozny.crypto.android.AesCbcWithIntegrity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests that the encrypted frame streams detect truncated, reordered and tampered data
+ */
+public class EncryptedFrameStreamTest extends InstrumentationTestCase {
+
+    private AesCbcWithIntegrity.SecretKeys mKey;
+    private byte[] mData;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        mKey = AesCbcWithIntegrity.generateKey();
+        // enough data for three full frames and a partial one
+        mData = new byte[EncryptedFrameOutputStream.FRAME_SIZE * 3 + 100];
+        new Random(42).nextBytes(mData);
+    }
+
+    public void test01RoundTrip() throws Exception {
+        //when
+        byte[] result = decrypt(encrypt(mData), mKey);
+
+        //then
+        assertTrue(Arrays.equals(mData, result));
+    }
+
+    public void test02EmptyStream() throws Exception {
+        //when
+        byte[] result = decrypt(encrypt(new byte[0]), mKey);
+
+        //then
+        assertEquals(0, result.length);
+    }
+
+    public void test03TruncatedMidFrame() throws Exception {
+        //given
+        byte[] encrypted = encrypt(mData);
+        byte[] truncated = Arrays.copyOf(encrypted, encrypted.length / 2);
+
+        //then
+        assertDecryptFails(truncated, mKey);
+    }
+
+    public void test04TruncatedAtFrameBoundary() throws Exception {
+        //given
+        List<byte[]> frames = splitFrames(encrypt(mData));
+        // drop the terminating empty frame
+        frames.remove(frames.size() - 1);
+
+        //then
+        assertDecryptFails(joinFrames(frames), mKey);
+    }
+
+    public void test05ReorderedFrames() throws Exception {
+        //given
+        List<byte[]> frames = splitFrames(encrypt(mData));
+        Collections.swap(frames, 1, 2);
+
+        //then
+        assertDecryptFails(joinFrames(frames), mKey);
+    }
+
+    public void test06DroppedFrame() throws Exception {
+        //given
+        List<byte[]> frames = splitFrames(encrypt(mData));
+        frames.remove(1);
+
+        //then
+        assertDecryptFails(joinFrames(frames), mKey);
+    }
+
+    public void test07ReplayedFrame() throws Exception {
+        //given
+        List<byte[]> frames = splitFrames(encrypt(mData));
+        frames.add(1, frames.get(0));
+
+        //then
+        assertDecryptFails(joinFrames(frames), mKey);
+    }
+
+    public void test08TamperedFrame() throws Exception {
+        //given
+        byte[] encrypted = encrypt(mData);
+        encrypted[encrypted.length / 2] ^= 0x01;
+
+        //then
+        assertDecryptFails(encrypted, mKey);
+    }
+
+    public void test09WrongKey() throws Exception {
+        //given
+        byte[] encrypted = encrypt(mData);
+
+        //then
+        assertDecryptFails(encrypted, AesCbcWithIntegrity.generateKey());
+    }
+
+    private byte[] encrypt(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EncryptedFrameOutputStream out = new EncryptedFrameOutputStream(bytes, mKey);
+        // write in odd sized pieces so frames are filled across writes
+        int offset = 0;
+        while(offset < data.length) {
+            int length = Math.min(1000, data.length - offset);
+            out.write(data, offset, length);
+            offset += length;
+        }
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] decrypt(byte[] encrypted, AesCbcWithIntegrity.SecretKeys key) throws IOException {
+        InputStream in = new EncryptedFrameInputStream(new ByteArrayInputStream(encrypted), key);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int count;
+        while((count = in.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+    private static void assertDecryptFails(byte[] encrypted, AesCbcWithIntegrity.SecretKeys key) {
+        try {
+            decrypt(encrypted, key);
+            fail("the stream should have been rejected");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Splits the encrypted stream into frames. Each frame is made of three length prefixed blocks.
+     * @param encrypted
+     * @return
+     * @throws IOException
+     */
+    private static List<byte[]> splitFrames(byte[] encrypted) throws IOException {
+        List<byte[]> frames = new ArrayList<>();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(encrypted));
+        while(in.available() > 0) {
+            ByteArrayOutputStream frame = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(frame);
+            for(int i = 0; i < 3; i ++) {
+                byte[] block = new byte[in.readInt()];
+                in.readFully(block);
+                out.writeInt(block.length);
+                out.write(block);
+            }
+            frames.add(frame.toByteArray());
+        }
+        return frames;
+    }
+
+    private static byte[] joinFrames(List<byte[]> frames) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for(byte[] frame:frames) {
+            out.write(frame);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,147 @@
+package com.door43.translationstudio.rendering;
+
+import android.graphics.Color;
+import android.test.InstrumentationTestCase;
+import android.text.Spanned;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks that the single pass {@link USFMTokenRenderer} produces the same output as {@link USFMRenderer}
+ */
+public class USFMTokenRendererTest extends InstrumentationTestCase {
+
+    private boolean mLinebreaks;
+    private String mSearch;
+    private int[] mVerseRange;
+    private boolean mSuppressHeadings;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        mLinebreaks = false;
+        mSearch = null;
+        mVerseRange = new int[0];
+        mSuppressHeadings = false;
+    }
+
+    public void test01Verses() throws Exception {
+        verifyParity("\\v 1 In the beginning God created the heavens and the earth. \\v 2 The earth was without form.");
+    }
+
+    public void test02VerseRange() throws Exception {
+        verifyParity("\\v 1-2 In the beginning God created the heavens and the earth. \\v 3 God said.");
+    }
+
+    public void test03Footnote() throws Exception {
+        verifyParity("\\v 1 In the beginning \\f + \\ft Or, when God began to create\\f* God created the earth.");
+    }
+
+    public void test04Chapter() throws Exception {
+        verifyParity("\\c 1 \\v 1 In the beginning God created the heavens and the earth.");
+    }
+
+    public void test05SectionHeading() throws Exception {
+        verifyParity("<para style=\"s\">The Creation</para>\\v 1 In the beginning God created the heavens and the earth.");
+    }
+
+    public void test06Poetry() throws Exception {
+        verifyParity("\\v 1 <para style=\"q\">Blessed is the man</para><para style=\"q2\">who does not walk</para><para style=\"qr\">Selah</para>");
+    }
+
+    public void test07Linebreaks() throws Exception {
+        String usfm = "\\v 1 In the beginning\nGod created\n\n\\v 2 the heavens and the earth.";
+        verifyParity(usfm);
+        mLinebreaks = true;
+        verifyParity(usfm);
+    }
+
+    public void test08Search() throws Exception {
+        mSearch = "Earth";
+        verifyParity("\\v 1 In the beginning God created the heavens and the earth. \\v 2 The earth was without form.");
+    }
+
+    public void test09PopulateMissingVerses() throws Exception {
+        mVerseRange = new int[]{1, 3};
+        verifyParity("\\v 1 In the beginning God created the heavens and the earth.");
+    }
+
+    public void test10LeadingMajorSectionHeading() throws Exception {
+        String usfm = "<para style=\"ms\">Book One</para>\\v 1 Blessed is the man.";
+        verifyParity(usfm);
+        mSuppressHeadings = true;
+        verifyParity(usfm);
+        assertEquals(new USFMRenderer().getLeadingMajorSectionHeading(usfm).toString(),
+                new USFMTokenRenderer().getLeadingMajorSectionHeading(usfm).toString());
+    }
+
+    public void test11RenderVerse() throws Exception {
+        String usfm = "\\v 1 In the beginning \\v 2-3 God created the heavens and the earth.";
+        CharSequence expected = new USFMRenderer().renderVerse(usfm);
+        CharSequence actual = new USFMTokenRenderer().renderVerse(usfm);
+        verifyOutput(expected, actual);
+    }
+
+    public void test12PlainText() throws Exception {
+        verifyParity("  In the beginning God created the heavens and the earth.  ");
+    }
+
+    public void test13RenderVerseIgnoresSearch() throws Exception {
+        mSearch = "earth";
+        String usfm = "\\v 1 In the beginning \\v 2-3 God created the heavens and the earth.";
+        USFMRenderer legacy = new USFMRenderer();
+        configure(legacy);
+        USFMTokenRenderer renderer = new USFMTokenRenderer();
+        configure(renderer);
+        verifyOutput(legacy.renderVerse(usfm), renderer.renderVerse(usfm));
+    }
+
+    /**
+     * Renders the usfm with both engines and compares the results
+     * @param usfm
+     */
+    private void verifyParity(String usfm) {
+        USFMRenderer legacy = new USFMRenderer();
+        configure(legacy);
+        USFMTokenRenderer renderer = new USFMTokenRenderer();
+        configure(renderer);
+
+        CharSequence expected = legacy.render(usfm);
+        // TRICKY: render without the fallback so a failure is not hidden by the legacy output
+        CharSequence actual = renderer.renderTokens(usfm);
+
+        verifyOutput(expected, actual);
+        assertEquals(legacy.isAddedMissingVerse(), renderer.isAddedMissingVerse());
+    }
+
+    private void configure(ClickableRenderingEngine renderer) {
+        renderer.setLinebreaksEnabled(mLinebreaks);
+        renderer.setSearchString(mSearch, Color.YELLOW);
+        renderer.setPopulateVerseMarkers(mVerseRange);
+        renderer.setSuppressLeadingMajorSectionHeadings(mSuppressHeadings);
+    }
+
+    private void verifyOutput(CharSequence expected, CharSequence actual) {
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(describeSpans(expected), describeSpans(actual));
+    }
+
+    /**
+     * Lists the type and range of every span in the text
+     * @param text
+     * @return
+     */
+    private static List<String> describeSpans(CharSequence text) {
+        List<String> spans = new ArrayList<>();
+        if(text instanceof Spanned) {
+            Spanned spanned = (Spanned) text;
+            for(Object span:spanned.getSpans(0, spanned.length(), Object.class)) {
+                spans.add(span.getClass().getSimpleName() + " " + spanned.getSpanStart(span) + "-" + spanned.getSpanEnd(span));
+            }
+        }
+        Collections.sort(spans);
+        return spans;
+    }
+}
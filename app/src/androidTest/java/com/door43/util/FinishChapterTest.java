@@ -0,0 +1,110 @@
+package com.door43.util;
+
+import android.test.InstrumentationTestCase;
+
+import com.door43.translationstudio.core.TargetTranslation;
+
+import org.json.JSONObject;
+
+import java.io.File;
+
+/**
+ * Tests that finishing a chapter only writes the manifest once
+ */
+public class FinishChapterTest extends InstrumentationTestCase {
+
+    private File mTargetTranslationDir;
+    private TargetTranslation mTargetTranslation;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        mTargetTranslationDir = new File(getInstrumentation().getTargetContext().getCacheDir(), "finish_chapter_test");
+        FileUtilities.deleteQuietly(mTargetTranslationDir);
+        new File(mTargetTranslationDir, ".git").mkdirs();
+        writeManifest();
+        mTargetTranslation = TargetTranslation.open(mTargetTranslationDir);
+        assertNotNull(mTargetTranslation);
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        FileUtilities.deleteQuietly(mTargetTranslationDir);
+    }
+
+    public void test01FinishChapterWritesOnce() throws Exception {
+        //given
+        writeChunk("01/title.txt", "Chapter One");
+        writeChunk("01/reference.txt", "A reference");
+        for(int i = 1; i <= 20; i ++) {
+            writeChunk(String.format("01/%02d.txt", i), "chunk " + i);
+        }
+        mTargetTranslation.flushManifest();
+        long written = mTargetTranslation.getManifestWrittenVersion();
+
+        //when
+        int finished = mTargetTranslation.finishChapter("01");
+        mTargetTranslation.flushManifest();
+
+        //then
+        assertEquals(22, finished);
+        assertEquals(written + 1, mTargetTranslation.getManifestWrittenVersion());
+        assertTrue(mTargetTranslation.isChapterTitleFinished("01"));
+        assertTrue(mTargetTranslation.isChapterReferenceFinished("01"));
+        assertTrue(mTargetTranslation.isFrameFinished("01-20"));
+        TargetTranslation reopened = TargetTranslation.open(mTargetTranslationDir);
+        assertEquals(22, reopened.numFinished());
+    }
+
+    public void test02FinishChapterAgainDoesNotWrite() throws Exception {
+        //given
+        writeChunk("01/01.txt", "chunk 1");
+        writeChunk("01/02.txt", "chunk 2");
+        mTargetTranslation.finishChapter("01");
+        mTargetTranslation.flushManifest();
+        long written = mTargetTranslation.getManifestWrittenVersion();
+
+        //when
+        int finished = mTargetTranslation.finishChapter("01");
+        mTargetTranslation.flushManifest();
+
+        //then
+        assertEquals(0, finished);
+        assertEquals(written, mTargetTranslation.getManifestWrittenVersion());
+    }
+
+    public void test03FinishMissingChapter() throws Exception {
+        //when
+        int finished = mTargetTranslation.finishChapter("02");
+
+        //then
+        assertEquals(0, finished);
+        assertEquals(0, mTargetTranslation.numFinished());
+    }
+
+    private void writeChunk(String path, String text) throws Exception {
+        File file = new File(mTargetTranslationDir, path);
+        file.getParentFile().mkdirs();
+        FileUtilities.writeStringToFile(file, text);
+    }
+
+    private void writeManifest() throws Exception {
+        JSONObject manifest = new JSONObject();
+        manifest.put(TargetTranslation.FIELD_MANIFEST_PACKAGE_VERSION, TargetTranslation.PACKAGE_VERSION);
+        manifest.put(TargetTranslation.FIELD_MANIFEST_FORMAT, "usfm");
+        JSONObject language = new JSONObject();
+        language.put("id", "en");
+        language.put("direction", "ltr");
+        manifest.put(TargetTranslation.FIELD_MANIFEST_TARGET_LANGUAGE, language);
+        JSONObject project = new JSONObject();
+        project.put("id", "gen");
+        manifest.put(TargetTranslation.FIELD_MANIFEST_PROJECT, project);
+        JSONObject type = new JSONObject();
+        type.put("id", "text");
+        manifest.put(TargetTranslation.FIELD_MANIFEST_TRANSLATION_TYPE, type);
+        JSONObject resource = new JSONObject();
+        resource.put("id", "reg");
+        manifest.put(TargetTranslation.FIELD_MANIFEST_RESOURCE, resource);
+        FileUtilities.writeStringToFile(new File(mTargetTranslationDir, Manifest.MANIFEST_JSON), manifest.toString());
+    }
+}
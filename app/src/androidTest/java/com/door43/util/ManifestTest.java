@@ -0,0 +1,101 @@
+package com.door43.util;
+
+import android.test.InstrumentationTestCase;
+
+import java.io.File;
+
+/**
+ * Tests the write-behind mode of the manifest
+ */
+public class ManifestTest extends InstrumentationTestCase {
+
+    private File mTempDir;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        mTempDir = new File(getInstrumentation().getTargetContext().getCacheDir(), "manifest_test");
+        FileUtilities.deleteQuietly(mTempDir);
+        mTempDir.mkdirs();
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        FileUtilities.deleteQuietly(mTempDir);
+    }
+
+    public void test01CoalesceWrites() throws Exception {
+        //given
+        Manifest manifest = Manifest.generate(mTempDir);
+        manifest.setWriteBehind(true);
+        long written = manifest.getWrittenVersion();
+
+        //when
+        // TRICKY: holding the lock keeps the writer from taking a snapshot until we are done
+        synchronized (manifest) {
+            for(int i = 0; i < 100; i ++) {
+                manifest.put("key" + i, i);
+            }
+            assertTrue(manifest.isDirty());
+        }
+        manifest.flush();
+
+        //then
+        assertFalse(manifest.isDirty());
+        assertEquals(written + 1, manifest.getWrittenVersion());
+        Manifest reloaded = Manifest.generate(mTempDir);
+        for(int i = 0; i < 100; i ++) {
+            assertEquals(i, reloaded.getInt("key" + i));
+        }
+    }
+
+    public void test02FlushPending() throws Exception {
+        //given
+        Manifest manifest = Manifest.generate(mTempDir);
+        manifest.setWriteBehind(true);
+
+        //when
+        manifest.put("name", "value");
+        Manifest.flushPending(mTempDir);
+
+        //then
+        assertFalse(manifest.isDirty());
+        assertEquals("value", Manifest.generate(mTempDir).getString("name"));
+    }
+
+    public void test03DisableWriteBehindFlushes() throws Exception {
+        //given
+        Manifest manifest = Manifest.generate(mTempDir);
+        manifest.setWriteBehind(true);
+        synchronized (manifest) {
+            manifest.put("name", "value");
+        }
+
+        //when
+        manifest.setWriteBehind(false);
+
+        //then
+        assertFalse(manifest.isDirty());
+        assertEquals("value", Manifest.generate(mTempDir).getString("name"));
+    }
+
+    public void test04StageInGitDir() throws Exception {
+        //given
+        File gitDir = new File(mTempDir, ".git");
+        gitDir.mkdirs();
+        Manifest manifest = Manifest.generate(mTempDir);
+
+        //when
+        manifest.put("name", "value");
+        manifest.flush();
+
+        //then
+        String[] files = mTempDir.list();
+        assertEquals(2, files.length);
+        for(String name:files) {
+            assertTrue(name.equals(".git") || name.equals(Manifest.MANIFEST_JSON));
+        }
+        assertFalse(new File(gitDir, "." + Manifest.MANIFEST_JSON + ".tmp").exists());
+        assertEquals("value", Manifest.generate(mTempDir).getString("name"));
+    }
+}
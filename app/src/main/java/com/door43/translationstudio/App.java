@@ -28,10 +28,12 @@ import org.unfoldingword.tools.foreground.Foreground;
 import org.unfoldingword.tools.logger.LogLevel;
 import org.unfoldingword.tools.logger.Logger;
 import com.door43.translationstudio.core.ArchiveDetails;
+import com.door43.translationstudio.core.BackupLedger;
 import com.door43.translationstudio.core.Migration;
 import com.door43.translationstudio.core.NewLanguageRequest;
 import com.door43.translationstudio.core.Profile;
 import com.door43.translationstudio.core.TargetTranslation;
+import com.door43.translationstudio.core.TranslationProgressCache;
 import com.door43.translationstudio.core.TranslationViewMode;
 import com.door43.translationstudio.core.Translator;
 import com.door43.translationstudio.core.Util;
@@ -54,6 +56,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -402,6 +405,7 @@ public class App extends Application {
         File dir = containersDir();
         dir.mkdirs();
         Zip.unzipFromStream(sInstance.getAssets().open("containers.zip"), dir);
+        TranslationProgressCache.empty();
     }
 
     /**
@@ -428,6 +432,7 @@ public class App extends Application {
         }
         FileUtilities.deleteQuietly(dbFile());
         FileUtilities.deleteQuietly(containersDir());
+        TranslationProgressCache.empty();
     }
 
     /**
@@ -544,29 +549,50 @@ public class App extends Application {
             File publicBackup = new File(publicDir(), "backups/" + name + "." + Translator.ARCHIVE_EXTENSION);
 
             // check if we need to backup
+            BackupLedger ledger = getBackupLedger();
             if(!orphaned) {
-                ArchiveDetails downloadsDetails = ArchiveDetails.newInstance(downloadsBackup, "en", getLibrary());
-                ArchiveDetails publicDetails = ArchiveDetails.newInstance(publicBackup, "en", getLibrary());
-                // TRICKY: we only generate backups with a single target translation inside.
-                if( getCommitHash(downloadsDetails).equals(targetTranslation.getCommitHash())
-                        && getCommitHash(publicDetails).equals(targetTranslation.getCommitHash())) {
+                String commitHash = targetTranslation.getCommitHash();
+                if(ledger.isBackedUp(targetTranslation.getId(), commitHash, downloadsBackup, publicBackup)) {
                     return false;
                 }
+                // TRICKY: backups made before the ledger existed are checked the slow way once
+                if(!ledger.hasRecord(targetTranslation.getId()) && downloadsBackup.exists() && publicBackup.exists()) {
+                    ArchiveDetails downloadsDetails = ArchiveDetails.newInstance(downloadsBackup, "en", getLibrary());
+                    ArchiveDetails publicDetails = ArchiveDetails.newInstance(publicBackup, "en", getLibrary());
+                    // TRICKY: we only generate backups with a single target translation inside.
+                    if (getCommitHash(downloadsDetails).equals(commitHash)
+                            && getCommitHash(publicDetails).equals(commitHash)) {
+                        ledger.record(targetTranslation.getId(), commitHash, downloadsBackup, publicBackup);
+                        return false;
+                    }
+                }
             }
 
             // run backup
-            File temp = null;
+            downloadsBackup.getParentFile().mkdirs();
+            publicBackup.getParentFile().mkdirs();
+            // TRICKY: backups of the same target translation may run at the same time so each gets its own temp file
+            File temp = File.createTempFile(name, "." + Translator.ARCHIVE_EXTENSION, downloadsBackup.getParentFile());
             try {
-                temp = File.createTempFile(name, "." + Translator.ARCHIVE_EXTENSION);
                 targetTranslation.setDefaultContributor(getProfile().getNativeSpeaker());
-                getTranslator().exportArchive(targetTranslation, temp);
-                if (temp.exists() && temp.isFile()) {
-                    // copy into backup locations
-                    downloadsBackup.getParentFile().mkdirs();
-                    publicBackup.getParentFile().mkdirs();
 
-                    FileUtilities.copyFile(temp, downloadsBackup);
-                    FileUtilities.copyFile(temp, publicBackup);
+                // write the archive once
+                OutputStream out = new FileOutputStream(temp);
+                try {
+                    getTranslator().exportArchive(targetTranslation, out, temp.getName());
+                } finally {
+                    FileUtilities.closeQuietly(out);
+                }
+                if (temp.exists() && temp.isFile()) {
+                    FileUtilities.safeDelete(downloadsBackup);
+                    if(!temp.renameTo(downloadsBackup)) {
+                        FileUtilities.copyFile(temp, downloadsBackup);
+                    }
+                    // link the second copy when the file system allows it
+                    FileUtilities.linkOrCopy(downloadsBackup, publicBackup);
+                    if(!orphaned) {
+                        ledger.record(targetTranslation.getId(), targetTranslation.getCommitHash(), downloadsBackup, publicBackup);
+                    }
                     return true;
                 }
             } finally {
@@ -576,6 +602,14 @@ public class App extends Application {
         return false;
     }
 
+    /**
+     * Returns the ledger of target translation backups
+     * @return
+     */
+    public static BackupLedger getBackupLedger() {
+        return new BackupLedger(sInstance.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE));
+    }
+
     /**
      * safe fetch of commit hash
      * @param details
@@ -14,11 +14,14 @@ import org.unfoldingword.resourcecontainer.Project;
 import org.unfoldingword.door43client.models.TargetLanguage;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.ZipFile;
 
 /**
  * Holds details about the translation archive
@@ -27,6 +30,21 @@ import java.util.List;
 public class ArchiveDetails {
     public static final String MANIFEST_JSON = "manifest.json";
     public static final String PACKAGE_VERSION = "package_version";
+    private static final int CACHE_SIZE = 20;
+    /**
+     * matches the archive manifest and the manifests of the target translations within it
+     */
+    private static final Pattern MANIFEST_PATTERN = Pattern.compile("^([^/]+/)?" + Pattern.quote(MANIFEST_JSON) + "$", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * A small cache of parsed archives keyed by path, size, modified date and locale
+     */
+    private static final Map<String, ArchiveDetails> cache = new LinkedHashMap<String, ArchiveDetails>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ArchiveDetails> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
     public final long createdAt;
     public final TargetTranslationDetails[] targetTranslationDetails;
 
@@ -40,7 +58,8 @@ public class ArchiveDetails {
     }
 
     /**
-     * Reads the details from a translationStudio archive
+     * Reads the details from a translationStudio archive.
+     * The archive is read in a single pass without being copied to the disk.
      * @param archiveStream
      * @param preferredLocale
      * @param library
@@ -49,48 +68,42 @@ public class ArchiveDetails {
      */
     public static ArchiveDetails newInstance(InputStream archiveStream, String preferredLocale, Door43Client library) throws Exception {
         if(archiveStream != null) {
-            File tempFile = File.createTempFile("targettranslation", "." + Translator.ARCHIVE_EXTENSION);
-            FileUtilities.copyInputStreamToFile(archiveStream, tempFile);
-
-            String rawManifest = Zip.read(tempFile, MANIFEST_JSON);
-            if (rawManifest != null) {
-                JSONObject json = new JSONObject(rawManifest);
-                if (json.has(PACKAGE_VERSION)) {
-                    int manifestVersion = json.getInt(PACKAGE_VERSION);
-                    switch (manifestVersion) {
-                        case 1:
-                            return parseV1Manifest(json);
-                        case 2:
-                            return parseV2Manifest(new FileInputStream(tempFile), json, preferredLocale, library);
-                    }
-                }
+            try {
+                return parse(new StreamEntryReader(archiveStream), preferredLocale, library);
+            } finally {
+                FileUtilities.closeQuietly(archiveStream);
             }
         }
         return null;
     }
 
     /**
-     * Reads the details from a translationStudio archive
+     * Reads the details from a translationStudio archive.
+     * Manifests are looked up through the zip central directory so the rest of the archive is not read.
+     * Results are cached until the archive is modified.
      * @param archive
      * @return
      * @throws IOException
      */
     public static ArchiveDetails newInstance(File archive, String preferredLocale, Door43Client library) throws Exception {
         if(archive != null && archive.exists()) {
-            String rawManifest = Zip.read(archive, MANIFEST_JSON);
-            if(rawManifest != null) {
-                JSONObject json = new JSONObject(rawManifest);
-                if(json.has(PACKAGE_VERSION)) {
-                    int manifestVersion = json.getInt(PACKAGE_VERSION);
-                    switch (manifestVersion) {
-                        case 1:
-                            return parseV1Manifest(json);
-                        case 2:
-                            return parseV2Manifest(new FileInputStream(archive), json, preferredLocale, library);
-                    }
+            String key = archive.getAbsolutePath() + ":" + archive.length() + ":" + archive.lastModified() + ":" + preferredLocale;
+            synchronized (cache) {
+                if(cache.containsKey(key)) {
+                    return cache.get(key);
                 }
             }
-            return null;
+            ZipFile zip = new ZipFile(archive);
+            ArchiveDetails details;
+            try {
+                details = parse(new ZipFileEntryReader(zip), preferredLocale, library);
+            } finally {
+                zip.close();
+            }
+            synchronized (cache) {
+                cache.put(key, details);
+            }
+            return details;
         } else {
             return null;
         }
@@ -104,38 +117,60 @@ public class ArchiveDetails {
      */
     public static ArchiveDetails newInstance(Context context, DocumentFile archive, String preferredLocale, Door43Client library) throws Exception {
         if(archive != null && archive.exists()) {
-            InputStream ais = context.getContentResolver().openInputStream(archive.getUri());
-            String rawManifest = Zip.readInputStream(ais, MANIFEST_JSON);
-            if (rawManifest != null) {
-                JSONObject json = new JSONObject(rawManifest);
-                if (json.has(PACKAGE_VERSION)) {
-                    int manifestVersion = json.getInt(PACKAGE_VERSION);
-                    switch (manifestVersion) {
-                        case 1:
-                            return parseV1Manifest(json);
-                        case 2:
-                            return parseV2Manifest(context.getContentResolver().openInputStream(archive.getUri()), json, preferredLocale, library);
-                    }
+            String key = archive.getUri().toString() + ":" + archive.length() + ":" + archive.lastModified() + ":" + preferredLocale;
+            synchronized (cache) {
+                if(cache.containsKey(key)) {
+                    return cache.get(key);
                 }
             }
-            return null;
+            InputStream ais = context.getContentResolver().openInputStream(archive.getUri());
+            ArchiveDetails details = newInstance(ais, preferredLocale, library);
+            synchronized (cache) {
+                cache.put(key, details);
+            }
+            return details;
         } else {
             return null;
         }
     }
 
+    /**
+     * Parses the archive manifests
+     * @param reader
+     * @param preferredLocale
+     * @param library
+     * @return
+     * @throws Exception
+     */
+    private static ArchiveDetails parse(EntryReader reader, String preferredLocale, Door43Client library) throws Exception {
+        String rawManifest = reader.read(MANIFEST_JSON);
+        if (rawManifest != null) {
+            JSONObject json = new JSONObject(rawManifest);
+            if (json.has(PACKAGE_VERSION)) {
+                int manifestVersion = json.getInt(PACKAGE_VERSION);
+                switch (manifestVersion) {
+                    case 1:
+                        return parseV1Manifest(json);
+                    case 2:
+                        return parseV2Manifest(reader, json, preferredLocale, library);
+                }
+            }
+        }
+        return null;
+    }
+
     private static ArchiveDetails parseV1Manifest(JSONObject json) {
         return null;
     }
 
-    private static ArchiveDetails parseV2Manifest(InputStream ais, JSONObject archiveManifest, String preferredLocale, Door43Client library) throws JSONException, IOException {
+    private static ArchiveDetails parseV2Manifest(EntryReader reader, JSONObject archiveManifest, String preferredLocale, Door43Client library) throws JSONException, IOException {
         List<TargetTranslationDetails> targetDetails = new ArrayList<>();
         long timestamp = archiveManifest.getLong("timestamp");
         JSONArray translationsJson = archiveManifest.getJSONArray("target_translations");
         for(int i = 0; i < translationsJson.length(); i ++) {
             JSONObject translationRecordJson = translationsJson.getJSONObject(i);
             String path = translationRecordJson.getString("path");
-            String rawTranslationManifest = Zip.readInputStream(ais, path.replaceAll("/+$", "") + "/manifest.json");
+            String rawTranslationManifest = reader.read(path.replaceAll("/+$", "") + "/" + MANIFEST_JSON);
             if(rawTranslationManifest != null) {
                 JSONObject manifest = new JSONObject(rawTranslationManifest);
 
@@ -192,10 +227,52 @@ public class ArchiveDetails {
                 }
             }
         }
-        ais.close();
         return new ArchiveDetails(timestamp, targetDetails.toArray(new TargetTranslationDetails[targetDetails.size()]));
     }
 
+    /**
+     * Reads the contents of entries in an archive
+     */
+    private interface EntryReader {
+        /**
+         * @param path the path of the entry (case insensitive)
+         * @return the contents of the entry or null if it does not exist
+         */
+        String read(String path) throws IOException;
+    }
+
+    /**
+     * Reads entries directly from a zip file using the central directory
+     */
+    private static class ZipFileEntryReader implements EntryReader {
+        private final ZipFile zip;
+
+        ZipFileEntryReader(ZipFile zip) {
+            this.zip = zip;
+        }
+
+        @Override
+        public String read(String path) throws IOException {
+            return Zip.read(zip, path);
+        }
+    }
+
+    /**
+     * Collects all of the manifests from a zip stream in a single pass
+     */
+    private static class StreamEntryReader implements EntryReader {
+        private final Map<String, String> manifests;
+
+        StreamEntryReader(InputStream archiveStream) throws IOException {
+            manifests = Zip.readEntries(archiveStream, MANIFEST_PATTERN);
+        }
+
+        @Override
+        public String read(String path) throws IOException {
+            return manifests.get(path.toLowerCase());
+        }
+    }
+
     /**
      * Returns an empty archive
      * @return
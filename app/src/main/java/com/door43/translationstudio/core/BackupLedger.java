@@ -0,0 +1,125 @@
+package com.door43.translationstudio.core;
+
+import android.content.SharedPreferences;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+
+/**
+ * Keeps a record of the last backup made of each target translation.
+ * This allows us to tell whether a backup is up to date without opening the backup archives.
+ */
+public class BackupLedger {
+    private static final String KEY_PREFIX = "backup_";
+    private static final String FIELD_COMMIT = "commit";
+    private static final String FIELD_FILES = "files";
+    private static final String FIELD_PATH = "path";
+    private static final String FIELD_SIZE = "size";
+    private static final String FIELD_MODIFIED = "modified";
+
+    private final SharedPreferences prefs;
+
+    /**
+     * @param prefs the preferences where the ledger will be stored
+     */
+    public BackupLedger(SharedPreferences prefs) {
+        this.prefs = prefs;
+    }
+
+    /**
+     * Checks if the backups are up to date with the commit.
+     * The backup files must still exist and not have been modified since they were recorded.
+     *
+     * @param targetTranslationId
+     * @param commitHash the current HEAD of the target translation
+     * @param backups the backup archives
+     * @return
+     */
+    public boolean isBackedUp(String targetTranslationId, String commitHash, File... backups) {
+        String raw = prefs.getString(KEY_PREFIX + targetTranslationId, null);
+        if(raw == null || commitHash == null) {
+            return false;
+        }
+        try {
+            JSONObject record = new JSONObject(raw);
+            if(!commitHash.equals(record.getString(FIELD_COMMIT))) {
+                return false;
+            }
+            JSONArray files = record.getJSONArray(FIELD_FILES);
+            for(File backup:backups) {
+                if(!matches(files, backup)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a backup of the target translation has been recorded
+     * @param targetTranslationId
+     * @return
+     */
+    public boolean hasRecord(String targetTranslationId) {
+        return prefs.contains(KEY_PREFIX + targetTranslationId);
+    }
+
+    /**
+     * Records a backup
+     * @param targetTranslationId
+     * @param commitHash the HEAD of the target translation that was backed up
+     * @param backups the backup archives that were written
+     */
+    public void record(String targetTranslationId, String commitHash, File... backups) {
+        try {
+            JSONObject record = new JSONObject();
+            record.put(FIELD_COMMIT, commitHash);
+            JSONArray files = new JSONArray();
+            for(File backup:backups) {
+                JSONObject file = new JSONObject();
+                file.put(FIELD_PATH, backup.getAbsolutePath());
+                file.put(FIELD_SIZE, backup.length());
+                file.put(FIELD_MODIFIED, backup.lastModified());
+                files.put(file);
+            }
+            record.put(FIELD_FILES, files);
+            prefs.edit().putString(KEY_PREFIX + targetTranslationId, record.toString()).apply();
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Removes the record of a target translation
+     * @param targetTranslationId
+     */
+    public void remove(String targetTranslationId) {
+        prefs.edit().remove(KEY_PREFIX + targetTranslationId).apply();
+    }
+
+    /**
+     * Checks if the file on the disk matches the recorded file
+     * @param files
+     * @param backup
+     * @return
+     * @throws JSONException
+     */
+    private static boolean matches(JSONArray files, File backup) throws JSONException {
+        String path = backup.getAbsolutePath();
+        for(int i = 0; i < files.length(); i ++) {
+            JSONObject file = files.getJSONObject(i);
+            if(file.getString(FIELD_PATH).equals(path)) {
+                return backup.exists()
+                        && backup.length() == file.getLong(FIELD_SIZE)
+                        && backup.lastModified() == file.getLong(FIELD_MODIFIED);
+            }
+        }
+        return false;
+    }
+}
@@ -12,9 +12,14 @@ import org.unfoldingword.tools.http.GetRequest;
 import org.unfoldingword.tools.http.Request;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.zip.ZipEntry;
 
 /**
  * Created by blm on 12/28/16.  Revived from pre-resource container code.
@@ -85,7 +90,7 @@ public class DownloadImages {
      * @param listener
      * @return
      */
-    public boolean download(OnProgressListener listener) {
+    public boolean download(final OnProgressListener listener) {
         // TODO: 1/21/2016 we need to be sure to download images for the correct project. right now only obs has images
         // eventually the api will be updated so we can easily download the correct images.
 
@@ -108,39 +113,44 @@ public class DownloadImages {
 
         boolean success = requestToFile(url, fullPath, IMAGES_CATALOG_SIZE, listener);
         if (success) {
-            int fileCount = 0;
+            final int[] fileCount = {0};
             try {
-                File tempDir = new File(mImagesDir, "temp");
-                tempDir.mkdirs();
-
-                String outOf = App.context().getResources().getString(R.string.out_of);
-                String unpacking = App.context().getResources().getString(R.string.unpacking);
+                final String outOf = App.context().getResources().getString(R.string.out_of);
+                final String unpacking = App.context().getResources().getString(R.string.unpacking);
                 listener.onProgress((int)0, (int)100, unpacking);
                 Log.i(TAG,  "unpacking: ");
 
-                Zip.unzip(fullPath, tempDir);
-                success = true;
-                fullPath.delete();
-                // move files out of dir
-                File[] extractedFiles = tempDir.listFiles();
-                if(extractedFiles != null) {
-                    for (File dir:extractedFiles) {
-                        if(dir.isDirectory()) {
-                            for(File f:dir.listFiles()) {
-                                FileUtilities.moveOrCopyQuietly(f, new File(mImagesDir, f.getName()));
-
-                                String message = String.format("%s: %d %s %d",
-                                        unpacking,
-                                        ++fileCount,
-                                        outOf,
-                                        TOTAL_FILE_COUNT);
-                                listener.onProgress(fileCount, TOTAL_FILE_COUNT, message);
-//                                Log.i(TAG,  "Download progress - " + fileCount + " out of " + TOTAL_FILE_COUNT);
+                // extract the images straight out of their folder in the archive
+                InputStream is = new FileInputStream(fullPath);
+                try {
+                    Zip.visitEntries(is, new Zip.EntryVisitor() {
+                        @Override
+                        public boolean visit(ZipEntry entry, InputStream content) throws IOException {
+                            String[] parts = entry.getName().split("/");
+                            if (parts.length != 2) {
+                                return true;
+                            }
+                            OutputStream out = new FileOutputStream(new File(mImagesDir, parts[1]));
+                            try {
+                                FileUtilities.copy(content, out);
+                            } finally {
+                                out.close();
                             }
+
+                            String message = String.format("%s: %d %s %d",
+                                    unpacking,
+                                    ++fileCount[0],
+                                    outOf,
+                                    TOTAL_FILE_COUNT);
+                            listener.onProgress(fileCount[0], TOTAL_FILE_COUNT, message);
+                            return true;
                         }
-                    }
+                    });
+                } finally {
+                    is.close();
                 }
-                FileUtilities.deleteQuietly(tempDir);
+                success = true;
+                fullPath.delete();
             } catch (IOException e) {
                 success = false;
             }
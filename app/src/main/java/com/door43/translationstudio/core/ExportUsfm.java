@@ -9,16 +9,26 @@ import com.door43.util.SdUtils;
 
 import org.unfoldingword.tools.logger.Logger;
 
-import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.PrintStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.unfoldingword.resourcecontainer.Project;
 
@@ -32,6 +42,12 @@ public class ExportUsfm {
     public static final String TAG = ExportUsfm.class.getName();
 
 
+    /**
+     * The largest number of chapters that will be read at once
+     */
+    private static final int MAX_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
     /**
      * output target translation to USFM file, returns file name to check for success
      * @param targetTranslation
@@ -41,6 +57,36 @@ public class ExportUsfm {
      * * @return target zipFileName or null if error
      */
     static public Uri saveToUSFM(TargetTranslation targetTranslation, Uri destinationFolder, String fileName, boolean outputToDocumentFile) {
+        ExecutorService executor = Executors.newFixedThreadPool(MAX_THREADS);
+        try {
+            return saveToUSFM(targetTranslation, destinationFolder, fileName, outputToDocumentFile, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Exports several target translations to USFM files using their default file names.
+     * The target translations share a single pool of readers.
+     * @param targetTranslations
+     * @param destinationFolder
+     * @param outputToDocumentFile
+     * @return the exported files in the same order as the target translations. Failed exports will be null
+     */
+    static public List<Uri> saveToUSFM(List<TargetTranslation> targetTranslations, Uri destinationFolder, boolean outputToDocumentFile) {
+        List<Uri> exportFiles = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(MAX_THREADS);
+        try {
+            for(TargetTranslation targetTranslation:targetTranslations) {
+                exportFiles.add(saveToUSFM(targetTranslation, destinationFolder, null, outputToDocumentFile, executor));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return exportFiles;
+    }
+
+    static private Uri saveToUSFM(TargetTranslation targetTranslation, Uri destinationFolder, String fileName, boolean outputToDocumentFile, ExecutorService executor) {
         if(destinationFolder == null) {
             outputToDocumentFile = false;
             destinationFolder = Uri.fromFile(App.getPublicDownloadsDirectory());
@@ -48,7 +94,7 @@ public class ExportUsfm {
 
         Uri exportFile = null;
         try {
-            exportFile = exportAsUSFM(targetTranslation, destinationFolder, fileName, outputToDocumentFile);
+            exportFile = exportAsUSFM(targetTranslation, destinationFolder, fileName, outputToDocumentFile, executor);
         } catch (Exception e) {
             Logger.e(TAG, "Failed to export the target translation " + targetTranslation.getId(), e);
         }
@@ -60,19 +106,17 @@ public class ExportUsfm {
     }
 
     /**
-     * Exports a target translation as a USFM file
+     * Exports a target translation as a USFM file.
+     * Chapters are read in parallel and written in order directly to the destination.
      * @param targetTranslation
      * @param destinationFolder
      * @param fileName
      * @param outputToDocumentFile
+     * @param executor reads the chapters
      * @return output file
      */
-    static private Uri exportAsUSFM(TargetTranslation targetTranslation, Uri destinationFolder, String fileName, boolean outputToDocumentFile) throws IOException {
-        File tempDir = new File(App.context().getCacheDir(), System.currentTimeMillis() + "");
-        tempDir.mkdirs();
-        ChapterTranslation[] chapters = targetTranslation.getChapterTranslations();
-        String outputFileName = null;
-        File tempFile = null;
+    static private Uri exportAsUSFM(final TargetTranslation targetTranslation, Uri destinationFolder, String fileName, boolean outputToDocumentFile, ExecutorService executor) throws Exception {
+        String outputFileName;
 
         BookData bookData = BookData.generate(targetTranslation);
         String bookCode = bookData.getBookCode();
@@ -87,95 +131,113 @@ public class ExportUsfm {
             outputFileName = bookData.getDefaultUsfmFileName();
         }
 
-        tempFile = new File(tempDir, outputFileName);
-        tempFile.createNewFile();
-
-        PrintStream ps = new PrintStream(tempFile);
-
-        String id = "\\id " + bookCode + " " + bookTitle + ", " + bookName + ", " + (languageId + ", " + languageName);
-        ps.println(id);
-        String bookID = "\\toc1 " + bookTitle;
-        ps.println(bookID);
-        String bookNameID = "\\toc2 " + bookName;
-        ps.println(bookNameID);
-        String shortBookID = "\\toc3 " + bookCode;
-        ps.println(shortBookID);
-
-        for(ChapterTranslation chapter:chapters) {
-            // TRICKY: the translation format doesn't matter for exporting
-            FrameTranslation[] frames = targetTranslation.getFrameTranslations(chapter.getId(), TranslationFormat.DEFAULT);
-            if(frames.length == 0) continue;
-
-            int chapterInt = Util.strToInt(chapter.getId(),0);
-            if(chapterInt != 0) {
-                ps.println("\\s5"); // section marker
-                String chapterNumber = "\\c " + chapter.getId();
-                ps.println(chapterNumber);
-            }
+        // open the destination
+        Uri outputUri;
+        OutputStream out;
+        File outputFile = null;
+        if(outputToDocumentFile) {
+            SdUtils.documentFileDelete( destinationFolder, outputFileName); // make sure file does not exist, otherwise api will create a duplicate file in next line
+            DocumentFile sdCardFile = SdUtils.documentFileCreate(destinationFolder, outputFileName);
+            out = SdUtils.createOutputStream(sdCardFile);
+            outputUri = sdCardFile.getUri();
+        } else {
+            outputFile = new File(destinationFolder.getPath(), outputFileName);
+            outputFile.getParentFile().mkdirs();
+            out = new FileOutputStream(outputFile);
+            outputUri = Uri.fromFile(outputFile);
+        }
 
-            if((chapter.title != null) && (!chapter.title.isEmpty())) {
-                String chapterTitle = "\\cl " + chapter.title;
-                ps.println(chapterTitle);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"), WRITE_BUFFER_SIZE);
+        LinkedList<Future<String>> pending = new LinkedList<>();
+        boolean success = false;
+        try {
+            writer.write("\\id " + bookCode + " " + bookTitle + ", " + bookName + ", " + (languageId + ", " + languageName) + "\n");
+            writer.write("\\toc1 " + bookTitle + "\n");
+            writer.write("\\toc2 " + bookName + "\n");
+            writer.write("\\toc3 " + bookCode + "\n");
+
+            // TRICKY: only a few chapters are read ahead of the writer so memory stays bounded
+            ChapterTranslation[] chapters = targetTranslation.getChapterTranslations();
+            int next = 0;
+            while(next < chapters.length || !pending.isEmpty()) {
+                while(next < chapters.length && pending.size() < MAX_THREADS * 2) {
+                    final ChapterTranslation chapter = chapters[next++];
+                    pending.add(executor.submit(new Callable<String>() {
+                        @Override
+                        public String call() throws Exception {
+                            return renderChapter(targetTranslation, chapter);
+                        }
+                    }));
+                }
+                try {
+                    writer.write(pending.removeFirst().get());
+                } catch (ExecutionException e) {
+                    throw new IOException("Failed to read a chapter", e.getCause());
+                }
             }
-
-            if( (chapter.reference != null) && (!chapter.reference.isEmpty())) {
-                String chapterRef = "\\cd " + chapter.reference;
-                ps.println(chapterRef);
+            writer.flush();
+            success = true;
+        } finally {
+            // TRICKY: the pool may be shared with other exports so don't leave chapters reading after a failure
+            for(Future<String> chapter:pending) {
+                chapter.cancel(true);
             }
-
-            ArrayList<FrameTranslation> frameList = sortFrameTranslations(frames);
-            int startChunk = 0;
-            if(frameList.size() > 0) {
-                FrameTranslation frame = frameList.get(0);
-                int verseID = Util.strToInt(frame.getId(),0);
-                if((verseID == 0)) {
-                    String text = frame.body;
-                    ps.print(text);
-                    startChunk++;
+            FileUtilities.closeQuietly(writer);
+            if(!success) {
+                if(outputFile != null) {
+                    FileUtilities.deleteQuietly(outputFile);
+                } else {
+                    SdUtils.documentFileDelete(destinationFolder, outputFileName);
                 }
             }
+        }
+        return outputUri;
+    }
+
+    /**
+     * Renders a single chapter as USFM
+     * @param targetTranslation
+     * @param chapter
+     * @return an empty string if the chapter has not been translated
+     */
+    private static String renderChapter(TargetTranslation targetTranslation, ChapterTranslation chapter) {
+        // TRICKY: the translation format doesn't matter for exporting
+        FrameTranslation[] frames = targetTranslation.getFrameTranslations(chapter.getId(), TranslationFormat.DEFAULT);
+        if(frames.length == 0) return "";
+
+        StringBuilder usfm = new StringBuilder();
+        int chapterInt = Util.strToInt(chapter.getId(),0);
+        if(chapterInt != 0) {
+            usfm.append("\\s5\n"); // section marker
+            usfm.append("\\c ").append(chapter.getId()).append("\n");
+        }
 
-            for (int i = startChunk; i < frameList.size(); i++) {
-                FrameTranslation frame = frameList.get(i);
-                String text = frame.body;
+        if((chapter.title != null) && (!chapter.title.isEmpty())) {
+            usfm.append("\\cl ").append(chapter.title).append("\n");
+        }
 
-                if(i > startChunk) {
-                    ps.println("\\s5"); // section marker
-                }
-                ps.print(text);
-            }
+        if( (chapter.reference != null) && (!chapter.reference.isEmpty())) {
+            usfm.append("\\cd ").append(chapter.reference).append("\n");
         }
 
-        ps.close();
+        ArrayList<FrameTranslation> frameList = sortFrameTranslations(frames);
+        int startChunk = 0;
+        if(frameList.size() > 0) {
+            FrameTranslation frame = frameList.get(0);
+            int verseID = Util.strToInt(frame.getId(),0);
+            if((verseID == 0)) {
+                usfm.append(frame.body);
+                startChunk++;
+            }
+        }
 
-        Uri pdfOutputUri = null;
-        if( (tempFile != null) && (outputFileName != null) ) {
-            if(outputToDocumentFile) {
-                try {
-                    SdUtils.documentFileDelete( destinationFolder, outputFileName); // make sure file does not exist, otherwise api will create a duplicate file in next line
-                    DocumentFile sdCardFile = SdUtils.documentFileCreate(destinationFolder, outputFileName);
-                    OutputStream outputStream = SdUtils.createOutputStream(sdCardFile);
-                    BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
-
-                    FileInputStream fis = new FileInputStream(tempFile);
-                    int bytes = FileUtilities.copy(fis, bufferedOutputStream);
-                    bufferedOutputStream.close();
-                    fis.close();
-                    pdfOutputUri = sdCardFile.getUri();
-                } catch (Exception e) {
-                    Logger.e(TAG, "Failed to copy the USFM file to: " + pdfOutputUri, e);
-                    pdfOutputUri = null;
-                }
-            } else {
-                File pdfOutputPath = new File(destinationFolder.getPath(), outputFileName);
-                boolean success = FileUtilities.moveOrCopyQuietly(tempFile, pdfOutputPath);
-                if (success) {
-                    pdfOutputUri = Uri.fromFile(pdfOutputPath);
-                }
+        for (int i = startChunk; i < frameList.size(); i++) {
+            if(i > startChunk) {
+                usfm.append("\\s5\n"); // section marker
             }
+            usfm.append(frameList.get(i).body);
         }
-        FileUtilities.deleteQuietly(tempDir);
-        return pdfOutputUri;
+        return usfm.toString();
     }
 
     /**
@@ -184,14 +246,16 @@ public class ExportUsfm {
      * @return
      */
     public static ArrayList<FrameTranslation> sortFrameTranslations(FrameTranslation[] frames) {
-        // sort frames
+        // TRICKY: compute the order of each frame once rather than on every comparison
+        final Map<FrameTranslation, Integer> order = new HashMap<>();
+        for(FrameTranslation frame:frames) {
+            order.put(frame, getChunkOrder(frame.getId()));
+        }
         ArrayList<FrameTranslation> frameList = new ArrayList<FrameTranslation>(Arrays.asList(frames));
         Collections.sort(frameList, new Comparator<FrameTranslation>() { // do numeric sort
             @Override
             public int compare(FrameTranslation lhs, FrameTranslation rhs) {
-                Integer lhInt = getChunkOrder(lhs.getId());
-                Integer rhInt = getChunkOrder(rhs.getId());
-                return lhInt.compareTo(rhInt);
+                return order.get(lhs).compareTo(order.get(rhs));
             }
         });
         return frameList;
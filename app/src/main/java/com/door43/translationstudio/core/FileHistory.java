@@ -3,18 +3,16 @@ package com.door43.translationstudio.core;
 import com.door43.translationstudio.git.Repo;
 
 import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.LogCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectLoader;
-import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Represents the commit history of a single file within a git repository
@@ -59,31 +57,18 @@ public class FileHistory {
                 currentCommit = current();
             }
 
-            // load history
-            Repository repository = this.git.getRepository();
-            ObjectId head = repository.resolve("HEAD");
-            if(head != null) {
-                LogCommand log = this.git.log();
-                log.add(head);
-                log.addPath(this.file.toString());
-                Iterable<RevCommit> commits = log.call();
-                ArrayList<RevCommit> historyList = new ArrayList<>();
-                for (RevCommit commit : commits) {
-                    historyList.add(commit);
-
-                    // restore current position
-                    if (currentCommit != null) {
-                        String hash = commit.toString().split(" ")[1];
-                        String currentHash = currentCommit.toString().split(" ")[1];
-                        if (hash.equals(currentHash)) {
-                            index = historyList.size() - 1;
-                            currentCommit = null;
-                        }
+            // load history from the shared index
+            List<RevCommit> commits = this.repo.getHistoryIndex().getHistory(this.file.getPath().replace(File.separatorChar, '/'));
+            this.history = commits.toArray(new RevCommit[commits.size()]);
+
+            // restore current position
+            if(currentCommit != null) {
+                for(int i = 0; i < this.history.length; i ++) {
+                    if(this.history[i].equals(currentCommit)) {
+                        this.index = i;
+                        break;
                     }
                 }
-                this.history = historyList.toArray(new RevCommit[historyList.size()]);
-            } else {
-                this.history = new RevCommit[0];
             }
         } else {
             this.history = new RevCommit[0];
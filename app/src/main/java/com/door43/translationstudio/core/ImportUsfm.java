@@ -20,16 +20,32 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
 
 import org.unfoldingword.resourcecontainer.Resource;
 
@@ -60,6 +76,13 @@ public class ImportUsfm {
     public static final int END_MARKER = 999999;
     public static final String FIRST_VERSE = "first_verse";
     public static final String FILE_NAME = "file_name";
+    private static final int MAX_IMPORT_THREADS = 8;
+
+    /**
+     * chunk markers keyed by versification and book
+     */
+    private static final Map<String, List<ChunkMarker>> sChunkMarkers = new HashMap<>();
+    private static String sVersification = null;
 
     private File mTempDir;
     private File mTempOutput;
@@ -86,9 +109,14 @@ public class ImportUsfm {
     private int mCurrentChapter;
     private int mChaperCount;
     private List<MissingNameItem> mBooksMissingNames;
-    private boolean mCancel = false;
+    private volatile boolean mCancel = false;
     private List<String> mChapters;
 
+    private ImportUsfm mParent = null; // set when this is importing a single book of a multi-book import
+    private int mBookIndex = 0;
+    private final List<Float> mBookProgress = new ArrayList<>();
+    private final Map<String, Lock> mBookLocks = new HashMap<>();
+
     /**
      * constructor
      * @param context
@@ -175,6 +203,42 @@ public class ImportUsfm {
         this.mBooksMissingNames = bookMissingNames;
     }
 
+    /**
+     * constructor used to import a single book of a multi-book import.
+     * The book shares the temp folders of the parent and reports its progress through the parent.
+     * @param parent
+     * @param bookIndex
+     */
+    private ImportUsfm(ImportUsfm parent, int bookIndex) {
+        mParent = parent;
+        mBookIndex = bookIndex;
+        mStatusUpdateListener = null;
+        mContext = parent.mContext;
+        mChunks = null;
+
+        mTempDir = parent.mTempDir;
+        mTempOutput = parent.mTempOutput;
+        mTempSrce = parent.mTempSrce;
+        mTempDest = null;
+        mProjectFolder = null;
+
+        mSourceFiles = new ArrayList<>();
+        mImportProjects = new ArrayList<>();
+        mErrors = new ArrayList<>();
+        mFoundBooks = new ArrayList<>();
+        mTargetLanguage = parent.mTargetLanguage;
+        mCurrentBook = 0;
+
+        mProcessSuccess = false;
+        mBooksMissingNames = new ArrayList<>();
+        mCurrentChapter = 0;
+        mChaperCount = 1;
+
+        mBookName = null;
+        mBookShortName = null;
+        mChapter = null;
+    }
+
     /**
      * generate JSON from object
      * @return
@@ -232,6 +296,14 @@ public class ImportUsfm {
         this.mCancel = mCancel;
     }
 
+    /**
+     * check if processing has been canceled
+     * @return
+     */
+    private boolean isCancelled() {
+        return mCancel || (mParent != null && mParent.mCancel);
+    }
+
     /**
      * was processing successful overall
      * @return
@@ -306,6 +378,15 @@ public class ImportUsfm {
      * @param text
      */
     private void updateStatus(String text) {
+        if (mParent != null) {
+            float bookAmountDone = (float) mCurrentChapter / (mChaperCount + 2);
+            if (!isMissing(mBookShortName)) {
+                text = mBookShortName + " - " + text;
+            }
+            mParent.updateBookProgress(mBookIndex, bookAmountDone, text);
+            return;
+        }
+
         int fileCount = mSourceFiles.size();
         if (fileCount < 1) {
             fileCount = 1;
@@ -324,6 +405,28 @@ public class ImportUsfm {
         }
     }
 
+    /**
+     * merges the progress of a book that is being processed in parallel into the overall progress
+     * @param bookIndex
+     * @param bookAmountDone
+     * @param text the status to display. If null the listener will not be called
+     */
+    private synchronized void updateBookProgress(int bookIndex, float bookAmountDone, String text) {
+        while (mBookProgress.size() <= bookIndex) {
+            mBookProgress.add(0.0f);
+        }
+        mBookProgress.set(bookIndex, Math.min(1.0f, bookAmountDone));
+        float total = 0;
+        for (float progress : mBookProgress) {
+            total += progress;
+        }
+        int percentDone = Math.round(100.0f * total / mBookProgress.size());
+
+        if (text != null && mStatusUpdateListener != null) {
+            mStatusUpdateListener.statusUpdate(text, percentDone);
+        }
+    }
+
     /**
      * will update the status by calling listener.  Will display string resource and update
      *   the percent complete
@@ -529,26 +632,25 @@ public class ImportUsfm {
         boolean successOverall = true;
         boolean success;
         updateStatus(R.string.initializing_import);
+        final BookPool pool = new BookPool(Math.min(Runtime.getRuntime().availableProcessors(), MAX_IMPORT_THREADS));
         try {
-            Zip.unzipFromStream(usfmStream, mTempSrce);
-            File[] usfmFiles = mTempSrce.listFiles();
-
-            for (File usfmFile : usfmFiles) {
-                addFilesInFolder(usfmFile);
-            }
+            // parse the books as they are read from the archive
+            Zip.visitEntries(usfmStream, new Zip.EntryVisitor() {
+                @Override
+                public boolean visit(ZipEntry entry, InputStream content) throws IOException {
+                    if (isCancelled()) {
+                        return false;
+                    }
+                    File file = new File(mTempSrce, entry.getName());
+                    addFile(file);
+                    pool.submit(file, content);
+                    return true;
+                }
+            });
             Logger.i(TAG, "found files: " + TextUtils.join("\n", mSourceFiles));
 
-            for (mCurrentBook = 0; mCurrentBook < mSourceFiles.size(); mCurrentBook++) {
-                mCurrentChapter = 0;
-                File file = mSourceFiles.get(mCurrentBook);
-                String name = file.getName();
-                updateStatus(R.string.found_book, name);
-                success = processBook(file);
-                if (!success) {
-                    addError(R.string.could_not_parse, getShortFilePath(file.toString()));
-                }
-                successOverall = successOverall && success;
-            }
+            success = pool.finish();
+            successOverall = successOverall && success;
 
             mCurrentBook = mSourceFiles.size() - 1; // set to last book
 
@@ -556,6 +658,8 @@ public class ImportUsfm {
             Logger.e(TAG, "error reading stream ", e);
             addError(R.string.zip_read_error);
             successOverall = false;
+        } finally {
+            pool.shutdown();
         }
 
         updateStatus(R.string.finished_loading);
@@ -742,6 +846,193 @@ public class ImportUsfm {
         return new File[0];
     }
 
+    /**
+     * processes books on a bounded pool as they are read. Each book is processed by its own importer and the results
+     * are merged back in order so they read the same as if the books were processed one at a time.
+     * The number of books held in memory is limited to the number of threads.
+     */
+    private class BookPool {
+        private final ExecutorService executor;
+        private final Semaphore permits;
+        private final List<ImportUsfm> books = new ArrayList<>();
+        private final List<Future<Boolean>> results = new ArrayList<>();
+
+        BookPool(int threads) {
+            threads = Math.max(1, threads);
+            executor = Executors.newFixedThreadPool(threads);
+            permits = new Semaphore(threads);
+        }
+
+        /**
+         * reads a book and queues it to be processed. This blocks while the pool is full.
+         * @param file the path of the book within the archive
+         * @param content
+         * @throws IOException
+         */
+        void submit(final File file, InputStream content) throws IOException {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("interrupted while waiting to process " + file.getName());
+            }
+            final String text;
+            try {
+                text = readBook(new InputStreamReader(content, "UTF-8"), 0);
+            } catch (IOException e) {
+                permits.release();
+                throw e;
+            }
+
+            final ImportUsfm book = new ImportUsfm(ImportUsfm.this, books.size());
+            books.add(book);
+            updateBookProgress(book.mBookIndex, 0.0f, null);
+            results.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    try {
+                        book.updateStatus(R.string.found_book, file.getName());
+                        boolean success = book.processBook(text, file.toString());
+                        if (!success) {
+                            book.addError(R.string.could_not_parse, book.getShortFilePath(file.toString()));
+                        }
+                        updateBookProgress(book.mBookIndex, 1.0f, null);
+                        return success;
+                    } finally {
+                        permits.release();
+                    }
+                }
+            }));
+        }
+
+        /**
+         * waits for all of the books to be processed and merges the results
+         * @return
+         * @throws InterruptedException
+         */
+        boolean finish() throws InterruptedException {
+            boolean successOverall = true;
+            for (mCurrentBook = 0; mCurrentBook < books.size(); mCurrentBook++) {
+                ImportUsfm book = books.get(mCurrentBook);
+                boolean success;
+                try {
+                    success = results.get(mCurrentBook).get();
+                } catch (ExecutionException e) {
+                    File file = mSourceFiles.get(mCurrentBook);
+                    Logger.e(TAG, "error processing book " + file.toString(), e.getCause());
+                    book.addError(R.string.could_not_parse, getShortFilePath(file.toString()));
+                    success = false;
+                }
+                mergeBook(book);
+                successOverall = successOverall && success;
+            }
+            return successOverall;
+        }
+
+        void shutdown() {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * merge the results of a book that was processed in parallel into the results of this import
+     * @param book
+     */
+    private void mergeBook(ImportUsfm book) {
+        normalizeBookQueue();
+        normalizeMessageQueue();
+        if (!book.mFoundBooks.isEmpty()) {
+            mFoundBooks.set(mCurrentBook, book.mFoundBooks.get(0));
+        }
+        if (!book.mErrors.isEmpty()) {
+            mErrors.set(mCurrentBook, book.mErrors.get(0));
+        }
+        mImportProjects.addAll(book.mImportProjects);
+        mBooksMissingNames.addAll(book.mBooksMissingNames);
+
+        mBookName = book.mBookName;
+        mBookShortName = book.mBookShortName;
+        mTempDest = book.mTempDest;
+        mProjectFolder = book.mProjectFolder;
+        mChapter = book.mChapter;
+        mCurrentChapter = book.mCurrentChapter;
+        mChaperCount = book.mChaperCount;
+    }
+
+    /**
+     * get the chunk markers for a book. These are cached by versification since every import
+     * of a book will look up the same markers.
+     * @param book
+     * @return
+     */
+    private static List<ChunkMarker> getChunkMarkers(String book) {
+        synchronized (sChunkMarkers) {
+            if (sVersification == null) {
+                List<Versification> versifications = App.getLibrary().index().getVersifications("en");
+                sVersification = versifications.get(0).slug;
+            }
+            String key = sVersification + "/" + book;
+            List<ChunkMarker> markers = sChunkMarkers.get(key);
+            if (markers == null) {
+                markers = App.getLibrary().index().getChunkMarkers(book, sVersification);
+                sChunkMarkers.put(key, markers);
+            }
+            return markers;
+        }
+    }
+
+    /**
+     * lock the output folder of a book so two files with the same book are not written at the same time
+     * @param bookShortName
+     * @return
+     */
+    private Lock lockBook(String bookShortName) {
+        ImportUsfm root = mParent != null ? mParent : this;
+        Lock lock;
+        synchronized (root.mBookLocks) {
+            lock = root.mBookLocks.get(bookShortName);
+            if (lock == null) {
+                lock = new ReentrantLock();
+                root.mBookLocks.put(bookShortName, lock);
+            }
+        }
+        lock.lock();
+        return lock;
+    }
+
+    /**
+     * read a book in a single streaming pass into a buffer sized from the file.
+     * Line endings are normalized the same as {@link FileUtilities#readFileToString(File)}
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    private static String readBook(File file) throws IOException {
+        Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+        try {
+            return readBook(reader, file.length());
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * read a book in a single streaming pass.
+     * Line endings are normalized the same as {@link FileUtilities#readFileToString(File)}
+     * @param in this is not closed
+     * @param sizeHint the expected size of the book or 0 if not known
+     * @return
+     * @throws IOException
+     */
+    private static String readBook(Reader in, long sizeHint) throws IOException {
+        BufferedReader reader = new BufferedReader(in, 64 * 1024);
+        StringBuilder sb = new StringBuilder((int) Math.max(16, Math.min(sizeHint + 1, Integer.MAX_VALUE - 8)));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            sb.append(line).append('\n');
+        }
+        return sb.toString();
+    }
+
     /**
      * process single document and create a project
      *
@@ -751,7 +1042,7 @@ public class ImportUsfm {
     private boolean processBook(File file) {
         boolean success;
         try {
-            String book = FileUtilities.readFileToString(file);
+            String book = readBook(file);
             success = processBook(book, file.toString());
         } catch (Exception e) {
             Logger.e(TAG, "error reading book " + file.toString(), e);
@@ -773,7 +1064,7 @@ public class ImportUsfm {
     }
 
     private boolean processBook(String book, String name, boolean promptForName, String useName) {
-        if(mCancel) {
+        if(isCancelled()) {
             return false;
         }
         boolean successOverall = true;
@@ -781,6 +1072,7 @@ public class ImportUsfm {
         mBookShortName = "";
         String description = getShortFilePath(name);
         setBookName("", description);
+        Lock bookLock = null;
         try {
             mCurrentChapter = 0;
             mChaperCount = 1;
@@ -816,6 +1108,7 @@ public class ImportUsfm {
                 return false;
             }
 
+            bookLock = lockBook(mBookShortName);
             mTempDest = new File(mTempOutput, mBookShortName);
             mProjectFolder = new File(mTempDest, mBookShortName + "-" + mTargetLanguage.slug);
 
@@ -824,8 +1117,7 @@ public class ImportUsfm {
                 mBookName = mBookShortName;
             }
 
-            List<Versification> versifications = App.getLibrary().index().getVersifications("en");
-            List<ChunkMarker> markers = App.getLibrary().index().getChunkMarkers(mBookShortName, versifications.get(0).slug);
+            List<ChunkMarker> markers = getChunkMarkers(mBookShortName);
             boolean haveChunksList = markers.size() > 0;
 
             if (!haveChunksList) { // no chunk list
@@ -844,7 +1136,7 @@ public class ImportUsfm {
                 successOverall = successOverall && success;
             }
 
-            if(mCancel) {
+            if(isCancelled()) {
                 successOverall = false;
             }
 
@@ -863,6 +1155,10 @@ public class ImportUsfm {
         } catch (Exception e) {
             Logger.e(TAG, "error parsing book", e);
             return false;
+        } finally {
+            if (bookLock != null) {
+                bookLock.unlock();
+            }
         }
         return successOverall;
     }
@@ -936,7 +1232,7 @@ public class ImportUsfm {
         boolean success;
         boolean foundChapter = false;
         while (matcher.find() && successOverall) {
-            if(mCancel) {
+            if(isCancelled()) {
                 return false;
             }
 
@@ -1069,15 +1365,16 @@ public class ImportUsfm {
                 int currentChapter = Integer.valueOf(chapter);
                 updateStatus(R.string.processing_chapter, new Integer(mChaperCount - currentChapter + 1).toString());
 
+                ChapterSplitter splitter = new ChapterSplitter(cleanedString);
                 String lastFirst = null;
                 for (int i = 0; (i < versebreaks.size()) && success; i++) {
                     String first = versebreaks.get(i);
-                    success = extractVerses(chapter, cleanedString, lastFirst, first);
+                    success = extractVerses(splitter, chapter, lastFirst, first);
                     successOverall = successOverall && success;
                     lastFirst = first;
                 }
                 if (successOverall) {
-                    success = extractVerses(chapter, cleanedString, lastFirst, END_MARKER +"");
+                    success = extractVerses(splitter, chapter, lastFirst, END_MARKER +"");
                     successOverall = successOverall && success;
                 }
 
@@ -1196,26 +1493,21 @@ public class ImportUsfm {
     /**
      * extract verses in range of start to end into new section
      *
+     * @param splitter the chapter being split
      * @param chapter
-     * @param text
      * @param start
      * @param end
      * @return
      */
-    private boolean extractVerses(String chapter, CharSequence text, String start, String end) {
+    private boolean extractVerses(ChapterSplitter splitter, String chapter, String start, String end) {
         boolean success = true;
         if (null == start) { // skip over stuff before verse 1 for now
 
             // TODO: 11/1/16 save stuff before verse one
             if (!isMissing(chapter)) {
-                Pattern pattern = PATTERN_USFM_VERSE_SPAN;
-                Matcher matcher = pattern.matcher(text);
-                if (matcher.find()) {
-                    int verseStart = matcher.start();
-                    if(verseStart > 0) {
-                        CharSequence intro = text.subSequence(0, verseStart);
-                        saveSection(getChapterFolderName(chapter), "intro", intro);
-                    }
+                CharSequence intro = splitter.getIntro();
+                if(intro != null) {
+                    saveSection(getChapterFolderName(chapter), "intro", intro);
                 }
             }
 
@@ -1224,102 +1516,33 @@ public class ImportUsfm {
 
         int startVerse = Integer.valueOf(start);
         int endVerse = Integer.valueOf(end);
-        success = extractVerseRange(chapter, text, startVerse, endVerse, start);
+        success = extractVerseRange(splitter, chapter, startVerse, endVerse, start);
         return success;
     }
 
     /**
      * extract verses in range of start to end into new section
      *
+     * @param splitter the chapter being split
      * @param chapter
-     * @param text
      * @param start
      * @param end
      * @param firstVerse
      * @return
      */
-    private boolean extractVerseRange(String chapter, CharSequence text, int start, int end, String firstVerse) {
+    private boolean extractVerseRange(ChapterSplitter splitter, String chapter, int start, int end, String firstVerse) {
         boolean successOverall = true;
         boolean success;
         if (!isMissing(chapter)) {
-            Pattern pattern = PATTERN_USFM_VERSE_SPAN;
-            Matcher matcher = pattern.matcher(text);
-            int lastIndex = 0;
-            String section = "";
-            int currentVerse = 0;
-            int foundVerseCount = 0;
-            int endVerseRange = 0;
-            boolean done = false;
-            boolean matchesFound = false;
-            CharSequence pretext = "";
-            while (matcher.find()) {
-                matchesFound = true;
-
-                if (currentVerse >= end) {
-                    done = true;
-                    break;
-                }
-
-                if (currentVerse >= start) {
-                    while(true) { // find the end of the section
-                        if(endVerseRange > 0) {
-                            foundVerseCount += (endVerseRange - currentVerse + 1);
-                        } else {
-                            foundVerseCount++;
-                        }
-
-                        String verse = matcher.group(1);
-                        int[] verseRange = getVerseRange(verse);
-                        if(null == verseRange) {
-                            break;
-                        }
-                        currentVerse = verseRange[0];
-                        endVerseRange = verseRange[1];
-
-                        VerseSplitResults results = splitAtVerseEnd(text, lastIndex, matcher.start());
-                        section = section + pretext + results.verse;
-                        pretext = results.extra;
-                        lastIndex = matcher.start(); // update end of chunk
-
-                        if (currentVerse >= end) {
-                             break;
-                        }
-
-                        boolean found = matcher.find();
-                        if(!found) { // we have reached the end, use this verse
-                            results = splitAtVerseEnd(text, lastIndex, text.length());
-                            section = section + pretext + results.verse;
-                            pretext = "";
-                            foundVerseCount++;
-                            break;
-                        }
-                    }
-
-                    done = true;
-                    break;
-                }
-
-                String verse = matcher.group(1);
-                int[] verseRange = getVerseRange(verse);
-                if(null == verseRange) {
-                    return false;
-                }
-                currentVerse = verseRange[0];
-                endVerseRange = verseRange[1];
-
-                VerseSplitResults results = splitAtVerseEnd(text, lastIndex, matcher.start());
-                pretext = results.extra;
-                lastIndex = matcher.start();
-            }
-
-            if (!done && matchesFound && (currentVerse >= start) && (currentVerse < end)) {
-                VerseSplitResults results = splitAtVerseEnd(text, lastIndex, text.length());
-                section = section + pretext + results.verse;
+            if(!splitter.extract(start, end)) {
+                return false;
             }
+            CharSequence section = splitter.getSection();
+            int foundVerseCount = splitter.getFoundVerseCount();
 
             if(start != 0) { // text before first verse is not a concern
                 int delta = foundVerseCount - (end - start);
-                if (section.isEmpty()) {
+                if (section.length() == 0) {
                     String format = mContext.getResources().getString(R.string.could_not_find_verses_in_chapter);
                     String msg = String.format(format, start, end - 1, chapter);
                     addWarning(msg);
@@ -1344,28 +1567,203 @@ public class ImportUsfm {
     }
 
     /**
-     * check for verse terminator
-     * @return
+     * Splits a chapter into chunks in a single forward pass.
+     * The verse markers and section breaks are located once when the chapter is loaded
+     * and chunks are cut with a cursor that only moves forward as long as the chunks are requested in order.
+     *
+     * The text of each verse runs from its marker up to the next marker.
+     * A section break (\s5) within a verse is dropped and the text after it is carried over to the next verse,
+     * or to the next chunk if the verse ends the chunk.
      */
-    private VerseSplitResults splitAtVerseEnd(CharSequence text, int start, int end ) {
-        String verseStr = text.subSequence(start, end).toString();
-        final String sectionEnd = "\\s5\n";
-        int pos = verseStr.indexOf(sectionEnd);
-        if(pos >= 0) {
-            String verseStart = verseStr.substring(0, pos);
-            String extra = verseStr.substring(pos + sectionEnd.length());
-            return new VerseSplitResults(verseStart, extra);
+    static class ChapterSplitter {
+        private static final String SECTION_END = "\\s5\n";
+
+        private final String text;
+        private final int count;
+        private final int[] markerStarts;
+        private final int[][] verseRanges; // null if the verse could not be parsed
+        private final int[] sectionBreaks; // position of the section break in each segment or -1
+        private final StringBuilder section = new StringBuilder();
+        private int foundVerseCount = 0;
+        private int cursor = 0;
+        private int lastStart = Integer.MIN_VALUE;
+
+        /**
+         * @param text the chapter text
+         */
+        public ChapterSplitter(String text) {
+            this.text = text;
+
+            List<Integer> starts = new ArrayList<>();
+            List<int[]> ranges = new ArrayList<>();
+            Matcher matcher = PATTERN_USFM_VERSE_SPAN.matcher(text);
+            while(matcher.find()) {
+                starts.add(matcher.start());
+                ranges.add(getVerseRange(matcher.group(1)));
+            }
+            count = starts.size();
+            markerStarts = new int[count];
+            verseRanges = new int[count][];
+            for(int i = 0; i < count; i ++) {
+                markerStarts[i] = starts.get(i);
+                verseRanges[i] = ranges.get(i);
+            }
+
+            // segment k is the text between marker k-1 and marker k. The last segment runs to the end of the text.
+            sectionBreaks = new int[count + 1];
+            Arrays.fill(sectionBreaks, -1);
+            int segment = 0;
+            int pos = text.indexOf(SECTION_END);
+            while(pos >= 0) {
+                while(segment < count && pos >= markerStarts[segment]) {
+                    segment++;
+                }
+                if(sectionBreaks[segment] < 0) {
+                    sectionBreaks[segment] = pos;
+                }
+                pos = text.indexOf(SECTION_END, pos + SECTION_END.length());
+            }
         }
-        return new VerseSplitResults(verseStr, "");
-    }
 
-    class VerseSplitResults {
-        final String verse;
-        final String extra;
+        /**
+         * Returns the text before the first verse
+         * @return null if there is no text before the first verse
+         */
+        public CharSequence getIntro() {
+            if(count > 0 && markerStarts[0] > 0) {
+                return text.subSequence(0, markerStarts[0]);
+            }
+            return null;
+        }
+
+        /**
+         * Returns the section cut by the last call to {@link #extract(int, int)}.
+         * TRICKY: the builder is reused so this must be consumed before the next call.
+         * @return
+         */
+        public CharSequence getSection() {
+            return section;
+        }
+
+        /**
+         * Returns the number of verses found by the last call to {@link #extract(int, int)}
+         * @return
+         */
+        public int getFoundVerseCount() {
+            return foundVerseCount;
+        }
+
+        /**
+         * Cuts out the verses in the range of start to end
+         * @param start the first verse
+         * @param end the verse that begins the next chunk
+         * @return false if a verse before the chunk could not be parsed
+         */
+        public boolean extract(int start, int end) {
+            section.setLength(0);
+            foundVerseCount = 0;
+            if(start < lastStart) {
+                // chunks are out of order so we have to start over
+                cursor = 0;
+            }
+            lastStart = start;
+
+            // skip the verses before the chunk
+            int k = cursor;
+            while(k < count && currentVerse(k) < start && currentVerse(k) < end) {
+                if(verseRanges[k] == null) {
+                    cursor = k;
+                    return false;
+                }
+                k++;
+            }
+            cursor = k;
+
+            if(count == 0) {
+                return true;
+            }
+            int currentVerse = currentVerse(k);
+            if(k == count) {
+                // the last verse of the chapter may begin the chunk
+                if(currentVerse >= start && currentVerse < end) {
+                    appendExtra(count - 1);
+                    appendVerse(count);
+                }
+                return true;
+            }
+            if(currentVerse >= end) {
+                return true;
+            }
+
+            // the text of a verse is in the segment that follows its marker
+            int endVerseRange = k > 0 ? verseRanges[k - 1][1] : 0;
+            int pretext = k - 1;
+            while(true) {
+                if(endVerseRange > 0) {
+                    foundVerseCount += (endVerseRange - currentVerse + 1);
+                } else {
+                    foundVerseCount++;
+                }
+
+                int[] verseRange = verseRanges[k];
+                if(null == verseRange) {
+                    break;
+                }
+                currentVerse = verseRange[0];
+                endVerseRange = verseRange[1];
+
+                appendExtra(pretext);
+                appendVerse(k);
+                pretext = k;
+
+                if(currentVerse >= end) {
+                    break;
+                }
 
-        public VerseSplitResults(String verse, String extra) {
-            this.verse = verse;
-            this.extra = extra;
+                k++;
+                if(k == count) { // we have reached the end, use this verse
+                    appendExtra(pretext);
+                    appendVerse(count);
+                    foundVerseCount++;
+                    break;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns the verse of the marker before marker k
+         * @param k
+         * @return
+         */
+        private int currentVerse(int k) {
+            return k > 0 ? verseRanges[k - 1][0] : 0;
+        }
+
+        private int segmentStart(int segment) {
+            return segment > 0 ? markerStarts[segment - 1] : 0;
+        }
+
+        private int segmentEnd(int segment) {
+            return segment < count ? markerStarts[segment] : text.length();
+        }
+
+        /**
+         * Appends the segment up to the section break
+         * @param segment
+         */
+        private void appendVerse(int segment) {
+            int end = sectionBreaks[segment] >= 0 ? sectionBreaks[segment] : segmentEnd(segment);
+            section.append(text, segmentStart(segment), end);
+        }
+
+        /**
+         * Appends the segment after the section break
+         * @param segment
+         */
+        private void appendExtra(int segment) {
+            if(segment < 0 || sectionBreaks[segment] < 0) return;
+            section.append(text, sectionBreaks[segment] + SECTION_END.length(), segmentEnd(segment));
         }
     }
 
@@ -1374,7 +1772,7 @@ public class ImportUsfm {
      * @param verse
      * @return
      */
-    private int[] getVerseRange(String verse) {
+    private static int[] getVerseRange(String verse) {
         int[] verseRange;
         int currentVerse;
         int endVerseRange;
@@ -1692,27 +2090,6 @@ public class ImportUsfm {
         mTempDest = null;
     }
 
-    /**
-     * add file and files in sub-folders to list of files to process
-     *
-     * @param usfmFile
-     * @return
-     */
-    private boolean addFilesInFolder(File usfmFile) {
-        Logger.i(TAG, "processing folder: " + usfmFile.toString());
-
-        if (usfmFile.isDirectory()) {
-            File[] usfmSubFiles = usfmFile.listFiles();
-            for (File usfmSuile : usfmSubFiles) {
-                addFilesInFolder(usfmSuile);
-            }
-            Logger.i(TAG, "found files: " + usfmSubFiles.toString());
-        } else {
-            addFile(usfmFile);
-        }
-        return true;
-    }
-
     /**
      * add file to list of files to process
      *
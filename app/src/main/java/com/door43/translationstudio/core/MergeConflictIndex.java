@@ -0,0 +1,241 @@
+package com.door43.translationstudio.core;
+
+import com.door43.util.FileUtilities;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.unfoldingword.tools.logger.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of which chunks in a target translation contain merge conflicts.
+ * The index is seeded from the conflicting paths reported by a merge and kept up to date as chunks are saved
+ * so we don't have to scan the entire target translation to find out if it is conflicted.
+ *
+ * Paths are relative to the target translation directory e.g. "01/02.txt" or "front/title.txt".
+ * The index is stored in the git directory so it is never committed.
+ */
+public class MergeConflictIndex {
+    private static final String TAG = MergeConflictIndex.class.getName();
+    private static final int VERSION = 1;
+    private static final String INDEX_FILE = "ts-merge-conflicts.json";
+
+    /**
+     * A map of loaded indexes keyed by the absolute path of the target translation
+     */
+    private static final Map<String, MergeConflictIndex> sIndexes = new HashMap<>();
+
+    private final File targetTranslationDir;
+    private final Set<String> conflictedPaths = new HashSet<>();
+    private long stamp = 0;
+
+    private MergeConflictIndex(File targetTranslationDir) {
+        this.targetTranslationDir = targetTranslationDir;
+    }
+
+    /**
+     * Returns the index of the target translation
+     * @param targetTranslationDir
+     * @return null if the target translation has not been indexed yet
+     */
+    public static MergeConflictIndex get(File targetTranslationDir) {
+        if(targetTranslationDir == null) return null;
+        File indexFile = getIndexFile(targetTranslationDir);
+        synchronized (sIndexes) {
+            MergeConflictIndex index = sIndexes.get(targetTranslationDir.getAbsolutePath());
+            // TRICKY: the target translation may have been replaced by an import
+            if(index != null && index.stamp == indexFile.lastModified()) {
+                return index;
+            }
+            index = load(targetTranslationDir);
+            if(index != null) {
+                sIndexes.put(targetTranslationDir.getAbsolutePath(), index);
+            } else {
+                sIndexes.remove(targetTranslationDir.getAbsolutePath());
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Indexes the target translation from the paths that conflicted during a merge.
+     * Chunks that were already conflicted before the merge remain in the index if they are still conflicted.
+     * If the target translation has never been indexed it will be scanned in full.
+     *
+     * @param targetTranslation
+     * @param mergeConflicts the conflicting paths reported by the merge
+     * @return
+     */
+    public static MergeConflictIndex fromMerge(TargetTranslation targetTranslation, Collection<String> mergeConflicts) {
+        File dir = targetTranslation.getPath();
+        MergeConflictIndex previous = get(dir);
+        if(previous == null) {
+            return build(targetTranslation);
+        }
+
+        Set<String> candidates = new HashSet<>(previous.getConflictedPaths());
+        if(mergeConflicts != null) {
+            candidates.addAll(mergeConflicts);
+        }
+        MergeConflictIndex index = new MergeConflictIndex(dir);
+        for(String path:candidates) {
+            if(!isChunkPath(path)) continue;
+            try {
+                File file = new File(dir, path);
+                if(file.exists() && MergeConflictsHandler.isMergeConflicted(FileUtilities.readFileToString(file))) {
+                    index.conflictedPaths.add(path);
+                }
+            } catch (IOException e) {
+                Logger.w(TAG, "Failed to read " + path, e);
+            }
+        }
+        index.save();
+        return index;
+    }
+
+    /**
+     * Indexes the target translation by scanning every chunk
+     * @param targetTranslation
+     * @return
+     */
+    public static MergeConflictIndex build(TargetTranslation targetTranslation) {
+        MergeConflictIndex index = new MergeConflictIndex(targetTranslation.getPath());
+
+        ProjectTranslation pt = targetTranslation.getProjectTranslation();
+        if(pt != null && MergeConflictsHandler.isMergeConflicted(pt.getTitle())) {
+            index.conflictedPaths.add("front/title.txt");
+        }
+
+        ChapterTranslation[] chapters = targetTranslation.getChapterTranslations();
+        for(ChapterTranslation ct:chapters) {
+            if(MergeConflictsHandler.isMergeConflicted(ct.title)) {
+                index.conflictedPaths.add(ct.getId() + "/title.txt");
+            }
+            if(MergeConflictsHandler.isMergeConflicted(ct.reference)) {
+                index.conflictedPaths.add(ct.getId() + "/reference.txt");
+            }
+            FrameTranslation[] frames = targetTranslation.getFrameTranslations(ct.getId(), TranslationFormat.DEFAULT);
+            for(FrameTranslation frame:frames) {
+                if(MergeConflictsHandler.isMergeConflicted(frame.body)) {
+                    index.conflictedPaths.add(ct.getId() + "/" + frame.getId() + ".txt");
+                }
+            }
+        }
+        index.save();
+        return index;
+    }
+
+    /**
+     * Updates the index after a chunk has been saved.
+     * This does nothing if the target translation has not been indexed.
+     *
+     * @param targetTranslationDir
+     * @param path the path of the chunk relative to the target translation
+     * @param text the saved text
+     */
+    public static void update(File targetTranslationDir, String path, CharSequence text) {
+        MergeConflictIndex index = get(targetTranslationDir);
+        if(index == null) return;
+        boolean conflicted = MergeConflictsHandler.isMergeConflicted(text);
+        synchronized (index) {
+            boolean changed = conflicted ? index.conflictedPaths.add(path) : index.conflictedPaths.remove(path);
+            if(changed) index.save();
+        }
+    }
+
+    /**
+     * Discards the index so it will be rebuilt the next time it is needed.
+     * This should be called whenever the working tree is changed outside of the normal save methods.
+     * @param targetTranslationDir
+     */
+    public static void invalidate(File targetTranslationDir) {
+        if(targetTranslationDir == null) return;
+        synchronized (sIndexes) {
+            sIndexes.remove(targetTranslationDir.getAbsolutePath());
+            FileUtilities.deleteQuietly(getIndexFile(targetTranslationDir));
+        }
+    }
+
+    /**
+     * Checks if any chunks are conflicted
+     * @return
+     */
+    public synchronized boolean hasConflicts() {
+        return !conflictedPaths.isEmpty();
+    }
+
+    /**
+     * Checks if a chunk is conflicted
+     * @param chapterSlug
+     * @param chunkSlug
+     * @return
+     */
+    public synchronized boolean isConflicted(String chapterSlug, String chunkSlug) {
+        return conflictedPaths.contains(chapterSlug + "/" + chunkSlug + ".txt");
+    }
+
+    /**
+     * Returns the paths of the conflicted chunks
+     * @return
+     */
+    public synchronized Set<String> getConflictedPaths() {
+        return new HashSet<>(conflictedPaths);
+    }
+
+    /**
+     * Checks if the path belongs to a chunk rather than something like the manifest
+     * @param path
+     * @return
+     */
+    private static boolean isChunkPath(String path) {
+        String[] parts = path.split("/");
+        return parts.length == 2 && !parts[0].startsWith(".") && parts[1].endsWith(".txt");
+    }
+
+    private static File getIndexFile(File targetTranslationDir) {
+        return new File(targetTranslationDir, ".git/" + INDEX_FILE);
+    }
+
+    private static MergeConflictIndex load(File targetTranslationDir) {
+        File indexFile = getIndexFile(targetTranslationDir);
+        if(!indexFile.exists()) return null;
+        try {
+            JSONObject json = new JSONObject(FileUtilities.readFileToString(indexFile));
+            if(json.optInt("version") != VERSION) return null;
+            MergeConflictIndex index = new MergeConflictIndex(targetTranslationDir);
+            JSONArray paths = json.getJSONArray("conflicts");
+            for(int i = 0; i < paths.length(); i ++) {
+                index.conflictedPaths.add(paths.getString(i));
+            }
+            index.stamp = indexFile.lastModified();
+            return index;
+        } catch (Exception e) {
+            Logger.w(TAG, "Failed to load the merge conflict index of " + targetTranslationDir.getName(), e);
+            return null;
+        }
+    }
+
+    private synchronized void save() {
+        File indexFile = getIndexFile(targetTranslationDir);
+        if(!indexFile.getParentFile().exists()) return;
+        try {
+            JSONObject json = new JSONObject();
+            json.put("version", VERSION);
+            json.put("conflicts", new JSONArray(conflictedPaths));
+            FileUtilities.writeStringToFileAtomically(indexFile, json.toString());
+            stamp = indexFile.lastModified();
+            synchronized (sIndexes) {
+                sIndexes.put(targetTranslationDir.getAbsolutePath(), this);
+            }
+        } catch (Exception e) {
+            Logger.w(TAG, "Failed to save the merge conflict index of " + targetTranslationDir.getName(), e);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import com.door43.translationstudio.ui.home.ImportDialog;
 import org.unfoldingword.tools.taskmanager.ManagedTask;
 import org.unfoldingword.tools.taskmanager.TaskManager;
 
+import java.io.File;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -65,52 +66,41 @@ public class MergeConflictsHandler {
     }
 
     /**
-     * search for first merge conflict - We need this to double check that there is a conflict in any chunks
+     * Checks if the target translation has any merge conflicts.
+     * This is answered from the {@link MergeConflictIndex} which is only built by scanning the chunks
+     * if the target translation has not been indexed yet.
      *
      * @param targetTranslationId
      * @return
      */
     static public boolean isTranslationMergeConflicted(String targetTranslationId) {
+        MergeConflictIndex index = getMergeConflictIndex(targetTranslationId);
+        return index != null && index.hasConflicts();
+    }
+
+    /**
+     * Returns the merge conflict index of the target translation.
+     * The target translation will be indexed if it has not been already
+     *
+     * @param targetTranslationId
+     * @return null if the target translation does not exist
+     */
+    static public MergeConflictIndex getMergeConflictIndex(String targetTranslationId) {
         if(targetTranslationId == null) {
-            return false;
+            return null;
         }
 
         Translator translator = App.getTranslator();
+        MergeConflictIndex index = MergeConflictIndex.get(new File(translator.getPath(), targetTranslationId));
+        if(index != null) {
+            return index;
+        }
 
         TargetTranslation targetTranslation = translator.getTargetTranslation(targetTranslationId);
         if(targetTranslation == null) {
-            return false;
-        }
-
-        ProjectTranslation pt = targetTranslation.getProjectTranslation();
-        if(pt == null) {
-            return false;
-        }
-
-        if(isMergeConflicted(pt.getTitle())) {
-            return true;
-        }
-
-        ChapterTranslation[] chapters = targetTranslation.getChapterTranslations();
-        for(ChapterTranslation ct:chapters) {
-            if(isMergeConflicted(ct.title)) {
-                return true;
-            }
-
-            if(isMergeConflicted(ct.reference)) {
-                return true;
-            }
-
-            FrameTranslation[] frames = targetTranslation.getFrameTranslations(ct.getId(), TranslationFormat.DEFAULT);
-            for (int i = 0; i < frames.length; i++) {
-                FrameTranslation frame = frames[i];
-                if(isMergeConflicted(frame.body)) {
-                    return true;
-                }
-            }
+            return null;
         }
-
-        return false;
+        return MergeConflictIndex.build(targetTranslation);
     }
 
     /**
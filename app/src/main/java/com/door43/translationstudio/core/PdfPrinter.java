@@ -9,26 +9,32 @@ import com.door43.translationstudio.R;
 import com.door43.translationstudio.tasks.PrintPDFTask;
 import com.door43.translationstudio.ui.spannables.Span;
 import com.door43.translationstudio.ui.spannables.USFMVerseSpan;
+import com.door43.util.FileUtilities;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PdfAction;
 import com.itextpdf.text.pdf.PdfContentByte;
+import com.itextpdf.text.pdf.PdfCopy;
+import com.itextpdf.text.pdf.PdfDestination;
+import com.itextpdf.text.pdf.PdfImportedPage;
 import com.itextpdf.text.pdf.PdfPCell;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfPageEventHelper;
-import com.itextpdf.text.pdf.PdfTemplate;
+import com.itextpdf.text.pdf.PdfReader;
 import com.itextpdf.text.pdf.PdfWriter;
-import com.itextpdf.text.pdf.draw.VerticalPositionMark;
 
 import org.unfoldingword.door43client.Door43Client;
 import org.unfoldingword.resourcecontainer.Project;
 import org.unfoldingword.resourcecontainer.Resource;
 import org.unfoldingword.resourcecontainer.ResourceContainer;
+import org.unfoldingword.tools.logger.Logger;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.MessageDigest;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -37,6 +43,15 @@ import java.util.regex.Pattern;
  * Created by joel on 11/12/2015.
  */
 public class PdfPrinter extends PdfPageEventHelper {
+    private static final String TAG = PdfPrinter.class.getSimpleName();
+    private static final int CACHE_VERSION = 2;
+    private static final String CACHE_DIR = "pdf_chapters";
+    private static final long MAX_CACHE_SIZE = 50 * 1024 * 1024;
+    /**
+     * The number of pages in each cached chapter keyed by the cache key.
+     * Entries are evicted along with their files. See {@link #pruneCache()}
+     */
+    private static final Map<String, Integer> sPageCounts = new HashMap<>();
     private static final float VERTICAL_PADDING = 72.0f; // 1 inch
     private static final float HORIZONTAL_PADDING = 72.0f; // 1 inch
     public static final float RATIO_OF_SP_TO_PT = 2.5f;
@@ -60,13 +75,14 @@ public class PdfPrinter extends PdfPageEventHelper {
     private final File imagesDir;
     private boolean includeMedia = true;
     private boolean includeIncomplete = true;
-    private final Map<String, PdfTemplate> tocPlaceholder = new HashMap<>();
     private final Map<String, Integer> pageByTitle = new HashMap<>();
     private final float PAGE_NUMBER_FONT_SIZE = 10;
     private PdfWriter writer;
+    private int frontMatterPageNumber = 0;
     private Paragraph mCurrentParagraph;
     private final PrintPDFTask task;
     private final float targetLanguageFontSize;
+    private final String targetLanguageFontPath;
 
     public PdfPrinter(Context context, Door43Client library, TargetTranslation targetTranslation, TranslationFormat format,
                       String targetLanguageFontPath, float targetLanguageFontSize, boolean targetlanguageRtl,
@@ -88,6 +104,7 @@ public class PdfPrinter extends PdfPageEventHelper {
 
         targetLanguageFontSize = targetLanguageFontSize / RATIO_OF_SP_TO_PT;
         this.targetLanguageFontSize = targetLanguageFontSize;
+        this.targetLanguageFontPath = targetLanguageFontPath;
 
         baseFont = BaseFont.createFont(targetLanguageFontPath, BaseFont.IDENTITY_H, BaseFont.EMBEDDED);
         titleFont = new Font(baseFont, targetLanguageFontSize * 2.5f, Font.BOLD);
@@ -125,21 +142,131 @@ public class PdfPrinter extends PdfPageEventHelper {
     public File print() throws Exception {
         File tempFile = File.createTempFile(targetTranslation.getId(), ".pdf");
 
+        // render the chapters first so we know where they will land in the book
+        ChapterTranslation[] chapterTranslations = targetTranslation.getChapterTranslations();
+        int chapterCount = chapterTranslations.length + 1;
+        double increments = 1.0/ chapterCount;
+        double progress = 0;
+        List<ChapterFragment> fragments = new ArrayList<>();
+        int pageCount = 0;
+        // TRICKY: chapters without a title page flow on from the previous chapter so they are rendered together
+        List<ChapterTranslation> group = new ArrayList<>();
+        for(int i = 0; i < chapterTranslations.length; i ++) {
+            ChapterTranslation c = chapterTranslations[i];
+            if(task != null) {
+                task.updateProgress(progress+=increments);
+            }
+            group.add(c);
+            boolean lastInGroup = i + 1 == chapterTranslations.length || hasTitlePage(chapterTranslations[i + 1]);
+            if(!lastInGroup) continue;
+
+            ChapterFragment fragment = prepareFragment(group);
+            group = new ArrayList<>();
+            if(fragment.pageCount > 0) {
+                fragment.firstPage = pageCount + 1;
+                pageCount += fragment.pageCount;
+                fragments.add(fragment);
+            }
+        }
+
+        byte[] frontMatter = renderFrontMatter(fragments);
+        if(frontMatterPageNumber > 0) {
+            // TRICKY: the chapters continue the numbering of a table of contents that spans several pages
+            for(ChapterFragment fragment:fragments) {
+                fragment.firstPage += frontMatterPageNumber;
+            }
+            frontMatter = renderFrontMatter(fragments);
+        }
+        mergeBook(frontMatter, fragments, tempFile);
+        pruneCache();
+
+        return tempFile;
+    }
+
+    /**
+     * Renders the title, license and table of contents pages.
+     * These are always rendered because the table of contents depends on every chapter.
+     *
+     * @param fragments the rendered chapters
+     * @return
+     * @throws DocumentException
+     */
+    private byte[] renderFrontMatter(List<ChapterFragment> fragments) throws DocumentException {
+        frontMatterPageNumber = 0;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
         Document document = new Document(PageSize.LETTER, HORIZONTAL_PADDING, HORIZONTAL_PADDING, VERTICAL_PADDING, VERTICAL_PADDING);
-        writer = PdfWriter.getInstance(document, new FileOutputStream(tempFile));
+        writer = PdfWriter.getInstance(document, out);
         writer.setPageEvent(this);
         document.open();
-        addMetaData(document);
         addTitlePage(document);
         addLicensePage(document);
-        addTOC(document);
-        addContent(document);
+        addTOC(document, fragments);
         document.close();
+        return out.toByteArray();
+    }
 
-        return tempFile;
+    /**
+     * Joins the front matter and the chapters into a single book.
+     * Page numbers, chapter links and bookmarks are added here since they depend on the position of each chapter.
+     *
+     * @param frontMatter
+     * @param fragments
+     * @param outputFile
+     * @throws DocumentException
+     * @throws IOException
+     */
+    private void mergeBook(byte[] frontMatter, List<ChapterFragment> fragments, File outputFile) throws DocumentException, IOException {
+        Document document = new Document(PageSize.LETTER, HORIZONTAL_PADDING, HORIZONTAL_PADDING, VERTICAL_PADDING, VERTICAL_PADDING);
+        FileOutputStream out = new FileOutputStream(outputFile);
+        try {
+            PdfCopy copy = new PdfCopy(document, out);
+            copy.setFullCompression();
+            document.open();
+            addMetaData(document);
+
+            PdfReader frontReader = new PdfReader(frontMatter);
+            int frontPageCount = frontReader.getNumberOfPages();
+            for (int i = 1; i <= frontPageCount; i++) {
+                copy.addPage(copy.getImportedPage(frontReader, i));
+            }
+            copy.freeReader(frontReader);
+            frontReader.close();
+
+            List<HashMap<String, Object>> outlines = new ArrayList<>();
+            for (ChapterFragment fragment : fragments) {
+                PdfReader reader = new PdfReader(fragment.file.getAbsolutePath());
+                try {
+                    int pages = Math.min(reader.getNumberOfPages(), fragment.pageCount);
+                    for (int i = 1; i <= pages; i++) {
+                        PdfImportedPage page = copy.getImportedPage(reader, i);
+                        PdfCopy.PageStamp stamp = copy.createPageStamp(page);
+                        drawPageNumber(stamp.getOverContent(), fragment.firstPage + i - 1);
+                        stamp.alterContents();
+                        copy.addPage(page);
+                    }
+                    copy.freeReader(reader);
+                } finally {
+                    reader.close();
+                }
+
+                if (fragment.hasTitlePage) {
+                    int bookPage = frontPageCount + fragment.firstPage;
+                    copy.addNamedDestination(fragment.destination, bookPage, new PdfDestination(PdfDestination.FIT));
+                    HashMap<String, Object> outline = new HashMap<>();
+                    outline.put("Title", fragment.title);
+                    outline.put("Action", "GoTo");
+                    outline.put("Page", bookPage + " Fit");
+                    outlines.add(outline);
+                }
+            }
+            copy.setOutlines(outlines);
+            document.close();
+        } finally {
+            out.close();
+        }
     }
 
-    private void addTOC(Document document) throws DocumentException {
+    private void addTOC(Document document, List<ChapterFragment> fragments) throws DocumentException {
         document.newPage();
         document.resetPageCount(); // disable page numbering for this page (TOC)
 
@@ -152,57 +279,51 @@ public class PdfPrinter extends PdfPageEventHelper {
         PdfPTable table = new PdfPTable(2);
         table.setWidthPercentage(100);
         table.setHorizontalAlignment(Element.ALIGN_CENTER);
+        Font pageNumberFont = new Font(baseFont, PAGE_NUMBER_FONT_SIZE);
 
-        for(ChapterTranslation c:targetTranslation.getChapterTranslations()) {
-            if(!includeIncomplete && !c.isTitleFinished() && !sourceContainer.readChunk(c.getId(), "title").isEmpty()) {
+        for(ChapterFragment fragment:fragments) {
+            if(!fragment.hasTitlePage) {
                 continue;
             }
 
-            if(! "front".equalsIgnoreCase(c.getId())) { // ignore front text as not human readable
-                // write chapter title
-                final String title = chapterTitle(c);
-                Chunk chunk = new Chunk(title, headingFont).setLocalGoto(title);
-
-                // put in chapter title in cell
-                PdfPCell titleCell = new PdfPCell();
-                Paragraph element = new Paragraph(targetLanguageFontSize * 1.6f); // set leading
-                element.setAlignment(Element.ALIGN_LEFT);
-                element.add(chunk);
-                titleCell.addElement(element);
-                titleCell.setRunDirection(targetlanguageRtl ? PdfWriter.RUN_DIRECTION_RTL : PdfWriter.RUN_DIRECTION_LTR);  // need to set predominant language direction in case first character runs other direction
-                titleCell.setBorder(Rectangle.NO_BORDER);
-                titleCell.setVerticalAlignment(Element.ALIGN_MIDDLE);
-
-                // put in page number in cell
-                PdfPCell pageNumberCell = new PdfPCell();
-                pageNumberCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
-                pageNumberCell.setBorder(Rectangle.NO_BORDER);
-
-                // add placeholder for page reference
-                pageNumberCell.addElement(new VerticalPositionMark() {
-                    @Override
-                    public void draw(final PdfContentByte canvas, final float llx, final float lly, final float urx, final float ury, final float y) {
-                        final PdfTemplate createTemplate = canvas.createTemplate(50, 50);
-                        tocPlaceholder.put(title, createTemplate);
-                        float shift = targetLanguageFontSize * 1.25f;
-                        canvas.addTemplate(createTemplate, urx - 50, y - shift);
-                    }
-                });
-
-                if(!targetlanguageRtl) { // on LTR put page numbers on right
-                    table.addCell(titleCell);
-                    table.addCell(pageNumberCell);
-                    table.setWidths(new int[]{20, 1}); // title column is 20 times as wide as the page number column
-                } else { // on RTL put page numbers on left
-                    pageNumberCell.setHorizontalAlignment(Element.ALIGN_LEFT);
-                    pageNumberCell.setRunDirection(PdfWriter.RUN_DIRECTION_LTR);
-                    table.addCell(pageNumberCell);
-                    table.addCell(titleCell);
-                    table.setWidths(new int[]{1, 20}); // title column is 20 times as wide as the page number column
-                }
+            // write chapter title
+            Chunk chunk = new Chunk(fragment.title, headingFont);
+            chunk.setAction(PdfAction.gotoLocalPage(fragment.destination, false));
+
+            // put in chapter title in cell
+            PdfPCell titleCell = new PdfPCell();
+            Paragraph element = new Paragraph(targetLanguageFontSize * 1.6f); // set leading
+            element.setAlignment(Element.ALIGN_LEFT);
+            element.add(chunk);
+            titleCell.addElement(element);
+            titleCell.setRunDirection(targetlanguageRtl ? PdfWriter.RUN_DIRECTION_RTL : PdfWriter.RUN_DIRECTION_LTR);  // need to set predominant language direction in case first character runs other direction
+            titleCell.setBorder(Rectangle.NO_BORDER);
+            titleCell.setVerticalAlignment(Element.ALIGN_MIDDLE);
+
+            // put in page number in cell
+            PdfPCell pageNumberCell = new PdfPCell();
+            pageNumberCell.setBorder(Rectangle.NO_BORDER);
+            pageNumberCell.setVerticalAlignment(Element.ALIGN_MIDDLE);
+            Paragraph pageNumber = new Paragraph(String.valueOf(fragment.firstPage), pageNumberFont);
+
+            if(!targetlanguageRtl) { // on LTR put page numbers on right
+                pageNumber.setAlignment(Element.ALIGN_RIGHT);
+                pageNumberCell.addElement(pageNumber);
+                table.addCell(titleCell);
+                table.addCell(pageNumberCell);
+                table.setWidths(new int[]{20, 1}); // title column is 20 times as wide as the page number column
+            } else { // on RTL put page numbers on left
+                pageNumber.setAlignment(Element.ALIGN_LEFT);
+                pageNumberCell.addElement(pageNumber);
+                pageNumberCell.setRunDirection(PdfWriter.RUN_DIRECTION_LTR);
+                table.addCell(pageNumberCell);
+                table.addCell(titleCell);
+                table.setWidths(new int[]{1, 20}); // title column is 20 times as wide as the page number column
             }
         }
-        document.add(table);
+        if(table.size() > 0) {
+            document.add(table);
+        }
     }
 
     /**
@@ -274,11 +395,137 @@ public class PdfPrinter extends PdfPageEventHelper {
         return title;
     }
 
+    /**
+     * Checks if the chapter begins with a title page
+     * @param c
+     * @return
+     */
+    private boolean hasTitlePage(ChapterTranslation c) {
+        boolean chapter0 = (Util.strToInt(c.getId(), 0) == 0);
+        if(chapter0) {
+            // if chapter 00, then skip title since that was already printed as first page.
+            return false;
+        }
+        return includeIncomplete || c.isTitleFinished() || sourceContainer == null || sourceContainer.readChunk(c.getId(), "title").isEmpty();
+    }
+
+    /**
+     * Returns the rendered chapters, re-using the cached rendering if the chapters have not changed
+     * @param chapters a chapter followed by the chapters that flow on from it
+     * @return
+     * @throws DocumentException
+     * @throws IOException
+     */
+    private ChapterFragment prepareFragment(List<ChapterTranslation> chapters) throws DocumentException, IOException {
+        ChapterTranslation c = chapters.get(0);
+        ChapterFragment fragment = new ChapterFragment();
+        fragment.title = chapterTitle(c);
+        fragment.destination = "chapter-" + c.getId();
+        fragment.hasTitlePage = hasTitlePage(c);
+
+        List<ArrayList<FrameTranslation>> frameLists = new ArrayList<>();
+        for(ChapterTranslation chapter:chapters) {
+            FrameTranslation[] frames = targetTranslation.getFrameTranslations(chapter.getId(), this.format);
+            frameLists.add(ExportUsfm.sortFrameTranslations(frames));
+        }
+
+        String key = fragmentKey(chapters, fragment.hasTitlePage, frameLists);
+        fragment.file = new File(getCacheDir(), key + ".pdf");
+        synchronized (sPageCounts) {
+            Integer pages = sPageCounts.get(key);
+            if(pages != null && fragment.file.exists()) {
+                fragment.pageCount = pages;
+                fragment.file.setLastModified(System.currentTimeMillis());
+                return fragment;
+            }
+        }
+
+        if(fragment.file.exists()) {
+            // cached by a previous session
+            try {
+                PdfReader reader = new PdfReader(fragment.file.getAbsolutePath());
+                fragment.pageCount = reader.getNumberOfPages();
+                reader.close();
+                fragment.file.setLastModified(System.currentTimeMillis());
+            } catch (IOException e) {
+                Logger.w(TAG, "Discarding the corrupt chapter cache " + fragment.file.getName(), e);
+                FileUtilities.deleteQuietly(fragment.file);
+                fragment.pageCount = renderFragment(chapters, fragment, frameLists);
+            }
+        } else {
+            fragment.pageCount = renderFragment(chapters, fragment, frameLists);
+        }
+        if(fragment.pageCount > 0) {
+            synchronized (sPageCounts) {
+                sPageCounts.put(key, fragment.pageCount);
+            }
+        }
+        return fragment;
+    }
+
+    /**
+     * Renders chapters to their own pdf in the cache
+     * @param chapters
+     * @param fragment
+     * @param frameLists the sorted frames in each chapter
+     * @return the number of pages rendered
+     * @throws DocumentException
+     * @throws IOException
+     */
+    private int renderFragment(List<ChapterTranslation> chapters, ChapterFragment fragment, List<ArrayList<FrameTranslation>> frameLists) throws DocumentException, IOException {
+        Document document = new Document(PageSize.LETTER, HORIZONTAL_PADDING, HORIZONTAL_PADDING, VERTICAL_PADDING, VERTICAL_PADDING);
+        List<PdfPTable> tables = new ArrayList<>();
+        boolean empty = !fragment.hasTitlePage;
+        for(int i = 0; i < chapters.size(); i ++) {
+            PdfPTable table = buildChapterBody(document, chapters.get(i), frameLists.get(i));
+            tables.add(table);
+            if(table.size() > 0) empty = false;
+        }
+        if(empty) {
+            // nothing to print
+            return 0;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PdfWriter chapterWriter = PdfWriter.getInstance(document, out);
+        chapterWriter.setFullCompression();
+        document.open();
+        if(fragment.hasTitlePage) {
+            addChapterPage(document, chapters.get(0));
+        }
+        for(PdfPTable table:tables) {
+            if(table.size() > 0) {
+                document.add(table);
+            }
+        }
+        document.close();
+
+        byte[] bytes = out.toByteArray();
+        PdfReader reader = new PdfReader(bytes);
+        int pages = reader.getNumberOfPages();
+        reader.close();
+
+        // TRICKY: write to a temp file first so an interrupted print does not leave a broken cache entry
+        File dir = getCacheDir();
+        dir.mkdirs();
+        File temp = new File(dir, fragment.file.getName() + ".tmp");
+        FileOutputStream fos = new FileOutputStream(temp);
+        try {
+            fos.write(bytes);
+        } finally {
+            fos.close();
+        }
+        if(!temp.renameTo(fragment.file)) {
+            FileUtilities.deleteQuietly(temp);
+            throw new IOException("Failed to cache " + fragment.file.getName());
+        }
+        return pages;
+    }
+
     private void addChapterPage(Document document, ChapterTranslation c) throws DocumentException {
         // title
         String title = chapterTitle(c);
         Anchor anchor = new Anchor(title, chapterFont);
-        anchor.setName(c.title);
 
         PdfPCell cell = new PdfPCell();
         Paragraph element = new Paragraph();
@@ -298,80 +545,211 @@ public class PdfPrinter extends PdfPageEventHelper {
 
         document.add(chapter);
         document.add(new Paragraph(" ")); // put whitespace between chapter title and text
-
-        // update TOC
-        PdfTemplate template = tocPlaceholder.get(title);
-        template.beginText();
-        template.setFontAndSize(baseFont, PAGE_NUMBER_FONT_SIZE);
-        template.setTextMatrix(50 - baseFont.getWidthPoint(String.valueOf(writer.getPageNumber()), PAGE_NUMBER_FONT_SIZE), 0);
-        template.showText(String.valueOf(writer.getPageNumber()));
-        template.endText();
     }
 
     /**
-     * Adds the content of the book
+     * Builds the body of a chapter
      * @param document
+     * @param c
+     * @param frameList the sorted frames in the chapter
+     * @return
      */
-    private void addContent(Document document) throws DocumentException, IOException {
-        ChapterTranslation[] chapterTranslations = targetTranslation.getChapterTranslations();
-        int chapterCount = chapterTranslations.length + 1;
-        double increments = 1.0/ chapterCount;
-        double progress = 0;
-        for(ChapterTranslation c: chapterTranslations) {
-
-            PdfPTable table = new PdfPTable(1);
-            table.setWidthPercentage(100);
+    private PdfPTable buildChapterBody(Document document, ChapterTranslation c, ArrayList<FrameTranslation> frameList) {
+        PdfPTable table = new PdfPTable(1);
+        table.setWidthPercentage(100);
 
-            if(task != null) {
-                task.updateProgress(progress+=increments);
+        for(int i=0; i < frameList.size(); i ++) {
+            FrameTranslation f = frameList.get(i);
+            if(includeIncomplete || f.isFinished()) {
+                if(includeMedia && this.format == TranslationFormat.MARKDOWN) {
+                    // TODO: 11/13/2015 insert frame images if we have them.
+                    // TODO: 11/13/2015 eventually we need to provide the directory where to find these images which will be downloaded not in assets
+                    try {
+                        File imageFile = getImageFile(f);
+                        if(imageFile.exists()) {
+                            if( i != 0) {
+                                addBidiTextToTable(10, " ", subFont, table); // add space between text above and image below
+                            }
+                            addImage(document, table, imageFile.getAbsolutePath());
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+                // TODO: 11/13/2015 render body according to the format
+                String body = f.body;
+                if(format == TranslationFormat.USFM) {
+                    addUSFM(f.body, table);
+                } else {
+                    addBidiTextToTable(16, body, this.bodyFont, table);
+                }
             }
+        }
+
+        // chapter reference
+        if((includeIncomplete || c.isReferenceFinished()) && !c.reference.isEmpty()) {
+            addBidiTextToTable(16, " ", this.bodyFont, table);
+            addBidiTextToTable(16, c.reference, subFont, table);
+        }
+        return table;
+    }
+
+    private File getImageFile(FrameTranslation f) {
+        return new File(imagesDir, targetTranslation.getProjectId() + "-" + f.getComplexId() + ".jpg");
+    }
 
-            boolean chapter0 = (Util.strToInt(c.getId(), 0) == 0);
-            if(!chapter0) { // if chapter 00, then skip title since that was already printed as first page.
-                if (includeIncomplete || c.isTitleFinished() || sourceContainer.readChunk(c.getId(), "title").isEmpty()) {
-                    addChapterPage(document, c);
+    /**
+     * Generates a key that identifies everything that affects how a group of chapters is rendered.
+     * The page number is not part of the key since it is stamped when the book is merged.
+     *
+     * @param chapters
+     * @param hasTitlePage
+     * @param frameLists the sorted frames in each chapter
+     * @return
+     */
+    private String fragmentKey(List<ChapterTranslation> chapters, boolean hasTitlePage, List<ArrayList<FrameTranslation>> frameLists) {
+        StringBuilder key = new StringBuilder();
+        key.append(CACHE_VERSION).append('\n')
+                .append(targetTranslation.getId()).append('\n')
+                .append(format).append('\n')
+                .append(targetLanguageFontPath).append('\n')
+                .append(targetLanguageFontSize).append('\n')
+                .append(targetlanguageRtl).append('\n')
+                .append(includeMedia).append('\n')
+                .append(includeIncomplete).append('\n');
+        for(int i = 0; i < chapters.size(); i ++) {
+            ChapterTranslation c = chapters.get(i);
+            // only the first chapter can have a title page
+            key.append(i == 0 && hasTitlePage).append('\n')
+                    .append(c.getId()).append('\n')
+                    .append(chapterTitle(c)).append('\n')
+                    .append(c.reference).append('\n')
+                    .append(c.isReferenceFinished()).append('\n');
+            for(FrameTranslation f:frameLists.get(i)) {
+                key.append(f.getComplexId()).append('\n')
+                        .append(f.isFinished()).append('\n')
+                        .append(f.body.length()).append(':').append(f.body).append('\n');
+                if(includeMedia && this.format == TranslationFormat.MARKDOWN) {
+                    File imageFile = getImageFile(f);
+                    key.append(imageFile.lastModified()).append(':').append(imageFile.length()).append('\n');
                 }
             }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(key.toString().getBytes("UTF-8"));
+            StringBuilder hex = new StringBuilder();
+            for(byte b:hash) {
+                hex.append(String.format("%02x", b & 0xff));
+            }
+            return hex.toString();
+        } catch (Exception e) {
+            // should never happen
+            throw new IllegalStateException(e);
+        }
+    }
 
-            // get chapter body
-            FrameTranslation[] frames = targetTranslation.getFrameTranslations(c.getId(), this.format);
-            ArrayList<FrameTranslation> frameList = ExportUsfm.sortFrameTranslations(frames);
-            for(int i=0; i < frameList.size(); i ++) {
-                FrameTranslation f = frameList.get(i);
-                if(includeIncomplete || f.isFinished()) {
-                    if(includeMedia && this.format == TranslationFormat.MARKDOWN) {
-                        // TODO: 11/13/2015 insert frame images if we have them.
-                        // TODO: 11/13/2015 eventually we need to provide the directory where to find these images which will be downloaded not in assets
-                        try {
-                            File imageFile = new File(imagesDir, targetTranslation.getProjectId() + "-" + f.getComplexId() + ".jpg");
-                            if(imageFile.exists()) {
-                                if( i != 0) {
-                                    addBidiTextToTable(10, " ", subFont, table); // add space between text above and image below
-                                }
-                                addImage(document, table, imageFile.getAbsolutePath());
-                            }
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                        }
-                    }
-                    // TODO: 11/13/2015 render body according to the format
-                    String body = f.body;
-                    if(format == TranslationFormat.USFM) {
-                        addUSFM(f.body, table);
-                    } else {
-                        addBidiTextToTable(16, body, this.bodyFont, table);
-                    }
+    private static File getCacheDir() {
+        return new File(App.context().getCacheDir(), CACHE_DIR);
+    }
+
+    /**
+     * Removes the least recently used chapters once the cache grows too large
+     */
+    private static void pruneCache() {
+        // forget the page counts of chapters that are no longer cached e.g. if the system cleared the cache
+        synchronized (sPageCounts) {
+            Iterator<String> it = sPageCounts.keySet().iterator();
+            while(it.hasNext()) {
+                if(!new File(getCacheDir(), it.next() + ".pdf").exists()) {
+                    it.remove();
                 }
             }
+        }
 
-            // chapter reference
-            if((includeIncomplete || c.isReferenceFinished()) && !c.reference.isEmpty()) {
-                addBidiTextToTable(16, " ", this.bodyFont, table);
-                addBidiTextToTable(16, c.reference, subFont, table);
+        File[] files = getCacheDir().listFiles();
+        if(files == null) return;
+        long size = 0;
+        for(File f:files) {
+            size += f.length();
+        }
+        if(size <= MAX_CACHE_SIZE) return;
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File lhs, File rhs) {
+                long l = lhs.lastModified();
+                long r = rhs.lastModified();
+                return l < r ? -1 : (l == r ? 0 : 1);
             }
+        });
+        for(File f:files) {
+            if(size <= MAX_CACHE_SIZE / 2) break;
+            size -= f.length();
+            FileUtilities.deleteQuietly(f);
+            evictPageCount(f);
+        }
+    }
 
-            document.add(table);
+    /**
+     * Forgets the page count of a cached chapter
+     * @param file
+     */
+    private static void evictPageCount(File file) {
+        String name = file.getName();
+        if(!name.endsWith(".pdf")) return;
+        synchronized (sPageCounts) {
+            sPageCounts.remove(name.substring(0, name.length() - ".pdf".length()));
+        }
+    }
+
+    /**
+     * Numbers the front matter.
+     * The chapters are numbered when the book is merged since they are rendered separately.
+     * @param writer
+     * @param document
+     */
+    @Override
+    public void onEndPage(PdfWriter writer, Document document) {
+        frontMatterPageNumber = writer.getPageNumber();
+        drawPageNumber(writer.getDirectContent(), frontMatterPageNumber);
+    }
+
+    /**
+     * Draws the page number at the bottom of the page
+     * @param cb
+     * @param pageNumber
+     */
+    private void drawPageNumber(PdfContentByte cb, int pageNumber) {
+        String pageNumberShown = "";
+        if(pageNumber > 0) { // only add page number if above zero
+            pageNumberShown += pageNumber;
         }
+
+        // place page number just within the margin
+        Rectangle page = PageSize.LETTER;
+        float textBase = VERTICAL_PADDING - PAGE_NUMBER_FONT_SIZE;
+        float right = page.getWidth() - HORIZONTAL_PADDING;
+
+        cb.saveState();
+        cb.beginText();
+        cb.setFontAndSize(baseFont, PAGE_NUMBER_FONT_SIZE);
+        cb.setTextMatrix((right / 2) + HORIZONTAL_PADDING / 2, textBase);
+        cb.showText(pageNumberShown);
+        cb.endText();
+        cb.restoreState();
+    }
+
+    /**
+     * A chapter rendered to its own pdf
+     */
+    private static class ChapterFragment {
+        String title;
+        String destination;
+        boolean hasTitlePage;
+        File file;
+        int pageCount = 0;
+        int firstPage = 0;
     }
 
     private void addUSFM(String usfm, PdfPTable table) {
@@ -505,28 +883,6 @@ public class PdfPrinter extends PdfPageEventHelper {
         this.pageByTitle.put(title.getContent(), writer.getPageNumber());
     }
 
-    @Override
-    public void onEndPage(PdfWriter writer, Document document) {
-        PdfContentByte cb = writer.getDirectContent();
-        cb.saveState();
-
-        String pageNumberShown = "";
-        int pageNumber = writer.getPageNumber();
-        if(pageNumber > 0) { // only add page number if above zero
-            pageNumberShown += pageNumber;
-        }
-
-        // place page number just within the margin
-        float textBase = document.bottom() - PAGE_NUMBER_FONT_SIZE;
-
-        cb.beginText();
-        cb.setFontAndSize(baseFont, PAGE_NUMBER_FONT_SIZE);
-        cb.setTextMatrix((document.right() / 2) + HORIZONTAL_PADDING / 2, textBase);
-        cb.showText(pageNumberShown);
-        cb.endText();
-        cb.restoreState();
-    }
-
     /**
      * add the license from resource
      * @param document
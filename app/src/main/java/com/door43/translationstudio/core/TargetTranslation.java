@@ -12,7 +12,9 @@ import org.unfoldingword.door43client.models.TargetLanguage;
 import org.unfoldingword.tools.logger.Logger;
 
 import com.door43.translationstudio.App;
+import com.door43.translationstudio.git.BundleSync;
 import com.door43.translationstudio.git.Repo;
+import com.door43.translationstudio.git.RepoCache;
 import com.door43.util.NumericStringComparator;
 import com.door43.util.FileUtilities;
 import com.door43.util.Manifest;
@@ -27,13 +29,19 @@ import org.eclipse.jgit.api.ListTagCommand;
 import org.eclipse.jgit.api.LogCommand;
 import org.eclipse.jgit.api.MergeCommand;
 import org.eclipse.jgit.api.MergeResult;
+import org.eclipse.jgit.api.RmCommand;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.StatusCommand;
 import org.eclipse.jgit.api.TagCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.FetchResult;
+import org.eclipse.jgit.treewalk.TreeWalk;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -47,12 +55,18 @@ import java.io.InputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 /**
@@ -83,6 +97,12 @@ public class TargetTranslation {
     public static final String APPLICATION_NAME = "ts-android";
     public static final String OBS_PROJECT_TYPE = "obs";
 
+    /**
+     * How long to wait for more changes before performing a group commit
+     */
+    private static final long GROUP_COMMIT_DELAY = 10 * 1000;
+    private static final ScheduledExecutorService sCommitScheduler = Executors.newSingleThreadScheduledExecutor();
+
     private final File targetTranslationDir;
     private final Manifest manifest;
     private String targetLanguageId;
@@ -99,6 +119,8 @@ public class TargetTranslation {
     private TranslationFormat mTranslationFormat;
     private PersonIdent author = null;
     private String targetLanguageRegion = "unknown";
+    private LinkedHashSet<String> finishedChunks = null;
+    private boolean groupCommitScheduled = false;
 
     /**
      * Creates a new instance of the target translation
@@ -107,6 +129,14 @@ public class TargetTranslation {
     private TargetTranslation(File targetTranslationDir) throws Exception {
         this.targetTranslationDir = targetTranslationDir;
         this.manifest = Manifest.generate(targetTranslationDir);
+        this.manifest.setWriteBehind(true);
+        this.manifest.setOnSaveListener(new Manifest.OnSaveListener() {
+            @Override
+            public void onSave(Manifest manifest) {
+                getRepo().addDirtyPath(Manifest.MANIFEST_JSON);
+                TargetTranslationCatalog.invalidate(targetTranslationDir);
+            }
+        });
 
         // target language
         JSONObject targetLanguageJson = this.manifest.getJSONObject(FIELD_MANIFEST_TARGET_LANGUAGE);
@@ -392,6 +422,7 @@ public class TargetTranslation {
         PackageInfo pInfo = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
         generatorJson.put(FIELD_MANIFEST_BUILD, pInfo.versionCode);
         targetTranslation.manifest.put(FIELD_MANIFEST_GENERATOR, generatorJson);
+        targetTranslation.manifest.flush();
     }
 
     /**
@@ -716,6 +747,8 @@ public class TargetTranslation {
             titleFile.getParentFile().mkdirs();
             FileUtilities.writeStringToFile(titleFile, translatedText);
         }
+        markDirty(titleFile);
+        updateMergeConflictIndex(titleFile, translatedText);
     }
 
     /**
@@ -732,6 +765,8 @@ public class TargetTranslation {
             frameFile.getParentFile().mkdirs();
             FileUtilities.writeStringToFile(frameFile, translatedText);
         }
+        markDirty(frameFile);
+        updateMergeConflictIndex(frameFile, translatedText);
     }
 
     /**
@@ -749,6 +784,8 @@ public class TargetTranslation {
             chapterReferenceFile.getParentFile().mkdirs();
             FileUtilities.writeStringToFile(chapterReferenceFile, translatedText);
         }
+        markDirty(chapterReferenceFile);
+        updateMergeConflictIndex(chapterReferenceFile, translatedText);
     }
 
     /**
@@ -766,6 +803,8 @@ public class TargetTranslation {
             chapterTitleFile.getParentFile().mkdirs();
             FileUtilities.writeStringToFile(chapterTitleFile, translatedText);
         }
+        markDirty(chapterTitleFile);
+        updateMergeConflictIndex(chapterTitleFile, translatedText);
     }
 
     /**
@@ -878,7 +917,7 @@ public class TargetTranslation {
      * @param chapterSlug
      * @return
      */
-    private boolean isChapterTitleFinished(String chapterSlug) {
+    public boolean isChapterTitleFinished(String chapterSlug) {
         return isChunkClosed(chapterSlug + "-title");
     }
 
@@ -909,7 +948,7 @@ public class TargetTranslation {
      * @param chapterSlug
      * @return
      */
-    private boolean isChapterReferenceFinished(String chapterSlug) {
+    public boolean isChapterReferenceFinished(String chapterSlug) {
         return isChunkClosed(chapterSlug + "-reference");
     }
 
@@ -942,45 +981,76 @@ public class TargetTranslation {
      * @param frameComplexId
      * @return
      */
-    private boolean isFrameFinished(String frameComplexId) {
+    public boolean isFrameFinished(String frameComplexId) {
         return isChunkClosed(frameComplexId);
     }
 
+    /**
+     * Marks every translated item in the chapter as finished.
+     * This includes the chapter title, reference, and all of the translated chunks.
+     * The manifest is only written once.
+     * @param chapterSlug
+     * @return the number of items that were newly marked as finished
+     */
+    public int finishChapter(String chapterSlug) {
+        File chapterDir = new File(targetTranslationDir, chapterSlug);
+        String[] fileNames = chapterDir.list(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String filename) {
+                return filename.endsWith(".txt");
+            }
+        });
+        if(fileNames == null) {
+            return 0;
+        }
+        List<String> complexIds = new ArrayList<>();
+        for(String fileName:fileNames) {
+            complexIds.add(chapterSlug + "-" + fileName.substring(0, fileName.length() - ".txt".length()));
+        }
+        return closeChunks(complexIds);
+    }
+
     /**
      * Closes a chunk from editing. e.g. marks as finished
      * @param complexId the chapter + chunk id e.g. `01-05`, or `01-title`
      * @return
      */
-    private boolean closeChunk(String complexId) {
-        if(!isChunkClosed(complexId)) {
-            JSONArray finishedChunks = manifest.getJSONArray(FIELD_FINISHED_CHUNKS);
-            finishedChunks.put(complexId);
-            manifest.put(FIELD_FINISHED_CHUNKS, finishedChunks);
+    private synchronized boolean closeChunk(String complexId) {
+        if(getFinishedChunks().add(complexId)) {
+            saveFinishedChunks();
         }
         return true;
     }
 
+    /**
+     * Closes a group of chunks from editing.
+     * @param complexIds the chapter + chunk ids e.g. `01-05`, or `01-title`
+     * @return the number of chunks that were newly closed
+     */
+    private synchronized int closeChunks(Collection<String> complexIds) {
+        int closed = 0;
+        Set<String> finished = getFinishedChunks();
+        for(String complexId:complexIds) {
+            if(finished.add(complexId)) {
+                closed ++;
+            }
+        }
+        if(closed > 0) {
+            saveFinishedChunks();
+        }
+        return closed;
+    }
+
     /**
      * Opens a chunk for editing. e.g. marks as not finished
      * @param complexId the chapter + chunk id e.g. `01-05`, or `01-title`
      * @return
      */
-    private boolean openChunk(String complexId) {
-        JSONArray finishedChunks = manifest.getJSONArray(FIELD_FINISHED_CHUNKS);
-        JSONArray updatedChunks = new JSONArray();
-        try {
-            for (int i = 0; i < finishedChunks.length(); i++) {
-                String currId = finishedChunks.getString(i);
-                if(!currId.equals(complexId)) {
-                    updatedChunks.put(finishedChunks.getString(i));
-                }
-            }
-            manifest.put(FIELD_FINISHED_CHUNKS, updatedChunks);
-            return true;
-        } catch (JSONException e) {
-            e.printStackTrace();
+    private synchronized boolean openChunk(String complexId) {
+        if(getFinishedChunks().remove(complexId)) {
+            saveFinishedChunks();
         }
-        return false;
+        return true;
     }
 
     /**
@@ -988,18 +1058,43 @@ public class TargetTranslation {
      * @param complexId the chapter + chunk id e.g. `01-05`, or `01-title`
      * @return
      */
-    private boolean isChunkClosed(String complexId) {
-        JSONArray finishedChunks = manifest.getJSONArray(FIELD_FINISHED_CHUNKS);
-        try {
-            for (int i = 0; i < finishedChunks.length(); i++) {
-                if(finishedChunks.getString(i).equals(complexId)) {
-                    return true;
+    private synchronized boolean isChunkClosed(String complexId) {
+        return getFinishedChunks().contains(complexId);
+    }
+
+    /**
+     * Returns the indexed set of finished chunks.
+     * The set is loaded from the manifest the first time it is needed.
+     * TRICKY: this is the live set so callers must hold the lock on this target translation
+     * @return
+     */
+    private synchronized Set<String> getFinishedChunks() {
+        if(finishedChunks == null) {
+            finishedChunks = new LinkedHashSet<>();
+            JSONArray finishedJson = manifest.getJSONArray(FIELD_FINISHED_CHUNKS);
+            try {
+                for (int i = 0; i < finishedJson.length(); i++) {
+                    finishedChunks.add(finishedJson.getString(i));
                 }
+            } catch (JSONException e) {
+                e.printStackTrace();
             }
-        } catch (JSONException e) {
-            e.printStackTrace();
         }
-        return false;
+        return finishedChunks;
+    }
+
+    /**
+     * Writes the finished chunks back to the manifest
+     */
+    private synchronized void saveFinishedChunks() {
+        manifest.put(FIELD_FINISHED_CHUNKS, new JSONArray(getFinishedChunks()));
+    }
+
+    /**
+     * Discards the indexed finished chunks so they will be re-read from the manifest
+     */
+    private synchronized void invalidateFinishedChunks() {
+        finishedChunks = null;
     }
 
     public boolean commitSync() throws Exception {
@@ -1012,11 +1107,15 @@ public class TargetTranslation {
      * @throws Exception
      */
     public boolean isClean() {
+        Repo repo = getRepo();
+        repo.acquire();
         try {
-            Git git = getRepo().getGit();
+            Git git = repo.getGit();
             return git.status().call().isClean();
         } catch(Exception e) {
             e.printStackTrace();
+        } finally {
+            repo.release();
         }
         return false;
     }
@@ -1035,8 +1134,38 @@ public class TargetTranslation {
     }
 
     public boolean commitSync(String filePattern, boolean forced) throws Exception {
-        Git git = getRepo().getGit();
+        // write pending manifest changes so they are included in the commit
+        manifest.flush();
+
+        Repo repo = getRepo();
+        repo.acquire();
+        try {
+            return commitSync(repo.getGit(), filePattern, forced);
+        } finally {
+            repo.release();
+        }
+    }
+
+    private boolean commitSync(Git git, String filePattern, boolean forced) throws Exception {
+        // a full commit picks up everything in the journal
+        Repo repo = getRepo();
+        Set<String> journaled = ".".equals(filePattern) ? repo.takeDirtyPaths() : new LinkedHashSet<String>();
+        boolean committed = false;
+        try {
+            committed = commitChanges(git, filePattern, forced);
+            if(committed && ".".equals(filePattern)) {
+                repo.markJournalComplete();
+            }
+            return committed;
+        } finally {
+            if(!committed) {
+                // try again next time
+                repo.addDirtyPaths(journaled);
+            }
+        }
+    }
 
+    private boolean commitChanges(Git git, String filePattern, boolean forced) throws Exception {
         // check if dirty
         if(isClean()) {
             return true;
@@ -1078,45 +1207,163 @@ public class TargetTranslation {
     }
 
     /**
-     * Stages and commits changes to the repository
+     * Records whether a saved chunk contains merge conflicts
+     * @param file a file within the target translation directory
+     * @param text the saved text
+     */
+    private void updateMergeConflictIndex(File file, String text) {
+        String root = targetTranslationDir.getAbsolutePath();
+        String path = file.getAbsolutePath();
+        if(path.startsWith(root + File.separator)) {
+            MergeConflictIndex.update(targetTranslationDir, path.substring(root.length() + 1).replace(File.separatorChar, '/'), text);
+        }
+    }
+
+    /**
+     * Records a file that has changed so it will be included in the next incremental commit
+     * @param file a file within the target translation directory
+     */
+    private void markDirty(File file) {
+        String root = targetTranslationDir.getAbsolutePath();
+        String path = file.getAbsolutePath();
+        if(path.startsWith(root + File.separator)) {
+            getRepo().addDirtyPath(path.substring(root.length() + 1).replace(File.separatorChar, '/'));
+        }
+    }
+
+    /**
+     * Commits only the files that are known to have changed since the last commit.
+     * Unlike {@link #commitSync()} this does not need to scan the whole working tree.
+     * @return false if the commit failed
+     */
+    public boolean commitDirtySync() {
+        try {
+            return commitDirtySync(true);
+        } catch (Exception e) {
+            // forced commits log their errors instead of throwing
+            return false;
+        }
+    }
+
+    /**
+     * Commits only the files that are known to have changed since the last commit.
+     * If the dirty paths were lost e.g. the app was killed before they were saved
+     * the whole working tree is committed instead.
+     * @param forced if true errors are logged instead of thrown
+     * @return false if the commit failed
      * @throws Exception
      */
-    public void commit() throws Exception {
-        commit(".", null);
+    public boolean commitDirtySync(boolean forced) throws Exception {
+        Repo repo = getRepo();
+        if(!repo.isJournalComplete()) {
+            return commitSync(".", forced);
+        }
+
+        manifest.flush();
+
+        Set<String> paths = repo.takeDirtyPaths();
+        if(paths.isEmpty()) {
+            return true;
+        }
+
+        repo.acquire();
+        boolean committed = false;
+        try {
+            Git git = repo.getGit();
+
+            // stage changes
+            AddCommand add = git.add();
+            RmCommand rm = git.rm().setCached(true);
+            StatusCommand status = git.status();
+            boolean hasAdditions = false;
+            boolean hasRemovals = false;
+            for(String path:paths) {
+                if(new File(targetTranslationDir, path).exists()) {
+                    add.addFilepattern(path);
+                    hasAdditions = true;
+                } else {
+                    rm.addFilepattern(path);
+                    hasRemovals = true;
+                }
+                status.addPath(path);
+            }
+            if(hasAdditions) add.call();
+            if(hasRemovals) rm.call();
+
+            // skip empty commits
+            Status staged = status.call();
+            if(staged.getAdded().isEmpty() && staged.getChanged().isEmpty() && staged.getRemoved().isEmpty()) {
+                committed = true;
+                return true;
+            }
+
+            // commit changes
+            CommitCommand commit = git.commit();
+            if(author != null) {
+                commit.setAuthor(author);
+            }
+            commit.setMessage("auto save");
+            commit.call();
+            committed = true;
+            return true;
+        } catch (Exception e) {
+            if(!forced) {
+                throw e;
+            }
+            Logger.e(TAG, "Failed to commit changes for " + getId(), e);
+            return false;
+        } finally {
+            if(!committed) {
+                // try again next time
+                repo.addDirtyPaths(paths);
+            }
+            repo.release();
+        }
+    }
+
+    /**
+     * Schedules an incremental commit.
+     * Calls made before the commit runs are folded into a single commit.
+     */
+    public synchronized void scheduleCommit() {
+        if(groupCommitScheduled) {
+            return;
+        }
+        groupCommitScheduled = true;
+        sCommitScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (TargetTranslation.this) {
+                    groupCommitScheduled = false;
+                }
+                commitDirtySync();
+            }
+        }, GROUP_COMMIT_DELAY, TimeUnit.MILLISECONDS);
     }
 
     /**
-     * Stages and commits changes to the repository
-     * @param listener
+     * Stages and commits the known changes to the repository
      * @throws Exception
      */
-    public void commit(OnCommitListener listener) throws Exception {
-        commit(".", listener);
+    public void commit() throws Exception {
+        commit(null);
     }
 
     /**
-     * Stages and commits changes to the repository
-     * @param filePattern the file pattern that will be used to match files for staging
+     * Stages and commits the known changes to the repository
      * @param listener the listener that will be called when finished
+     * @throws Exception
      */
-    private void commit(final String filePattern, final OnCommitListener listener) throws Exception {
-
-        Thread thread = new Thread() {
+    public void commit(final OnCommitListener listener) throws Exception {
+        sCommitScheduler.execute(new Runnable() {
             @Override
             public void run() {
-                try {
-                    boolean result = commitSync(filePattern);
-                    if(listener != null) {
-                        listener.onCommit(result);
-                    }
-                } catch (Exception e) {
-                    if(listener != null) {
-                        listener.onCommit(false);
-                    }
+                boolean result = commitDirtySync();
+                if(listener != null) {
+                    listener.onCommit(result);
                 }
             }
-        };
-        thread.start();
+        });
     }
 
     /**
@@ -1141,15 +1388,20 @@ public class TargetTranslation {
      * @return
      */
     public boolean resetToMasterBackup() {
+        Repo repo = getRepo();
+        repo.acquire();
         try { // restore state before the pull
-            Git git = getRepo().getGit();
+            Git git = repo.getGit();
             ResetCommand resetCommand = git.reset();
             resetCommand.setMode(ResetCommand.ResetType.HARD)
                     .setRef("backup-master")
                     .call();
+            MergeConflictIndex.invalidate(targetTranslationDir);
         } catch (Exception e) {
             e.printStackTrace();
             return false;
+        } finally {
+            repo.release();
         }
         return true;
     }
@@ -1165,14 +1417,89 @@ public class TargetTranslation {
         TargetTranslation importedTargetTranslation = TargetTranslation.open(newDir);
         if(importedTargetTranslation != null) {
             importedTargetTranslation.commitSync();
+            // we only need the imported repository for the fetch
+            RepoCache.close(newDir);
         }
         commitSync();
 
         Manifest importedManifest = Manifest.generate(newDir);
         Repo repo = getRepo();
+        repo.acquire();
+        try {
+            createMergeBackup(repo.getGit());
+
+            // attach remote
+            repo.deleteRemote("new");
+            repo.setRemote("new", newDir.getAbsolutePath());
+            FetchCommand fetch = repo.getGit().fetch();
+            fetch.setRemote("new");
+            fetch.call();
+
+            // create branch for new changes
+            DeleteBranchCommand deleteBranch = repo.getGit().branchDelete();
+            deleteBranch.setBranchNames("new");
+            deleteBranch.setForce(true);
+            deleteBranch.call();
+            CreateBranchCommand branch = repo.getGit().branchCreate();
+            branch.setName("new");
+            branch.setStartPoint("new/master");
+            branch.call();
+
+            return mergeBranch(repo, "new", importedManifest);
+        } finally {
+            repo.release();
+        }
+    }
+
+    /**
+     * Merges the commits in a git bundle into this target translation.
+     * This allows a peer to send only the commits we are missing. See {@link BundleSync}
+     * @param bundle the bundle stream
+     * @return boolean false if there were merge conflicts
+     * @throws Exception
+     */
+    public boolean mergeBundle(InputStream bundle) throws Exception {
+        commitSync();
+        Repo repo = getRepo();
+        repo.acquire();
+        try {
+            createMergeBackup(repo.getGit());
+
+            Repository repository = repo.getGit().getRepository();
+            ObjectId fetched = BundleSync.fetchBundle(repository, bundle, "new");
 
-        // create a backup branch
-        Git git  = repo.getGit();
+            // TRICKY: the imported manifest is only available within the fetched commit
+            File tempDir = File.createTempFile("bundle", "manifest");
+            tempDir.delete();
+            tempDir.mkdirs();
+            try {
+                RevWalk walk = new RevWalk(repository);
+                try {
+                    TreeWalk treeWalk = TreeWalk.forPath(repository, Manifest.MANIFEST_JSON, walk.parseCommit(fetched).getTree());
+                    if(treeWalk != null) {
+                        byte[] bytes = repository.open(treeWalk.getObjectId(0)).getBytes();
+                        FileUtilities.writeStringToFile(new File(tempDir, Manifest.MANIFEST_JSON), new String(bytes, "UTF-8"));
+                        treeWalk.release();
+                    }
+                } finally {
+                    walk.release();
+                }
+                Manifest importedManifest = Manifest.generate(tempDir);
+                return mergeBranch(repo, "new", importedManifest);
+            } finally {
+                FileUtilities.deleteQuietly(tempDir);
+            }
+        } finally {
+            repo.release();
+        }
+    }
+
+    /**
+     * Creates a backup of master so a merge can be undone. See {@link #resetToMasterBackup()}
+     * @param git
+     * @throws GitAPIException
+     */
+    private void createMergeBackup(Git git) throws GitAPIException {
         DeleteBranchCommand deleteBranchCommand = git.branchDelete();
         deleteBranchCommand.setBranchNames("backup-master")
                 .setForce(true)
@@ -1181,32 +1508,28 @@ public class TargetTranslation {
         createBranchCommand.setName("backup-master")
                 .setForce(true)
                 .call();
+    }
 
-        // attach remote
-        repo.deleteRemote("new");
-        repo.setRemote("new", newDir.getAbsolutePath());
-        FetchCommand fetch = repo.getGit().fetch();
-        fetch.setRemote("new");
-        fetch.call();
-
-        // create branch for new changes
-        DeleteBranchCommand deleteBranch = repo.getGit().branchDelete();
-        deleteBranch.setBranchNames("new");
-        deleteBranch.setForce(true);
-        deleteBranch.call();
-        CreateBranchCommand branch = repo.getGit().branchCreate();
-        branch.setName("new");
-        branch.setStartPoint("new/master");
-        branch.call();
-
+    /**
+     * Merges a local branch into master along with the manifest
+     * @param repo
+     * @param branchName
+     * @param importedManifest the manifest of the branch being merged
+     * @return boolean false if there were merge conflicts
+     * @throws Exception
+     */
+    private boolean mergeBranch(Repo repo, String branchName, Manifest importedManifest) throws Exception {
         // perform merge
         MergeCommand merge = repo.getGit().merge();
         merge.setFastForward(MergeCommand.FastForwardMode.NO_FF);
-        merge.include(repo.getGit().getRepository().getRef("new"));
+        merge.include(repo.getGit().getRepository().getRef(branchName));
         MergeResult result = merge.call();
 
         // merge manifests
         mergeManifests(manifest, importedManifest);
+        manifest.flush();
+        invalidateFinishedChunks();
+        MergeConflictIndex.fromMerge(this, result.getConflicts() != null ? result.getConflicts().keySet() : null);
 
         if (result.getMergeStatus().equals(MergeResult.MergeStatus.CONFLICTING)) {
             System.out.println(result.getConflicts().toString());
@@ -1248,6 +1571,7 @@ public class TargetTranslation {
         } else if(requestFile.exists()) {
             FileUtilities.safeDelete(requestFile);
         }
+        markDirty(requestFile);
     }
 
     /**
@@ -1289,6 +1613,22 @@ public class TargetTranslation {
         }
     }
 
+    /**
+     * Writes any pending manifest changes to the disk.
+     * This must be called before the target translation directory is moved or deleted.
+     */
+    public void flushManifest() {
+        manifest.flush();
+    }
+
+    /**
+     * Returns the number of times the manifest has been written to the disk
+     * @return
+     */
+    public long getManifestWrittenVersion() {
+        return manifest.getWrittenVersion();
+    }
+
     public TargetLanguage getTargetLanguage() {
         return new TargetLanguage(targetLanguageId, targetLanguageName, "", targetLanguageDirection, targetLanguageRegion, false);
     }
@@ -1298,7 +1638,7 @@ public class TargetTranslation {
      * @return
      */
     public Repo getRepo() {
-        return new Repo(targetTranslationDir.getAbsolutePath());
+        return RepoCache.get(targetTranslationDir);
     }
 
     /**
@@ -1337,7 +1677,14 @@ public class TargetTranslation {
      */
     public String getCommitHash() throws Exception {
         String tag = null;
-        RevCommit commit = getGitHead(getRepo());
+        Repo repo = getRepo();
+        RevCommit commit;
+        repo.acquire();
+        try {
+            commit = getGitHead(repo);
+        } finally {
+            repo.release();
+        }
         if(commit != null) {
             String[] pieces = commit.toString().split(" ");
             tag = pieces[1];
@@ -1417,13 +1764,8 @@ public class TargetTranslation {
      * Returns the number of items that have been marked as finished
      * @return
      */
-    public int numFinished() {
-        if(manifest.has(FIELD_FINISHED_CHUNKS)) {
-            JSONArray finishedFrames = manifest.getJSONArray(FIELD_FINISHED_CHUNKS);
-            return finishedFrames.length();
-        } else {
-            return 0;
-        }
+    public synchronized int numFinished() {
+        return getFinishedChunks().size();
     }
 
     /**
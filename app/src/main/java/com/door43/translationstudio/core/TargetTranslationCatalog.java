@@ -0,0 +1,226 @@
+package com.door43.translationstudio.core;
+
+import com.door43.util.FileUtilities;
+import com.door43.util.Manifest;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.unfoldingword.tools.logger.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An on-disk catalog of the target translations.
+ * This lets us list the target translations without opening every manifest.
+ * Entries are validated lazily against the modified time of the target translation directory and manifest
+ * so changes made outside of the app are picked up on the next read.
+ * Because modified times only have a resolution of one second, changes to the manifest within the app
+ * also invalidate the entry explicitly. See {@link #invalidate(File)}
+ */
+public class TargetTranslationCatalog {
+    private static final String TAG = TargetTranslationCatalog.class.getName();
+    private static final int VERSION = 1;
+    private static final String CATALOG_FILE = ".catalog.json";
+    /**
+     * The paths of target translations that have changed since they were last cataloged
+     */
+    private static final Set<String> sInvalidated = new HashSet<>();
+
+    private final File rootDir;
+    private final File catalogFile;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private boolean loaded = false;
+
+    /**
+     * @param rootDir the directory containing the target translations
+     */
+    public TargetTranslationCatalog(File rootDir) {
+        this.rootDir = rootDir;
+        this.catalogFile = new File(rootDir, CATALOG_FILE);
+    }
+
+    /**
+     * Returns summaries of all the valid target translations.
+     * Only target translations that have changed since they were last cataloged will be opened.
+     * @return
+     */
+    public synchronized List<TargetTranslationSummary> getSummaries() {
+        load();
+        boolean changed = false;
+        List<TargetTranslationSummary> summaries = new ArrayList<>();
+        Set<String> found = new HashSet<>();
+
+        String[] names = rootDir.list();
+        if(names != null) {
+            for(String name:names) {
+                File dir = new File(rootDir, name);
+                if(name.equalsIgnoreCase("cache") || !dir.isDirectory()) continue;
+                found.add(name);
+
+                Entry entry = entries.get(name);
+                long stamp = modifiedStamp(dir);
+                boolean invalidated = takeInvalidated(dir);
+                if(entry == null || entry.stamp != stamp || invalidated) {
+                    entry = catalog(dir, stamp);
+                    changed = true;
+                }
+                if(entry.summary != null) {
+                    summaries.add(entry.summary);
+                }
+            }
+        }
+
+        // forget deleted target translations
+        Iterator<String> it = entries.keySet().iterator();
+        while(it.hasNext()) {
+            if(!found.contains(it.next())) {
+                it.remove();
+                changed = true;
+            }
+        }
+
+        if(changed) save();
+        return summaries;
+    }
+
+    /**
+     * Updates the catalog entry for a target translation.
+     * Call this after creating or importing a target translation.
+     * @param targetTranslation
+     */
+    public synchronized void update(TargetTranslation targetTranslation) {
+        if(targetTranslation == null) return;
+        load();
+        File dir = targetTranslation.getPath();
+        takeInvalidated(dir);
+        targetTranslation.flushManifest();
+        long stamp = modifiedStamp(dir);
+        entries.put(dir.getName(), new Entry(stamp, TargetTranslationSummary.fromTargetTranslation(targetTranslation, stamp)));
+        save();
+    }
+
+    /**
+     * Marks the catalog entry of a target translation as stale.
+     * This is called whenever the manifest of a target translation is changed.
+     * @param targetTranslationDir
+     */
+    public static void invalidate(File targetTranslationDir) {
+        synchronized (sInvalidated) {
+            sInvalidated.add(targetTranslationDir.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Checks if the target translation has been invalidated and clears the flag
+     * @param dir
+     * @return
+     */
+    private static boolean takeInvalidated(File dir) {
+        synchronized (sInvalidated) {
+            return sInvalidated.remove(dir.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Removes a target translation from the catalog
+     * @param targetTranslationId
+     */
+    public synchronized void remove(String targetTranslationId) {
+        load();
+        if(entries.remove(targetTranslationId) != null) {
+            save();
+        }
+    }
+
+    /**
+     * Catalogs a target translation directory.
+     * Invalid target translations are recorded as well so we don't keep trying to open them.
+     * @param dir
+     * @param stamp
+     * @return
+     */
+    private Entry catalog(File dir, long stamp) {
+        // TRICKY: make sure we read the latest manifest
+        Manifest.flushPending(dir);
+        TargetTranslation targetTranslation = TargetTranslation.open(dir);
+        TargetTranslationSummary summary = null;
+        if(targetTranslation != null) {
+            summary = TargetTranslationSummary.fromTargetTranslation(targetTranslation, stamp);
+        }
+        Entry entry = new Entry(stamp, summary);
+        entries.put(dir.getName(), entry);
+        return entry;
+    }
+
+    /**
+     * Returns a stamp that changes whenever the target translation is modified.
+     * TRICKY: the manifest is written atomically by renaming a temp file, which also touches the directory.
+     * @param dir
+     * @return
+     */
+    private static long modifiedStamp(File dir) {
+        return Math.max(dir.lastModified(), new File(dir, Manifest.MANIFEST_JSON).lastModified());
+    }
+
+    private void load() {
+        if(loaded) return;
+        loaded = true;
+        if(!catalogFile.exists()) return;
+        try {
+            JSONObject json = new JSONObject(FileUtilities.readFileToString(catalogFile));
+            if(json.optInt("version") != VERSION) return;
+            JSONObject translations = json.getJSONObject("translations");
+            Iterator<String> keys = translations.keys();
+            while(keys.hasNext()) {
+                String name = keys.next();
+                JSONObject item = translations.getJSONObject(name);
+                TargetTranslationSummary summary = null;
+                if(item.has("summary")) {
+                    summary = TargetTranslationSummary.fromJson(item.getJSONObject("summary"));
+                }
+                entries.put(name, new Entry(item.getLong("stamp"), summary));
+            }
+        } catch (Exception e) {
+            Logger.w(TAG, "Failed to load the target translation catalog. It will be rebuilt", e);
+            entries.clear();
+        }
+    }
+
+    private void save() {
+        try {
+            JSONObject translations = new JSONObject();
+            for(Map.Entry<String, Entry> entry:entries.entrySet()) {
+                JSONObject item = new JSONObject();
+                item.put("stamp", entry.getValue().stamp);
+                if(entry.getValue().summary != null) {
+                    item.put("summary", entry.getValue().summary.toJson());
+                }
+                translations.put(entry.getKey(), item);
+            }
+            JSONObject json = new JSONObject();
+            json.put("version", VERSION);
+            json.put("translations", translations);
+            FileUtilities.writeStringToFileAtomically(catalogFile, json.toString());
+        } catch (JSONException | IOException e) {
+            Logger.w(TAG, "Failed to save the target translation catalog", e);
+        }
+    }
+
+    private static class Entry {
+        final long stamp;
+        final TargetTranslationSummary summary;
+
+        Entry(long stamp, TargetTranslationSummary summary) {
+            this.stamp = stamp;
+            this.summary = summary;
+        }
+    }
+}
@@ -110,79 +110,113 @@ public class TargetTranslationMigrator {
             migratedDir = null;
         }
         if(migratedDir != null) {
-            // import new language requests
-            TargetTranslation tt = TargetTranslation.open(targetTranslationDir);
-            if(tt != null) {
-                NewLanguageRequest newRequest = tt.getNewLanguageRequest();
-                if(newRequest != null) {
-                    TargetLanguage approvedTargetLanguage = App.getLibrary().index.getApprovedTargetLanguage(newRequest.tempLanguageCode);
-                    if(approvedTargetLanguage != null) {
-                        // this language request has already been approved so let's migrate it
-                        try {
-                            tt.setNewLanguageRequest(null);
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-                        TargetLanguage originalTargetLanguage = tt.getTargetLanguage();
-                        tt.changeTargetLanguage(approvedTargetLanguage);
-                        if(App.getTranslator().normalizePath(tt)) {
-                            Logger.i(TAG, "Migrated target language of target translation " + tt.getId() + " to " + approvedTargetLanguage.slug);
-                        } else {
-                            // revert if normalization failed
-                            tt.changeTargetLanguage(originalTargetLanguage);
-                        }
-                    } else {
-                        NewLanguageRequest existingRequest = App.getNewLanguageRequest(newRequest.tempLanguageCode);
-                        if(existingRequest == null) {
-                            // we don't have this language request
-                            Logger.i(TAG, "Importing language request " + newRequest.tempLanguageCode + " from " + tt.getId());
-                            App.addNewLanguageRequest(newRequest);
-                        } else {
-                            // we already have this language request
-                            if (existingRequest.getSubmittedAt() > 0 && newRequest.getSubmittedAt() == 0) {
-                                // indicated this language request has been submitted
-                                newRequest.setSubmittedAt(existingRequest.getSubmittedAt());
-                                try {
-                                    tt.setNewLanguageRequest(newRequest);
-                                } catch (IOException e) {
-                                    e.printStackTrace();
-                                }
-                            } else if (existingRequest.getSubmittedAt() == 0 && newRequest.getSubmittedAt() > 0) {
-                                // indicate global language request has been submitted
-                                existingRequest.setSubmittedAt(newRequest.getSubmittedAt());
-                                App.addNewLanguageRequest(existingRequest);
-                                // TODO: 6/15/16 technically we need to look through all the existing target translations and update ones using this language.
-                                // if we don't then they should get updated the next time the restart the app.
-                            }
-                        }
-                        // store the temp language in the index so we can use it
-                        try {
-                            App.getLibrary().index.addTempTargetLanguage(existingRequest.getTempTargetLanguage());
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                        }
-                    }
+            File changedDir = importLanguageRequest(targetTranslationDir);
+            if(changedDir != null && !changedDir.equals(targetTranslationDir)) {
+                // the target translation was moved to match the approved target language
+                migratedDir = changedDir;
+            }
+        }
+        return migratedDir;
+    }
+
+    /**
+     * Imports the new language request of a target translation.
+     * Approved requests are migrated to the approved target language, otherwise the temporary
+     * target language is added to the library index.
+     * TRICKY: the temporary target languages are lost whenever the library is redeployed
+     * so this must run on every startup even if the target translation is up to date.
+     * @param targetTranslationDir
+     * @return the target translation dir if the target translation was changed. Null if nothing changed
+     */
+    public static File importLanguageRequest(File targetTranslationDir) {
+        TargetTranslation tt = TargetTranslation.open(targetTranslationDir);
+        if(tt == null) return null;
+        File changedDir = null;
+        NewLanguageRequest newRequest = tt.getNewLanguageRequest();
+        if(newRequest != null) {
+            TargetLanguage approvedTargetLanguage = App.getLibrary().index.getApprovedTargetLanguage(newRequest.tempLanguageCode);
+            if(approvedTargetLanguage != null) {
+                // this language request has already been approved so let's migrate it
+                try {
+                    tt.setNewLanguageRequest(null);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                changedDir = targetTranslationDir;
+                TargetLanguage originalTargetLanguage = tt.getTargetLanguage();
+                tt.changeTargetLanguage(approvedTargetLanguage);
+                if(App.getTranslator().normalizePath(tt)) {
+                    Logger.i(TAG, "Migrated target language of target translation " + tt.getId() + " to " + approvedTargetLanguage.slug);
+                    changedDir = new File(targetTranslationDir.getParentFile(), tt.getId());
                 } else {
-                    // make missing language codes usable even if we can't find the new language request
-                    TargetLanguage tl = App.getLibrary().index.getTargetLanguage(tt.getTargetLanguageId());
-                    if(tl == null) {
-                        Logger.i(TAG, "Importing missing language code " + tt.getTargetLanguageId() + " from " + tt.getId());
-                        TargetLanguage tempLanguage = new TargetLanguage(tt.getTargetLanguageId(),
-                                tt.getTargetLanguageName(),
-                                "",
-                                tt.getTargetLanguageDirection(),
-                                tt.getTargetLanguageRegion(),
-                                false);
+                    // revert if normalization failed
+                    tt.changeTargetLanguage(originalTargetLanguage);
+                }
+            } else {
+                NewLanguageRequest existingRequest = App.getNewLanguageRequest(newRequest.tempLanguageCode);
+                if(existingRequest == null) {
+                    // we don't have this language request
+                    Logger.i(TAG, "Importing language request " + newRequest.tempLanguageCode + " from " + tt.getId());
+                    App.addNewLanguageRequest(newRequest);
+                } else {
+                    // we already have this language request
+                    if (existingRequest.getSubmittedAt() > 0 && newRequest.getSubmittedAt() == 0) {
+                        // indicated this language request has been submitted
+                        newRequest.setSubmittedAt(existingRequest.getSubmittedAt());
                         try {
-                            App.getLibrary().index.addTempTargetLanguage(tempLanguage);
-                        } catch (Exception e) {
+                            tt.setNewLanguageRequest(newRequest);
+                            changedDir = targetTranslationDir;
+                        } catch (IOException e) {
                             e.printStackTrace();
                         }
+                    } else if (existingRequest.getSubmittedAt() == 0 && newRequest.getSubmittedAt() > 0) {
+                        // indicate global language request has been submitted
+                        existingRequest.setSubmittedAt(newRequest.getSubmittedAt());
+                        App.addNewLanguageRequest(existingRequest);
+                        // TODO: 6/15/16 technically we need to look through all the existing target translations and update ones using this language.
+                        // if we don't then they should get updated the next time the restart the app.
                     }
                 }
+                // store the temp language in the index so we can use it
+                try {
+                    App.getLibrary().index.addTempTargetLanguage(existingRequest.getTempTargetLanguage());
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        } else {
+            // make missing language codes usable even if we can't find the new language request
+            TargetLanguage tl = App.getLibrary().index.getTargetLanguage(tt.getTargetLanguageId());
+            if(tl == null) {
+                Logger.i(TAG, "Importing missing language code " + tt.getTargetLanguageId() + " from " + tt.getId());
+                TargetLanguage tempLanguage = new TargetLanguage(tt.getTargetLanguageId(),
+                        tt.getTargetLanguageName(),
+                        "",
+                        tt.getTargetLanguageDirection(),
+                        tt.getTargetLanguageRegion(),
+                        false);
+                try {
+                    App.getLibrary().index.addTempTargetLanguage(tempLanguage);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
             }
         }
-        return migratedDir;
+        return changedDir;
+    }
+
+    /**
+     * Checks if the target translation can be used by the app
+     * @param targetTranslationDir
+     * @return
+     */
+    public static boolean isSupported(File targetTranslationDir) {
+        try {
+            return validateTranslationType(targetTranslationDir);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
     }
 
     /**
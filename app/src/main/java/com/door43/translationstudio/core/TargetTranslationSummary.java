@@ -0,0 +1,110 @@
+package com.door43.translationstudio.core;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.unfoldingword.door43client.models.TargetLanguage;
+
+/**
+ * A lightweight description of a target translation.
+ * This can be displayed without opening the target translation manifest.
+ * See {@link TargetTranslationCatalog}
+ */
+public class TargetTranslationSummary {
+    public final String id;
+    public final String targetLanguageId;
+    public final String targetLanguageName;
+    public final String targetLanguageDirection;
+    public final String targetLanguageRegion;
+    public final String projectId;
+    public final String resourceSlug;
+    public final ResourceType resourceType;
+    public final TranslationFormat format;
+    public final int numFinished;
+    public final long lastModified;
+
+    private TargetTranslationSummary(String id, String targetLanguageId, String targetLanguageName,
+                                     String targetLanguageDirection, String targetLanguageRegion,
+                                     String projectId, String resourceSlug, ResourceType resourceType,
+                                     TranslationFormat format, int numFinished, long lastModified) {
+        this.id = id;
+        this.targetLanguageId = targetLanguageId;
+        this.targetLanguageName = targetLanguageName;
+        this.targetLanguageDirection = targetLanguageDirection;
+        this.targetLanguageRegion = targetLanguageRegion;
+        this.projectId = projectId;
+        this.resourceSlug = resourceSlug;
+        this.resourceType = resourceType;
+        this.format = format;
+        this.numFinished = numFinished;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Summarizes a target translation
+     * @param targetTranslation
+     * @param lastModified
+     * @return
+     */
+    public static TargetTranslationSummary fromTargetTranslation(TargetTranslation targetTranslation, long lastModified) {
+        return new TargetTranslationSummary(targetTranslation.getId(),
+                targetTranslation.getTargetLanguageId(),
+                targetTranslation.getTargetLanguageName(),
+                targetTranslation.getTargetLanguageDirection(),
+                targetTranslation.getTargetLanguageRegion(),
+                targetTranslation.getProjectId(),
+                targetTranslation.getResourceSlug(),
+                targetTranslation.getTranslationType(),
+                targetTranslation.getFormat(),
+                targetTranslation.numFinished(),
+                lastModified);
+    }
+
+    /**
+     * Returns the target language of the translation
+     * @return
+     */
+    public TargetLanguage getTargetLanguage() {
+        return new TargetLanguage(targetLanguageId, targetLanguageName, "", targetLanguageDirection, targetLanguageRegion, false);
+    }
+
+    /**
+     * Returns the summary as json
+     * @return
+     * @throws JSONException
+     */
+    public JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("id", id);
+        json.put("target_language_id", targetLanguageId);
+        json.put("target_language_name", targetLanguageName);
+        json.put("target_language_direction", targetLanguageDirection);
+        json.put("target_language_region", targetLanguageRegion);
+        json.put("project_id", projectId);
+        json.put("resource_slug", resourceSlug);
+        json.put("resource_type", resourceType != null ? resourceType.getId() : null);
+        json.put("format", format != null ? format.getName() : null);
+        json.put("finished", numFinished);
+        json.put("modified", lastModified);
+        return json;
+    }
+
+    /**
+     * Loads a summary from json
+     * @param json
+     * @return
+     * @throws JSONException
+     */
+    public static TargetTranslationSummary fromJson(JSONObject json) throws JSONException {
+        return new TargetTranslationSummary(json.getString("id"),
+                json.getString("target_language_id"),
+                json.getString("target_language_name"),
+                json.optString("target_language_direction", "ltr"),
+                json.optString("target_language_region", "unknown"),
+                json.getString("project_id"),
+                json.isNull("resource_slug") ? null : json.optString("resource_slug", null),
+                ResourceType.get(json.optString("resource_type", null)),
+                TranslationFormat.get(json.optString("format", null)),
+                json.optInt("finished", 0),
+                json.getLong("modified"));
+    }
+}
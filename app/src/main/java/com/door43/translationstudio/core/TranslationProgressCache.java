@@ -0,0 +1,116 @@
+package com.door43.translationstudio.core;
+
+import com.door43.translationstudio.App;
+
+import org.unfoldingword.door43client.Door43Client;
+import org.unfoldingword.door43client.models.Translation;
+import org.unfoldingword.resourcecontainer.ResourceContainer;
+import org.unfoldingword.tools.logger.Logger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provides a cache of the number of chunks in the source of each project.
+ * Counts are keyed by resource container since each resource may chunk the project differently.
+ * This allows us to calculate the progress of a target translation from its finished count
+ * without opening a source container every time.
+ */
+public class TranslationProgressCache {
+    private static final String TAG = TranslationProgressCache.class.getName();
+
+    /**
+     * A map of resource container slugs to the number of chunks in the container
+     */
+    private Map<String, Integer> sourceChunkCounts = new ConcurrentHashMap<>();
+
+    /**
+     * A map of project ids to the slug of the resource container that was counted for the project
+     */
+    private Map<String, String> sourceSlugs = new ConcurrentHashMap<>();
+
+    private static TranslationProgressCache sInstance = null;
+
+    static {
+        sInstance = new TranslationProgressCache();
+    }
+
+    /**
+     * Empties the cache
+     */
+    public static void empty() {
+        sInstance.sourceChunkCounts.clear();
+        sInstance.sourceSlugs.clear();
+    }
+
+    /**
+     * Removes the count of a resource container from the cache
+     * @param resourceContainerSlug
+     */
+    public static void remove(String resourceContainerSlug) {
+        sInstance.sourceChunkCounts.remove(resourceContainerSlug);
+    }
+
+    /**
+     * Returns the cached number of chunks in the source of the project
+     * @param projectId
+     * @return null if the project has not been counted yet
+     */
+    public static Integer getSourceChunkCount(String projectId) {
+        String slug = sInstance.sourceSlugs.get(projectId);
+        if(slug == null) return null;
+        return sInstance.sourceChunkCounts.get(slug);
+    }
+
+    /**
+     * Counts the number of chunks in the source of the project.
+     * The count is cached so the source is only opened once.
+     *
+     * @param library
+     * @param projectId
+     * @return the number of chunks or 0 if there is no source available
+     */
+    public static int countSourceChunks(Door43Client library, String projectId) {
+        Integer count = getSourceChunkCount(projectId);
+        if(count != null) return count;
+
+        // find matching source
+        List<Translation> sourceTranslations = library.index.findTranslations(null, projectId, null, "book", null, App.MIN_CHECKING_LEVEL, -1);
+        if(sourceTranslations.size() == 0) return 0;
+        String slug = sourceTranslations.get(0).resourceContainerSlug;
+        sInstance.sourceSlugs.put(projectId, slug);
+        count = sInstance.sourceChunkCounts.get(slug);
+        if(count != null) return count;
+
+        // load source
+        ResourceContainer container;
+        try {
+            container = library.open(slug);
+        } catch (Exception e) {
+            Logger.w(TAG, "Failed to open the source for " + projectId, e);
+            return 0;
+        }
+
+        // count chunks
+        count = 0;
+        for(String chapterSlug:container.chapters()) {
+            count += container.chunks(chapterSlug).length;
+        }
+        sInstance.sourceChunkCounts.put(slug, count);
+        return count;
+    }
+
+    /**
+     * Calculates the progress of a target translation
+     * @param numFinished the number of finished chunks in the target translation
+     * @param numSourceChunks the number of chunks in the source
+     * @return the progress as a percent value between 0 and 1
+     */
+    public static double calculate(int numFinished, int numSourceChunks) {
+        if(numSourceChunks <= 0) return 0.0;
+        double progress = (double)numFinished / (double)numSourceChunks;
+        // correct invalid values
+        return Math.min(progress, 1.0);
+    }
+}
@@ -10,9 +10,14 @@ import org.unfoldingword.door43client.models.TargetLanguage;
 import org.unfoldingword.resourcecontainer.ResourceContainer;
 import org.unfoldingword.tools.logger.Logger;
 
+import com.door43.translationstudio.App;
+import com.door43.translationstudio.git.BundleSync;
+import com.door43.translationstudio.git.RepoCache;
 import com.door43.translationstudio.rendering.USXtoUSFMConverter;
 import com.door43.translationstudio.tasks.PrintPDFTask;
+import com.door43.util.ArchiveWriter;
 import com.door43.util.FileUtilities;
+import com.door43.util.Manifest;
 import com.door43.util.Zip;
 
 import org.json.JSONArray;
@@ -39,14 +44,17 @@ public class Translator {
     private static final String GENERATOR_NAME = "ts-android";
     public static final String ARCHIVE_EXTENSION = "tstudio";
     public static final String TAG = Translator.class.getName();
+    private static final int ARCHIVE_BUFFER_SIZE = 64 * 1024;
 
     private final File mRootDir;
     private final Context mContext;
+    private final TargetTranslationCatalog mCatalog;
     private Profile profile;
 
     public Translator(Context context, Profile profile, File rootDir) {
         mContext = context;
         mRootDir = rootDir;
+        mCatalog = new TargetTranslationCatalog(rootDir);
         this.profile = profile;
     }
 
@@ -59,25 +67,13 @@ public class Translator {
     }
 
     /**
-     * Returns an array of all active translations
+     * Returns summaries of all active translations.
+     * The manifests are not opened unless they have changed since they were last cataloged.
      * @return
      */
-    public TargetTranslation[] getTargetTranslations() {
-        final List<TargetTranslation> translations = new ArrayList<>();
-        mRootDir.list(new FilenameFilter() {
-            @Override
-            public boolean accept(File dir, String filename) {
-                if(!filename.equalsIgnoreCase("cache") && new File(dir, filename).isDirectory()) {
-                    TargetTranslation translation = getTargetTranslation(filename);
-                    if (translation != null) {
-                        translations.add(translation);
-                    }
-                }
-                return false;
-            }
-        });
-
-        return translations.toArray(new TargetTranslation[translations.size()]);
+    public TargetTranslationSummary[] getTargetTranslationSummaries() {
+        List<TargetTranslationSummary> summaries = mCatalog.getSummaries();
+        return summaries.toArray(new TargetTranslationSummary[summaries.size()]);
     }
 
     /**
@@ -85,21 +81,12 @@ public class Translator {
      * @return
      */
     public String[] getTargetTranslationIDs() {
-        final List<String> translations = new ArrayList<>();
-        mRootDir.list(new FilenameFilter() {
-            @Override
-            public boolean accept(File dir, String filename) {
-                if(!filename.equalsIgnoreCase("cache") && new File(dir, filename).isDirectory()) {
-                    TargetTranslation translation = getTargetTranslation(filename);
-                    if (translation != null) {
-                        translations.add(translation.getId());
-                    }
-                }
-                return false;
-            }
-        });
-
-        return translations.toArray(new String[translations.size()]);
+        List<TargetTranslationSummary> summaries = mCatalog.getSummaries();
+        String[] ids = new String[summaries.size()];
+        for(int i = 0; i < ids.length; i ++) {
+            ids[i] = summaries.get(i).id;
+        }
+        return ids;
     }
 
     /**
@@ -154,7 +141,9 @@ public class Translator {
             File targetTranslationDir = new File(this.mRootDir, targetTranslationId);
             try {
                 PackageInfo pInfo = mContext.getPackageManager().getPackageInfo(mContext.getPackageName(), 0);
-                return TargetTranslation.create(this.mContext, nativeSpeaker, translationFormat, targetLanguage, projectSlug, resourceType, resourceSlug, pInfo, targetTranslationDir);
+                targetTranslation = TargetTranslation.create(this.mContext, nativeSpeaker, translationFormat, targetLanguage, projectSlug, resourceType, resourceSlug, pInfo, targetTranslationDir);
+                mCatalog.update(targetTranslation);
+                return targetTranslation;
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -196,7 +185,12 @@ public class Translator {
     public void deleteTargetTranslation(String targetTranslationId) {
         if(targetTranslationId != null) {
             File targetTranslationDir = new File(mRootDir, targetTranslationId);
+            Manifest.flushPending(targetTranslationDir);
+            RepoCache.close(targetTranslationDir);
             FileUtilities.safeDelete(targetTranslationDir);
+            mCatalog.remove(targetTranslationId);
+            // TRICKY: a new target translation with the same id must not be mistaken for being backed up
+            App.getBackupLedger().remove(targetTranslationId);
         }
     }
 
@@ -298,12 +292,20 @@ public class Translator {
      * @param outputFile
      */
     public void exportArchive(TargetTranslation targetTranslation, File outputFile) throws Exception {
+        exportArchive(targetTranslation, outputFile, null);
+    }
 
-        BufferedOutputStream out = null;
+    /**
+     * Exports a single target translation in .tstudio format to File
+     * @param targetTranslation
+     * @param outputFile
+     * @param listener receives progress updates. May be null
+     */
+    public void exportArchive(TargetTranslation targetTranslation, File outputFile, ArchiveWriter.OnProgressListener listener) throws Exception {
+        OutputStream out = null;
         try {
-            FileOutputStream fout = new FileOutputStream(outputFile);
-            out = new BufferedOutputStream(fout);
-            exportArchive(targetTranslation, out, outputFile.toString());
+            out = new FileOutputStream(outputFile);
+            exportArchive(targetTranslation, out, outputFile.toString(), listener);
         } catch (Exception e) {
             throw e;
         } finally {
@@ -317,6 +319,18 @@ public class Translator {
      * @param out
      */
     public void exportArchive(TargetTranslation targetTranslation, OutputStream out, String fileName) throws Exception {
+        exportArchive(targetTranslation, out, fileName, null);
+    }
+
+    /**
+     * Exports a single target translation in .tstudio format to OutputStream.
+     * The archive is streamed directly to the output without being staged on the disk.
+     * @param targetTranslation
+     * @param out
+     * @param fileName
+     * @param listener receives progress updates. May be null
+     */
+    public void exportArchive(TargetTranslation targetTranslation, OutputStream out, String fileName, ArchiveWriter.OnProgressListener listener) throws Exception {
         if(!FileUtilities.getExtension(fileName).toLowerCase().equals(ARCHIVE_EXTENSION)) {
             throw new Exception("Output file must have '" + ARCHIVE_EXTENSION + "' extension");
         }
@@ -325,25 +339,29 @@ public class Translator {
         }
 
         try {
-            targetTranslation.commitSync(".", false);
+            targetTranslation.commitDirtySync(false);
         } catch (Exception e) {
             // it's not the end of the world if we cannot commit.
             e.printStackTrace();
         }
 
         JSONObject manifestJson = buildArchiveManifest(targetTranslation);
-        File tempCache = new File(getLocalCacheDir(), System.currentTimeMillis()+"");
+        File targetTranslationDir = targetTranslation.getPath();
         try {
-            tempCache.mkdirs();
-            File manifestFile = new File(tempCache, "manifest.json");
-            manifestFile.createNewFile();
-            FileUtilities.writeStringToFile(manifestFile, manifestJson.toString());
-            Zip.zipToStream(new File[]{manifestFile, targetTranslation.getPath()}, out);
+            ArchiveWriter writer = new ArchiveWriter(new BufferedOutputStream(out, ARCHIVE_BUFFER_SIZE));
+            // git objects are already compressed
+            writer.setStoreCompressedFiles(true);
+            byte[] manifestBytes = manifestJson.toString().getBytes();
+            if(listener != null) {
+                writer.setOnProgressListener(listener, manifestBytes.length + ArchiveWriter.sizeOf(targetTranslationDir));
+            }
+            writer.putEntry("manifest.json", manifestBytes);
+            writer.putFile(targetTranslationDir, targetTranslationDir.getName());
+            writer.close();
         } catch (Exception e) {
             throw e;
         } finally {
             FileUtilities.closeQuietly(out);
-            FileUtilities.deleteQuietly(tempCache);
         }
     }
 
@@ -433,6 +451,32 @@ public class Translator {
         return importArchive( in, false);
     }
 
+    /**
+     * Merges a git bundle sent by a peer into an existing target translation.
+     * See {@link BundleSync}
+     * @param targetTranslationId the target translation the bundle belongs to
+     * @param in the bundle stream
+     * @return ImportResults object
+     * @throws Exception
+     */
+    public ImportResults importBundle(String targetTranslationId, InputStream in) throws Exception {
+        TargetTranslation localTargetTranslation = getTargetTranslation(targetTranslationId);
+        if(localTargetTranslation == null) {
+            throw new Exception("Cannot merge a bundle into a missing target translation: " + targetTranslationId);
+        }
+        boolean mergeConflict;
+        try {
+            mergeConflict = !localTargetTranslation.mergeBundle(in);
+        } finally {
+            FileUtilities.closeQuietly(in);
+        }
+        // update the generator info. TRICKY: we re-open to get the updated manifest.
+        TargetTranslation importedTargetTranslation = TargetTranslation.open(localTargetTranslation.getPath());
+        TargetTranslation.updateGenerator(mContext, importedTargetTranslation);
+        mCatalog.update(importedTargetTranslation);
+        return new ImportResults(targetTranslationId, mergeConflict, true);
+    }
+
     /**
      * Imports a tstudio archive from an input stream
      * @param in
@@ -475,11 +519,17 @@ public class Translator {
                         }
                     }  else {
                         // import new translation
+                        Manifest.flushPending(localDir);
+                        Manifest.flushPending(newDir);
+                        RepoCache.close(localDir);
+                        RepoCache.close(newDir);
                         FileUtilities.safeDelete(localDir); // in case local was an invalid target translation
                         FileUtilities.moveOrCopyQuietly(newDir, localDir);
                     }
                     // update the generator info. TRICKY: we re-open to get the updated manifest.
-                    TargetTranslation.updateGenerator(mContext, TargetTranslation.open(localDir));
+                    TargetTranslation importedTargetTranslation = TargetTranslation.open(localDir);
+                    TargetTranslation.updateGenerator(mContext, importedTargetTranslation);
+                    mCatalog.update(importedTargetTranslation);
 
                     importedSlug = targetTranslationId;
                 }
@@ -556,6 +606,11 @@ public class Translator {
     public void restoreTargetTranslation(TargetTranslation tempTargetTranslation) throws IOException {
         if(tempTargetTranslation != null) {
             File destDir = new File(mRootDir, tempTargetTranslation.getId());
+            tempTargetTranslation.flushManifest();
+            Manifest.flushPending(destDir);
+            Manifest.flushPending(tempTargetTranslation.getPath());
+            RepoCache.close(destDir);
+            RepoCache.close(tempTargetTranslation.getPath());
             FileUtilities.safeDelete(destDir);
             FileUtilities.moveOrCopyQuietly(tempTargetTranslation.getPath(), destDir);
         }
@@ -570,6 +625,10 @@ public class Translator {
         if(!tt.getPath().getName().equals(tt.getId())) {
             File dest = new File(tt.getPath().getParentFile(), tt.getId());
             if(!dest.exists()) {
+                // TRICKY: the manifest may still have a queued write for the old path
+                tt.flushManifest();
+                Manifest.flushPending(tt.getPath());
+                RepoCache.close(tt.getPath());
                 return FileUtilities.moveOrCopyQuietly(tt.getPath(), dest);
             }
         }
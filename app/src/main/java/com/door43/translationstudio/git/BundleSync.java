@@ -0,0 +1,157 @@
+package com.door43.translationstudio.git;
+
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.BundleWriter;
+import org.eclipse.jgit.transport.FetchResult;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.TransportBundleStream;
+import org.eclipse.jgit.transport.URIish;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sends only the commits a peer is missing by exchanging a git bundle.
+ * The receiver advertises the commits it already has and the sender writes a thin bundle
+ * that assumes those commits, so only the missing objects are transferred.
+ */
+public class BundleSync {
+    /**
+     * The ref the bundle is written under
+     */
+    public static final String BUNDLE_REF = Constants.R_HEADS + Constants.MASTER;
+
+    /**
+     * The number of recent commits that are always advertised.
+     * Older commits are advertised at exponentially increasing intervals.
+     */
+    private static final int RECENT_COMMITS = 16;
+    private static final int MAX_HAVES = 64;
+
+    /**
+     * Lists the commits the receiver already has.
+     * All of the recent commits are listed followed by a sparse sample of the older history
+     * so a common ancestor can be found without listing the entire history.
+     *
+     * @param repository
+     * @return a list of commit ids. Empty if the repository has no commits.
+     * @throws IOException
+     */
+    public static List<String> listHaves(Repository repository) throws IOException {
+        ObjectId head = repository.resolve(Constants.HEAD);
+        if(head == null) return Collections.emptyList();
+
+        List<String> haves = new ArrayList<>();
+        RevWalk walk = new RevWalk(repository);
+        try {
+            walk.markStart(walk.parseCommit(head));
+            int index = 0;
+            int step = 1;
+            int next = 0;
+            for(RevCommit commit:walk) {
+                if(index == next) {
+                    haves.add(commit.getName());
+                    if(haves.size() >= MAX_HAVES) break;
+                    if(haves.size() >= RECENT_COMMITS) step *= 2;
+                    next += step;
+                }
+                index ++;
+            }
+        } finally {
+            walk.release();
+        }
+        return haves;
+    }
+
+    /**
+     * Finds the advertised commits that also exist in this repository
+     * @param repository
+     * @param haves the commits advertised by the receiver
+     * @return the common commits
+     * @throws IOException
+     */
+    public static List<ObjectId> findCommon(Repository repository, Collection<String> haves) throws IOException {
+        List<ObjectId> common = new ArrayList<>();
+        RevWalk walk = new RevWalk(repository);
+        try {
+            for(String have:haves) {
+                ObjectId id;
+                try {
+                    id = ObjectId.fromString(have);
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                if(!repository.hasObject(id)) continue;
+                try {
+                    walk.parseCommit(id);
+                    common.add(id);
+                } catch (MissingObjectException | IncorrectObjectTypeException e) {
+                    // not a commit
+                }
+            }
+        } finally {
+            walk.release();
+        }
+        return common;
+    }
+
+    /**
+     * Writes a bundle containing the commits on HEAD that are not reachable from the common commits
+     * @param repository
+     * @param common the commits the receiver already has. See {@link #findCommon(Repository, Collection)}
+     * @param out the bundle is written to this stream
+     * @throws IOException
+     */
+    public static void writeBundle(Repository repository, Collection<ObjectId> common, OutputStream out) throws IOException {
+        ObjectId head = repository.resolve(Constants.HEAD);
+        if(head == null) throw new IOException("The repository does not have any commits");
+
+        BundleWriter writer = new BundleWriter(repository);
+        writer.include(BUNDLE_REF, head);
+        RevWalk walk = new RevWalk(repository);
+        try {
+            for(ObjectId id:common) {
+                writer.assume(walk.parseCommit(id));
+            }
+        } finally {
+            walk.release();
+        }
+        writer.writeBundle(NullProgressMonitor.INSTANCE, out);
+        out.flush();
+    }
+
+    /**
+     * Fetches a bundle into a local branch
+     * @param repository
+     * @param in the bundle stream
+     * @param branch the local branch that will point to the fetched commits
+     * @return the fetched commit
+     * @throws Exception
+     */
+    public static ObjectId fetchBundle(Repository repository, InputStream in, String branch) throws Exception {
+        String localRef = Constants.R_HEADS + branch;
+        TransportBundleStream transport = new TransportBundleStream(repository, new URIish("bundle://peer"), in);
+        try {
+            FetchResult result = transport.fetch(NullProgressMonitor.INSTANCE,
+                    Collections.singletonList(new RefSpec("+" + BUNDLE_REF + ":" + localRef)));
+            if(result.getAdvertisedRef(BUNDLE_REF) == null) {
+                throw new IOException("The bundle does not contain " + BUNDLE_REF);
+            }
+            return repository.resolve(localRef);
+        } finally {
+            transport.close();
+        }
+    }
+}
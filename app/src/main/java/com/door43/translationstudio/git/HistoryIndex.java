@@ -0,0 +1,154 @@
+package com.door43.translationstudio.git;
+
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the commits that touched each file in a repository.
+ * The commit graph is walked once for all paths instead of once per file,
+ * and only the new commits are walked when HEAD moves forward.
+ */
+public class HistoryIndex {
+    private final Map<String, List<RevCommit>> history = new HashMap<>();
+    private ObjectId indexedHead = null;
+
+    /**
+     * Brings the index up to date with the repository HEAD.
+     * This is a no-op if HEAD has not moved since the last update.
+     *
+     * @param repository
+     * @throws IOException
+     */
+    public synchronized void update(Repository repository) throws IOException {
+        ObjectId head = repository.resolve("HEAD");
+        if(head == null) {
+            history.clear();
+            indexedHead = null;
+            return;
+        }
+        if(head.equals(indexedHead)) {
+            return;
+        }
+
+        RevWalk walk = new RevWalk(repository);
+        try {
+            RevCommit headCommit = walk.parseCommit(head);
+            boolean incremental = false;
+            if(indexedHead != null) {
+                try {
+                    RevCommit oldHead = walk.parseCommit(indexedHead);
+                    // TRICKY: after a reset HEAD may no longer descend from what we indexed
+                    incremental = walk.isMergedInto(oldHead, headCommit);
+                    walk.reset();
+                    if(incremental) {
+                        walk.markUninteresting(oldHead);
+                    }
+                } catch (MissingObjectException e) {
+                    // the old head was garbage collected
+                    walk.reset();
+                }
+            }
+            walk.sort(RevSort.TOPO);
+            walk.markStart(headCommit);
+
+            Map<String, List<RevCommit>> newHistory = index(repository, walk);
+            if(incremental) {
+                // new commits go in front of the commits we already know about
+                for(Map.Entry<String, List<RevCommit>> entry:history.entrySet()) {
+                    List<RevCommit> commits = newHistory.get(entry.getKey());
+                    if(commits == null) {
+                        newHistory.put(entry.getKey(), entry.getValue());
+                    } else {
+                        commits.addAll(entry.getValue());
+                    }
+                }
+            }
+            history.clear();
+            history.putAll(newHistory);
+            indexedHead = head.copy();
+        } finally {
+            walk.release();
+        }
+    }
+
+    /**
+     * Walks the commits and records which paths each one changed
+     * @param repository
+     * @param walk a prepared walk. Commits are returned newest first
+     * @return
+     * @throws IOException
+     */
+    private static Map<String, List<RevCommit>> index(Repository repository, RevWalk walk) throws IOException {
+        Map<String, List<RevCommit>> index = new HashMap<>();
+        TreeWalk treeWalk = new TreeWalk(repository);
+        treeWalk.setRecursive(true);
+        try {
+            for(RevCommit commit:walk) {
+                RevCommit[] parents = commit.getParents();
+                treeWalk.reset();
+                treeWalk.addTree(commit.getTree());
+                for(RevCommit parent:parents) {
+                    treeWalk.addTree(walk.parseCommit(parent).getTree());
+                }
+                // root commits introduce every path
+                treeWalk.setFilter(parents.length == 0 ? TreeFilter.ALL : TreeFilter.ANY_DIFF);
+                while(treeWalk.next()) {
+                    if(changedFromAllParents(treeWalk, parents.length)) {
+                        String path = treeWalk.getPathString();
+                        List<RevCommit> commits = index.get(path);
+                        if(commits == null) {
+                            commits = new ArrayList<>();
+                            index.put(path, commits);
+                        }
+                        commits.add(commit);
+                    }
+                }
+            }
+        } finally {
+            treeWalk.release();
+        }
+        return index;
+    }
+
+    /**
+     * Checks if the current entry differs from every parent.
+     * Like git log, merges are only attributed to a path if they did not take it unchanged from a parent.
+     * @param treeWalk
+     * @param numParents
+     * @return
+     */
+    private static boolean changedFromAllParents(TreeWalk treeWalk, int numParents) {
+        for(int i = 1; i <= numParents; i ++) {
+            if(treeWalk.idEqual(0, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the commits that changed the path, newest first
+     * @param path the path relative to the repository root
+     * @return
+     */
+    public synchronized List<RevCommit> getHistory(String path) {
+        List<RevCommit> commits = history.get(path);
+        if(commits == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(commits);
+    }
+}
@@ -12,16 +12,24 @@ import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.JGitInternalException;
 import org.eclipse.jgit.errors.LockFailedException;
 import org.eclipse.jgit.lib.StoredConfig;
+import org.unfoldingword.tools.logger.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
  * Created by joel on 9/15/2014.
  */
 public class Repo {
+    private static final String TAG = Repo.class.getSimpleName();
+    /**
+     * The file within the git directory where the dirty paths are kept while the repository is closed
+     */
+    private static final String DIRTY_PATHS_FILE = "tstudio_dirty_paths";
     private static int numRepos;
     private static SparseArray<RepoOpTask> mRepoTasks = new SparseArray<RepoOpTask>();
 
@@ -30,6 +38,16 @@ public class Repo {
     private String mLocalPath;
     private StoredConfig mStoredConfig;
     private Set<String> mRemotes = new HashSet<String>();
+    private Set<String> mDirtyPaths = new LinkedHashSet<>();
+    /**
+     * Whether the dirty paths are known to include every change since the last commit.
+     * The journal is incomplete when the app was killed before it could be saved.
+     */
+    private boolean mJournalComplete = false;
+    private boolean mJournalSaved = false;
+    private HistoryIndex mHistoryIndex = null;
+    private int mLeases = 0;
+    private long mLastUsed = System.currentTimeMillis();
 
     /**
      * Creates a new repository instance
@@ -53,6 +71,7 @@ public class Repo {
         if(!gitPath.exists()) {
             initRepo();
         }
+        loadDirtyPaths();
     }
 
     /**
@@ -86,7 +105,8 @@ public class Repo {
         return new File(getLocalPath());
     }
 
-    public Git getGit() throws IOException {
+    public synchronized Git getGit() throws IOException {
+        mLastUsed = System.currentTimeMillis();
         if (mGit != null) {
             return mGit;
         } else {
@@ -96,6 +116,175 @@ public class Repo {
         }
     }
 
+    /**
+     * Marks the repository as in use so it will not be closed while idle.
+     * Every call must be paired with a call to {@link #release()}
+     */
+    public synchronized void acquire() {
+        mLeases ++;
+        mLastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * Releases a lease on the repository
+     */
+    public synchronized void release() {
+        if(mLeases > 0) {
+            mLeases --;
+        }
+        mLastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * Checks if the repository has been open without any leases for longer than the timeout
+     * @param timeout the idle timeout in milliseconds
+     * @return
+     */
+    public synchronized boolean isIdle(long timeout) {
+        return mGit != null && mLeases == 0 && mDirtyPaths.isEmpty()
+                && System.currentTimeMillis() - mLastUsed > timeout;
+    }
+
+    /**
+     * Records paths that have changed in the working tree since the last commit
+     * @param paths paths relative to the repository directory
+     */
+    public synchronized void addDirtyPaths(Collection<String> paths) {
+        invalidateSavedJournal();
+        mDirtyPaths.addAll(paths);
+    }
+
+    /**
+     * Records a path that has changed in the working tree since the last commit
+     * @param path a path relative to the repository directory
+     */
+    public synchronized void addDirtyPath(String path) {
+        invalidateSavedJournal();
+        mDirtyPaths.add(path);
+    }
+
+    /**
+     * Checks if the dirty paths include every change made since the last commit.
+     * When this is false the whole working tree must be staged to be sure nothing is missed.
+     * @return
+     */
+    public synchronized boolean isJournalComplete() {
+        return mJournalComplete;
+    }
+
+    /**
+     * Records that the working tree has been fully committed so the dirty paths can be trusted again
+     */
+    public synchronized void markJournalComplete() {
+        mJournalComplete = true;
+    }
+
+    /**
+     * Deletes the saved journal once it is out of date
+     * so it cannot be mistaken for a complete journal if the app is killed.
+     */
+    private void invalidateSavedJournal() {
+        if(mJournalSaved) {
+            mJournalSaved = false;
+            new File(getDir(), ".git/" + DIRTY_PATHS_FILE).delete();
+        }
+    }
+
+    /**
+     * Returns the recorded dirty paths and clears the journal
+     * @return
+     */
+    public synchronized Set<String> takeDirtyPaths() {
+        Set<String> paths = mDirtyPaths;
+        mDirtyPaths = new LinkedHashSet<>();
+        return paths;
+    }
+
+    /**
+     * Returns the file history index for this repository.
+     * The index is brought up to date with HEAD before it is returned.
+     * @return
+     * @throws IOException
+     */
+    public HistoryIndex getHistoryIndex() throws IOException {
+        HistoryIndex index;
+        synchronized (this) {
+            if(mHistoryIndex == null) {
+                mHistoryIndex = new HistoryIndex();
+            }
+            index = mHistoryIndex;
+        }
+        index.update(getGit().getRepository());
+        return index;
+    }
+
+    /**
+     * Closes the underlying git repository.
+     * The repository will be re-opened the next time it is used.
+     */
+    public synchronized void close() {
+        saveDirtyPaths();
+        if(mGit != null) {
+            mGit.getRepository().close();
+            mGit = null;
+        }
+        mHistoryIndex = null;
+        mStoredConfig = null;
+        mRemotes.clear();
+    }
+
+    /**
+     * Writes the dirty paths into the git directory so they are not lost when the repository is closed.
+     * An empty journal is saved as well so the next session knows there is nothing left to commit.
+     * TRICKY: the journal travels with the directory when it is moved.
+     */
+    private void saveDirtyPaths() {
+        File file = new File(getDir(), ".git/" + DIRTY_PATHS_FILE);
+        if(!mJournalComplete) {
+            // TRICKY: an incomplete journal is not saved so the next full commit will pick up everything
+            if(file.exists()) {
+                file.delete();
+            }
+            return;
+        }
+        if(!file.getParentFile().isDirectory()) {
+            // the repository has been deleted
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        for(String path:mDirtyPaths) {
+            builder.append(path).append("\n");
+        }
+        try {
+            FileUtilities.writeStringToFile(file, builder.toString());
+            mJournalSaved = true;
+        } catch (IOException e) {
+            Logger.w(TAG, "Failed to save the dirty paths of " + mLocalPath, e);
+        }
+    }
+
+    /**
+     * Restores the dirty paths that were saved when the repository was last closed.
+     * TRICKY: the saved journal is deleted once it is loaded so it is missing if the app is killed before the next save.
+     */
+    private void loadDirtyPaths() {
+        File file = new File(getDir(), ".git/" + DIRTY_PATHS_FILE);
+        if(!file.exists()) {
+            return;
+        }
+        try {
+            for(String path:FileUtilities.readFileToString(file).split("\n")) {
+                if(!path.isEmpty()) {
+                    mDirtyPaths.add(path);
+                }
+            }
+            mJournalComplete = true;
+        } catch (IOException e) {
+            Logger.w(TAG, "Failed to load the dirty paths of " + mLocalPath, e);
+        }
+        file.delete();
+    }
+
     /**
      * Returns the local path to the repository
      * @return
@@ -173,9 +362,10 @@ public class Repo {
     public void deleteRemote(String remote) throws IOException {
         StoredConfig config = getStoredConfig();
         config.unsetSection("remote", remote);
+        mRemotes.remove(remote);
     }
 
-    public StoredConfig getStoredConfig() throws IOException {
+    public synchronized StoredConfig getStoredConfig() throws IOException {
         if (mStoredConfig == null) {
             mStoredConfig = getGit().getRepository().getConfig();
         }
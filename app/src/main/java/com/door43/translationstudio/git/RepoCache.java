@@ -0,0 +1,113 @@
+package com.door43.translationstudio.git;
+
+import org.unfoldingword.tools.logger.Logger;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Provides a process wide cache of open repositories.
+ * Opening a repository reads the git config, refs and pack indexes so we keep them open
+ * between operations and close them once they have been idle for a while.
+ */
+public class RepoCache {
+    private static final String TAG = RepoCache.class.getSimpleName();
+
+    /**
+     * How long a repository may sit unused before it is closed
+     */
+    private static final long IDLE_TIMEOUT = 5 * 60 * 1000;
+
+    /**
+     * A map of open repositories keyed by their absolute path
+     */
+    private final Map<String, Repo> repos = new HashMap<>();
+
+    private static RepoCache sInstance = null;
+
+    static {
+        sInstance = new RepoCache();
+    }
+
+    /**
+     * Returns the cached repository for the directory or opens a new one.
+     * Repositories that have been idle for too long will be closed.
+     *
+     * @param directory the repository directory (not including the .git directory)
+     * @return
+     */
+    public static Repo get(File directory) {
+        String key = directory.getAbsolutePath();
+        synchronized (sInstance) {
+            evictIdle();
+            Repo repo = sInstance.repos.get(key);
+            if(repo != null && !new File(directory, ".git").exists()) {
+                // the repository was removed out from under us
+                repo.close();
+                repo = null;
+            }
+            if(repo == null) {
+                repo = new Repo(key);
+                sInstance.repos.put(key, repo);
+            }
+            return repo;
+        }
+    }
+
+    /**
+     * Closes and removes the repository from the cache.
+     * This should be called before a repository is deleted or replaced.
+     *
+     * @param directory the repository directory (not including the .git directory)
+     */
+    public static void close(File directory) {
+        if(directory == null) return;
+        Repo repo;
+        synchronized (sInstance) {
+            repo = sInstance.repos.remove(directory.getAbsolutePath());
+        }
+        if(repo != null) {
+            repo.close();
+        }
+    }
+
+    /**
+     * Closes all of the repositories that have been idle longer than the timeout.
+     * Repositories that are leased will not be closed.
+     */
+    public static void evictIdle() {
+        evictIdle(IDLE_TIMEOUT);
+    }
+
+    /**
+     * Closes all of the repositories that have been idle longer than the timeout
+     * @param timeout the idle timeout in milliseconds
+     */
+    static void evictIdle(long timeout) {
+        synchronized (sInstance) {
+            Iterator<Map.Entry<String, Repo>> it = sInstance.repos.entrySet().iterator();
+            while(it.hasNext()) {
+                Repo repo = it.next().getValue();
+                if(repo.isIdle(timeout)) {
+                    repo.close();
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes all of the cached repositories
+     */
+    public static void closeAll() {
+        synchronized (sInstance) {
+            for(Repo repo:sInstance.repos.values()) {
+                repo.close();
+            }
+            Logger.i(TAG, "Closed " + sInstance.repos.size() + " repositories");
+            sInstance.repos.clear();
+        }
+    }
+}
@@ -33,11 +33,12 @@ public class Connection {
     }
 
     /**
-     * Writes a string message to the socket
+     * Writes a string message to the socket.
+     * This is synchronized so messages written from several threads are not interleaved.
      * @param message
      * @throws IOException
      */
-    public void write(String message) {
+    public synchronized void write(String message) {
         try {
             mWriter.write(message);
             mWriter.newLine();
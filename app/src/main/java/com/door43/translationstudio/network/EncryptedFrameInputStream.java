@@ -0,0 +1,102 @@
+package com.door43.translationstudio.network;
+
+import com.tozny.crypto.android.AesCbcWithIntegrity;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+
+/**
+ * Decrypts and authenticates a stream written by {@link EncryptedFrameOutputStream}
+ */
+public class EncryptedFrameInputStream extends InputStream {
+    /**
+     * The largest block we will accept. This protects us from allocating huge buffers for a corrupt stream
+     */
+    private static final int MAX_BLOCK_SIZE = EncryptedFrameOutputStream.FRAME_SIZE + 1024;
+
+    private final DataInputStream in;
+    private final AesCbcWithIntegrity.SecretKeys key;
+    private byte[] frame = new byte[0];
+    private int position = 0;
+    private long sequence = 0;
+    private boolean finished = false;
+
+    /**
+     * @param in the stream of encrypted frames
+     * @param key the session key
+     */
+    public EncryptedFrameInputStream(InputStream in, AesCbcWithIntegrity.SecretKeys key) {
+        this.in = new DataInputStream(in);
+        this.key = key;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if(!fill()) return -1;
+        return frame[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if(length == 0) return 0;
+        if(!fill()) return -1;
+        int n = Math.min(length, frame.length - position);
+        System.arraycopy(frame, position, buffer, offset, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return frame.length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads the next frame if the current one has been consumed
+     * @return false if the end of the stream was reached
+     * @throws IOException
+     */
+    private boolean fill() throws IOException {
+        while(position >= frame.length) {
+            if(finished) return false;
+            byte[] iv = readBlock();
+            byte[] mac = readBlock();
+            byte[] cipherText = readBlock();
+            byte[] plaintext;
+            try {
+                plaintext = AesCbcWithIntegrity.decrypt(new AesCbcWithIntegrity.CipherTextIvMac(cipherText, iv, mac), key);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Failed to authenticate the frame", e);
+            }
+            if(plaintext.length < 8) throw new IOException("Invalid frame");
+            long seq = 0;
+            for(int i = 0; i < 8; i ++) {
+                seq = (seq << 8) | (plaintext[i] & 0xff);
+            }
+            if(seq != sequence++) throw new IOException("Frame out of sequence");
+
+            if(plaintext.length == 8) {
+                finished = true;
+                return false;
+            }
+            frame = plaintext;
+            position = 8;
+        }
+        return true;
+    }
+
+    private byte[] readBlock() throws IOException {
+        int length = in.readInt();
+        if(length < 0 || length > MAX_BLOCK_SIZE) throw new IOException("Invalid block size " + length);
+        byte[] block = new byte[length];
+        in.readFully(block);
+        return block;
+    }
+}
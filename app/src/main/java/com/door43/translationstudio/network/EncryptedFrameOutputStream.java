@@ -0,0 +1,101 @@
+package com.door43.translationstudio.network;
+
+import com.tozny.crypto.android.AesCbcWithIntegrity;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+
+/**
+ * Encrypts a stream in authenticated frames using a session key.
+ * Each frame is prefixed with a sequence number before it is encrypted so frames cannot be reordered or replayed
+ * and the stream is terminated with an empty frame so truncation can be detected.
+ * See {@link EncryptedFrameInputStream}
+ */
+public class EncryptedFrameOutputStream extends OutputStream {
+    public static final int FRAME_SIZE = 64 * 1024;
+
+    private final DataOutputStream out;
+    private final AesCbcWithIntegrity.SecretKeys key;
+    private final byte[] buffer = new byte[FRAME_SIZE];
+    private int count = 0;
+    private long sequence = 0;
+    private boolean closed = false;
+
+    /**
+     * @param out the stream that will receive the encrypted frames
+     * @param key the session key
+     */
+    public EncryptedFrameOutputStream(OutputStream out, AesCbcWithIntegrity.SecretKeys key) {
+        this.out = new DataOutputStream(out);
+        this.key = key;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if(count == buffer.length) writeFrame();
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        while(length > 0) {
+            if(count == buffer.length) writeFrame();
+            int n = Math.min(length, buffer.length - count);
+            System.arraycopy(data, offset, buffer, count, n);
+            count += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if(count > 0) writeFrame();
+        out.flush();
+    }
+
+    /**
+     * Writes the final frame and closes the underlying stream
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if(closed) return;
+        closed = true;
+        try {
+            if(count > 0) writeFrame();
+            // an empty frame marks the end of the stream
+            writeFrame();
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeFrame() throws IOException {
+        byte[] plaintext = new byte[8 + count];
+        long seq = sequence++;
+        for(int i = 0; i < 8; i ++) {
+            plaintext[i] = (byte) (seq >>> (56 - i * 8));
+        }
+        System.arraycopy(buffer, 0, plaintext, 8, count);
+        count = 0;
+
+        AesCbcWithIntegrity.CipherTextIvMac civ;
+        try {
+            civ = AesCbcWithIntegrity.encrypt(plaintext, key);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to encrypt the frame", e);
+        }
+        writeBlock(civ.getIv());
+        writeBlock(civ.getMac());
+        writeBlock(civ.getCipherText());
+    }
+
+    private void writeBlock(byte[] block) throws IOException {
+        out.writeInt(block.length);
+        out.write(block);
+    }
+}
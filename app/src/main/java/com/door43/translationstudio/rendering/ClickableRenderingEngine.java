@@ -56,5 +56,24 @@ public abstract class ClickableRenderingEngine extends RenderingEngine {
     public abstract CharSequence getLeadingMajorSectionHeading(CharSequence in);
 
     public abstract boolean isAddedMissingVerse();
-}
 
+    /**
+     * Builds the cache key for a clickable engine's options
+     * @return
+     */
+    protected String makeCacheKey(boolean verses, boolean linebreaks, String search, int highlightColor, int[] verseRange, boolean suppressLeadingMajorSectionHeadings) {
+        StringBuilder key = new StringBuilder(getClass().getName());
+        key.append(verses ? ":v" : ":-")
+                .append(linebreaks ? "l" : "-")
+                .append(suppressLeadingMajorSectionHeadings ? "s" : "-");
+        if(search != null) {
+            key.append(":").append(highlightColor).append(":").append(search);
+        }
+        if(verseRange != null) {
+            for(int verse:verseRange) {
+                key.append(":").append(verse);
+            }
+        }
+        return key.toString();
+    }
+}
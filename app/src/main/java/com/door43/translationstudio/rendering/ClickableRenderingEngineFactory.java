@@ -8,6 +8,17 @@ import com.door43.translationstudio.ui.spannables.Span;
  */
 public class ClickableRenderingEngineFactory {
 
+    private static boolean sUseLegacyUSFMRenderer = false;
+
+    /**
+     * Switches USFM rendering back to the regex based {@link USFMRenderer}.
+     * By default the single pass {@link USFMTokenRenderer} is used.
+     * @param useLegacy
+     */
+    public static void setUseLegacyUSFMRenderer(boolean useLegacy) {
+        sUseLegacyUSFMRenderer = useLegacy;
+    }
+
     /**
      * create appropriate rendering engine for format and add click listeners
      * @param format
@@ -25,7 +36,11 @@ public class ClickableRenderingEngineFactory {
         }
 
         if(format == TranslationFormat.USFM) {
-            renderer = new USFMRenderer(verseClickListener, noteClickListener);
+            if(sUseLegacyUSFMRenderer) {
+                renderer = new USFMRenderer(verseClickListener, noteClickListener);
+            } else {
+                renderer = new USFMTokenRenderer(verseClickListener, noteClickListener);
+            }
         } if(format == TranslationFormat.USX)  {
             renderer = new USXRenderer(verseClickListener, noteClickListener);
         }
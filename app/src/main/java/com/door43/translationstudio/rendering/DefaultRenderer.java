@@ -62,6 +62,11 @@ public class DefaultRenderer extends RenderingEngine {
         return out;
     }
 
+    @Override
+    public String getCacheKey() {
+        return mSearch == null ? super.getCacheKey() : super.getCacheKey() + ":" + mHighlightColor + ":" + mSearch;
+    }
+
     @Override
     public void onStop() {
         if(renderer != null) renderer.stop();
@@ -0,0 +1,171 @@
+package com.door43.translationstudio.rendering;
+
+import android.text.Spanned;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A memory bounded cache of rendered text.
+ * Entries are keyed by the content and the configuration of the rendering engines
+ * and are evicted in least recently used order once the total weight exceeds the limit.
+ *
+ * TRICKY: rendered spans hold on to the click listeners they were rendered with.
+ * Keep the cache with the adapter that supplies those listeners rather than in a static field
+ * so we do not leak activities.
+ */
+public class RenderCache {
+    /**
+     * The approximate cost of a span measured in characters
+     */
+    private static final int SPAN_WEIGHT = 32;
+    public static final int DEFAULT_MAX_WEIGHT = 2 * 1024 * 1024;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxWeight;
+    private long weight = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    public RenderCache() {
+        this(DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * @param maxWeight the maximum combined weight of the cached text. See {@link #weigh(CharSequence)}
+     */
+    public RenderCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Returns the cached rendering
+     * @param key the key generated by {@link #makeKey(String, CharSequence, Iterable)}
+     * @param input the raw input. This guards against hash collisions
+     * @return null if the rendering is not cached
+     */
+    public synchronized Entry get(String key, CharSequence input) {
+        Entry entry = entries.get(key);
+        if(entry != null && entry.input.equals(input.toString())) {
+            hits ++;
+            return entry;
+        }
+        misses ++;
+        return null;
+    }
+
+    /**
+     * Adds a rendering to the cache
+     * @param key
+     * @param input the raw input
+     * @param output the rendered output
+     * @param addedMissingVerse
+     */
+    public synchronized void put(String key, CharSequence input, CharSequence output, boolean addedMissingVerse) {
+        Entry entry = new Entry(input.toString(), output, addedMissingVerse);
+        if(entry.weight > maxWeight) return;
+
+        Entry old = entries.put(key, entry);
+        if(old != null) {
+            weight -= old.weight;
+        }
+        weight += entry.weight;
+
+        // evict the least recently used
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while(weight > maxWeight && it.hasNext()) {
+            weight -= it.next().getValue().weight;
+            it.remove();
+        }
+    }
+
+    /**
+     * Empties the cache
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Returns the fraction of lookups that were found in the cache
+     * @return
+     */
+    public synchronized float getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (float) hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RenderCache{entries=" + entries.size()
+                + ", weight=" + weight + "/" + maxWeight
+                + ", hits=" + hits
+                + ", misses=" + misses + "}";
+    }
+
+    /**
+     * Generates a cache key
+     * @param scope identifies what the rendering belongs to e.g. the chunk.
+     *              Renderings in different scopes will not be shared since they may have different click listeners
+     * @param input the raw input
+     * @param engines the engines that will render the input
+     * @return
+     */
+    public static String makeKey(String scope, CharSequence input, Iterable<RenderingEngine> engines) {
+        StringBuilder key = new StringBuilder();
+        key.append(scope).append('|')
+                .append(input.length()).append(':').append(input.toString().hashCode());
+        for(RenderingEngine engine:engines) {
+            key.append('|').append(engine.getCacheKey());
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns the approximate weight of the text
+     * @param text
+     * @return
+     */
+    public static long weigh(CharSequence text) {
+        long weight = text.length();
+        if(text instanceof Spanned) {
+            weight += ((Spanned) text).getSpans(0, text.length(), Object.class).length * SPAN_WEIGHT;
+        }
+        return weight;
+    }
+
+    /**
+     * A cached rendering
+     */
+    public static class Entry {
+        public final CharSequence output;
+        public final boolean addedMissingVerse;
+        private final String input;
+        private final long weight;
+
+        private Entry(String input, CharSequence output, boolean addedMissingVerse) {
+            this.input = input;
+            this.output = output;
+            this.addedMissingVerse = addedMissingVerse;
+            this.weight = weigh(output) + input.length();
+        }
+    }
+}
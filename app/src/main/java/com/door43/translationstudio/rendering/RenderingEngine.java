@@ -86,6 +86,16 @@ public abstract class RenderingEngine {
         // by default does nothing
     }
 
+    /**
+     * Returns a key that identifies how this engine is configured.
+     * Engines with options that change the output must include them in the key
+     * so cached renderings are not shared between configurations. See {@link RenderCache}
+     * @return
+     */
+    public String getCacheKey() {
+        return getClass().getName();
+    }
+
     /**
      * Called when the engine is stopped.
      * Override this to perform cleanup actions
@@ -11,6 +11,9 @@ public class RenderingGroup {
     private boolean mRunning = false;
     private List<RenderingEngine> mEngines =  new ArrayList<RenderingEngine>();
     private CharSequence mInput;
+    private RenderCache mCache = null;
+    private String mCacheScope = null;
+    private Boolean mCachedAddedMissingVerse = null;
 
     /**
      * Adds a rendering engine to the queue
@@ -33,10 +36,23 @@ public class RenderingGroup {
         }
     }
 
+    /**
+     * Enables caching of the rendered output
+     * @param cache the cache to use or null to disable caching
+     * @param scope identifies what is being rendered e.g. the chunk. See {@link RenderCache#makeKey(String, CharSequence, Iterable)}
+     */
+    public void setCache(RenderCache cache, String scope) {
+        mCache = cache;
+        mCacheScope = scope;
+    }
+
     /**
      * see if missing verse was added
      */
     public boolean isAddedMissingVerse() {
+        if(mCachedAddedMissingVerse != null) {
+            return mCachedAddedMissingVerse;
+        }
         boolean addedMissingVerse = false;
         for (RenderingEngine engine : mEngines) {
             if(engine instanceof ClickableRenderingEngine) {
@@ -80,11 +96,27 @@ public class RenderingGroup {
         if(mRunning || mInput == null) return "";
         mRunning = true;
         mStopped = false;
+        mCachedAddedMissingVerse = null;
+
+        String key = null;
+        if(mCache != null) {
+            key = RenderCache.makeKey(mCacheScope, mInput, mEngines);
+            RenderCache.Entry entry = mCache.get(key, mInput);
+            if(entry != null) {
+                mCachedAddedMissingVerse = entry.addedMissingVerse;
+                mRunning = false;
+                return entry.output;
+            }
+        }
+
         CharSequence rendered = mInput;
         for(RenderingEngine engine:mEngines) {
             if(mStopped) break;
             rendered = engine.render(rendered);
         }
+        if(key != null && !mStopped) {
+            mCache.put(key, mInput, rendered, isAddedMissingVerse());
+        }
         mRunning = false;
         return rendered;
     }
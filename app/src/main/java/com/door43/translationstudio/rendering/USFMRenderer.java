@@ -703,5 +703,9 @@ public class USFMRenderer extends ClickableRenderingEngine {
     public boolean isAddedMissingVerse() {
         return mAddedMissingVerse;
     }
-}
 
+    @Override
+    public String getCacheKey() {
+        return makeCacheKey(mRenderVerses, mRenderLinebreaks, mSearch, mHighlightColor, mExpectedVerseRange, mSuppressLeadingMajorSectionHeadings);
+    }
+}
@@ -0,0 +1,664 @@
+package com.door43.translationstudio.rendering;
+
+import android.graphics.Typeface;
+import android.os.Build;
+import android.text.Layout;
+import android.text.Spannable;
+import android.text.SpannableStringBuilder;
+import android.text.style.AlignmentSpan;
+import android.text.style.BackgroundColorSpan;
+import android.text.style.StyleSpan;
+
+import com.door43.translationstudio.ui.spannables.Span;
+import com.door43.translationstudio.ui.spannables.USFMNoteSpan;
+import com.door43.translationstudio.ui.spannables.USFMVersePinSpan;
+import com.door43.translationstudio.ui.spannables.USFMVerseSpan;
+
+import org.unfoldingword.tools.logger.Logger;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * This is a single pass USFM rendering engine.
+ * Rather than running a separate regular expression over the text for every tag (see {@link USFMRenderer})
+ * the input is scanned once and the spans are appended to a single builder as each tag is found.
+ * The output is the same as {@link USFMRenderer} which is kept as a fallback.
+ */
+public class USFMTokenRenderer extends ClickableRenderingEngine {
+
+    private static final String TAG = USFMTokenRenderer.class.getSimpleName();
+
+    private static final String PARA_OPEN = "<para";
+    private static final String PARA_CLOSE = "</para>";
+
+    private Span.OnClickListener mNoteListener;
+    private Span.OnClickListener mVerseListener;
+    private boolean mRenderLinebreaks = false;
+    private boolean mRenderVerses = true;
+    private String mSearch;
+    private int mHighlightColor = 0;
+    private int[] mExpectedVerseRange = new int[0];
+    private boolean mSuppressLeadingMajorSectionHeadings = false;
+    private boolean mAddedMissingVerse = false;
+
+    // state for the current render
+    private boolean mVersesOnly = false;
+    private Set<Integer> mFoundVerses = new HashSet<>();
+    private int mNextLineBreak = -1;
+    private int mNextPara = -1;
+
+    /**
+     * Creates a new USFM rendering engine without any listeners
+     */
+    public USFMTokenRenderer() {
+
+    }
+
+    /**
+     * Creates a new USFM rendering engine with some custom click listeners
+     * @param verseListener
+     * @param noteListener
+     */
+    public USFMTokenRenderer(Span.OnClickListener verseListener, Span.OnClickListener noteListener) {
+        mVerseListener = verseListener;
+        mNoteListener = noteListener;
+    }
+
+    @Override
+    public void setVersesEnabled(boolean enable) {
+        mRenderVerses = enable;
+    }
+
+    @Override
+    public void setLinebreaksEnabled(boolean enable) {
+        mRenderLinebreaks = enable;
+    }
+
+    @Override
+    public void setSearchString(CharSequence searchString, int highlightColor) {
+        mHighlightColor = highlightColor;
+        if((searchString != null) && (searchString.length() > 0) ) {
+            mSearch = searchString.toString().toLowerCase();
+        } else {
+            mSearch = null;
+        }
+    }
+
+    @Override
+    public void setPopulateVerseMarkers(int[] verseRange) {
+        mExpectedVerseRange = verseRange;
+    }
+
+    @Override
+    public void setSuppressLeadingMajorSectionHeadings(boolean suppressLeadingMajorSectionHeadings) {
+        mSuppressLeadingMajorSectionHeadings = suppressLeadingMajorSectionHeadings;
+    }
+
+    /**
+     * Renders the USFM input into a readable form
+     * @param in the raw input string
+     * @return
+     */
+    @Override
+    public CharSequence render(CharSequence in) {
+        try {
+            return renderTokens(in);
+        } catch (RuntimeException e) {
+            // TRICKY: fall back to the regex renderer rather than showing nothing
+            Logger.w(TAG, "Failed to render the USFM in a single pass. Falling back to the regex renderer", e);
+            USFMRenderer fallback = new USFMRenderer(mVerseListener, mNoteListener);
+            fallback.setVersesEnabled(mRenderVerses);
+            fallback.setLinebreaksEnabled(mRenderLinebreaks);
+            fallback.setSearchString(mSearch, mHighlightColor);
+            fallback.setPopulateVerseMarkers(mExpectedVerseRange);
+            fallback.setSuppressLeadingMajorSectionHeadings(mSuppressLeadingMajorSectionHeadings);
+            CharSequence out = fallback.render(in);
+            mAddedMissingVerse = fallback.isAddedMissingVerse();
+            return out;
+        }
+    }
+
+    /**
+     * Renders the USFM input without falling back to the regex renderer
+     * @param in the raw input string
+     * @return
+     */
+    CharSequence renderTokens(CharSequence in) {
+        String text = normalizeWhitespace(in);
+        CharSequence out = tokenize(text, false);
+        return out == null ? in : out;
+    }
+
+    /**
+     * Renders all verse tags
+     * @param in
+     * @return
+     */
+    @Override
+    public CharSequence renderVerse(CharSequence in) {
+        CharSequence out = tokenize(in.toString(), true);
+        return out == null ? in : out;
+    }
+
+    /**
+     * Return the leading major section heading, if any.
+     *
+     * @param in The string to examine for a leading major section heading.
+     * @return The leading major section heading; or the empty string if there is none.
+     */
+    @Override
+    public CharSequence getLeadingMajorSectionHeading(CharSequence in) {
+        String text = in.toString();
+        ParaTag tag = ParaTag.parse(text, 0);
+        if(tag != null && !tag.isShort && tag.style.equals("ms")) {
+            return text.substring(tag.contentStart, tag.contentEnd);
+        }
+        return "";
+    }
+
+    @Override
+    public String getCacheKey() {
+        return makeCacheKey(mRenderVerses, mRenderLinebreaks, mSearch, mHighlightColor, mExpectedVerseRange, mSuppressLeadingMajorSectionHeadings);
+    }
+
+    @Override
+    public boolean isAddedMissingVerse() {
+        return mAddedMissingVerse;
+    }
+
+    /**
+     * Scans the text once and builds the rendered output
+     * @param text
+     * @param versesOnly if true only the verse markers will be rendered
+     * @return the rendered text or null if rendering was stopped
+     */
+    private CharSequence tokenize(String text, boolean versesOnly) {
+        mVersesOnly = versesOnly;
+        mAddedMissingVerse = false;
+        mFoundVerses.clear();
+        mNextLineBreak = -1;
+        mNextPara = -1;
+
+        SpannableStringBuilder out = new SpannableStringBuilder();
+        if(!tokenize(text, 0, text.length(), out, false)) {
+            return null;
+        }
+        populateMissingVerses(out);
+        return out;
+    }
+
+    /**
+     * Renders a range of the text into the output
+     * @param in the normalized input
+     * @param start
+     * @param end
+     * @param out
+     * @param upperCase if true plain text will be converted to upper case
+     * @return false if rendering was stopped
+     */
+    private boolean tokenize(String in, int start, int end, SpannableStringBuilder out, boolean upperCase) {
+        int textStart = start;
+        int i = start;
+        while(i < end) {
+            if(isStopped()) return false;
+
+            char c = in.charAt(i);
+            int tokenEnd = -1;
+            if(c == '\\') {
+                appendText(in, textStart, i, out, upperCase);
+                textStart = i;
+                tokenEnd = renderMarker(in, i, end, out);
+            } else if(c == '<' && !mVersesOnly && in.startsWith(PARA_OPEN, i)) {
+                ParaTag tag = ParaTag.parse(in, i);
+                if(tag != null && tag.contentEnd <= end && isRenderedStyle(tag)) {
+                    appendText(in, textStart, i, out, upperCase);
+                    if(!renderPara(in, tag, out)) return false;
+                    tokenEnd = tag.end;
+                }
+            }
+
+            if(tokenEnd == -1) {
+                i ++;
+            } else {
+                i = tokenEnd;
+                textStart = tokenEnd;
+            }
+        }
+        appendText(in, textStart, end, out, upperCase);
+        return true;
+    }
+
+    /**
+     * Renders a backslash marker
+     * @param in
+     * @param start the index of the backslash
+     * @param end the end of the range being rendered
+     * @param out
+     * @return the index after the marker or -1 if this was not a marker we render
+     */
+    private int renderMarker(String in, int start, int end, SpannableStringBuilder out) {
+        if(start + 1 >= end) return -1;
+        char marker = in.charAt(start + 1);
+        if(marker == 'v') {
+            return renderVerseMarker(in, start, end, out);
+        }
+        if(mVersesOnly) return -1;
+        if(marker == 'c') {
+            return skipChapterMarker(in, start, end);
+        } else if(marker == 'f') {
+            int noteEnd = renderNote(in, start, end, out);
+            if(noteEnd == -1) {
+                noteEnd = renderSelah(in, start, end, out);
+            }
+            return noteEnd;
+        }
+        return -1;
+    }
+
+    /**
+     * Matches \c +\d+ *
+     * Leading chapter markers are trimmed off of chunks
+     */
+    private static int skipChapterMarker(String in, int start, int end) {
+        int i = start + 2;
+        int spaces = skip(in, i, end, ' ');
+        if(spaces == i) return -1;
+        int digits = skipDigits(in, spaces, end);
+        if(digits == spaces) return -1;
+        return skip(in, digits, end, ' ');
+    }
+
+    /**
+     * Matches \v\s(\d+(-\d+)?)\s?
+     */
+    private int renderVerseMarker(String in, int start, int end, SpannableStringBuilder out) {
+        int i = start + 2;
+        if(i >= end || !isWhitespace(in.charAt(i))) return -1;
+        int numberStart = i + 1;
+        int numberEnd = skipDigits(in, numberStart, end);
+        if(numberEnd == numberStart) return -1;
+        if(numberEnd + 1 < end && in.charAt(numberEnd) == '-') {
+            int rangeEnd = skipDigits(in, numberEnd + 1, end);
+            if(rangeEnd > numberEnd + 1) numberEnd = rangeEnd;
+        }
+        int tokenEnd = numberEnd;
+        if(tokenEnd < end && isWhitespace(in.charAt(tokenEnd))) tokenEnd ++;
+
+        if(!mRenderVerses) {
+            // just display USFM for verse
+            appendText(in, start, tokenEnd, out, false);
+            return tokenEnd;
+        }
+
+        Span verse;
+        String number = in.substring(numberStart, numberEnd);
+        if(mVerseListener == null) {
+            verse = new USFMVerseSpan(number);
+        } else {
+            verse = new USFMVersePinSpan(number);
+        }
+        int startVerse = ((USFMVerseSpan)verse).getStartVerseNumber();
+        int endVerse = ((USFMVerseSpan)verse).getEndVerseNumber();
+        mFoundVerses.add(startVerse);
+        for(int v = startVerse + 1; v <= endVerse; v ++) {
+            mFoundVerses.add(v);
+        }
+
+        if (Build.VERSION.SDK_INT == Build.VERSION_CODES.JELLY_BEAN) {
+            out.append("\n"); // this is a hack to get around bug in JellyBean in rendering multiple
+            // verses on a long line.  This hack messes up the paragraph formatting,
+            // but at least JellyBean becomes usable and doesn't crash.
+        }
+        // TRICKY: duplicate verses and verses outside of the expected range are rendered as well
+        verse.setOnClickListener(mVerseListener);
+        out.append(verse.toCharSequence());
+        return tokenEnd;
+    }
+
+    /**
+     * Matches \f\s(\S)\s(.+)\f\*
+     */
+    private int renderNote(String in, int start, int end, SpannableStringBuilder out) {
+        int i = start + 2;
+        if(i + 3 >= end || !isWhitespace(in.charAt(i))
+                || isWhitespace(in.charAt(i + 1))
+                || !isWhitespace(in.charAt(i + 2))) {
+            return -1;
+        }
+        int callerIndex = i + 1;
+        int textStart = i + 3;
+        int textEnd = -1;
+        for(int j = textStart + 1; j + 3 <= end; j ++) {
+            char c = in.charAt(j);
+            if(c == '\n' || c == '\r') break;
+            if(c == '\\' && in.startsWith("\\f*", j)) {
+                textEnd = j;
+                break;
+            }
+        }
+        if(textEnd == -1) return -1;
+
+        String noteText = in.substring(textStart, textEnd);
+        USFMNoteSpan note = USFMNoteSpan.parseNote(in.substring(callerIndex, callerIndex + 1), noteText);
+        if(note == null) return -1;
+        note.setOnClickListener(mNoteListener);
+        if(mSearch != null) {
+            note.setHighlight(noteText.toLowerCase().contains(mSearch));
+        }
+        out.append(note.toCharSequence());
+        return textEnd + 3;
+    }
+
+    /**
+     * Matches \fqs+\s([^\\]+)
+     */
+    private int renderSelah(String in, int start, int end, SpannableStringBuilder out) {
+        if(!in.startsWith("\\fqs", start)) return -1;
+        int i = skip(in, start + 4, end, 's');
+        if(i >= end || !isWhitespace(in.charAt(i))) return -1;
+        int textStart = i + 1;
+        int textEnd = in.indexOf('\\', textStart);
+        if(textEnd == -1 || textEnd > end) textEnd = end;
+        if(textEnd == textStart) return -1;
+
+        out.append("\n");
+        int mark = out.length();
+        appendText(in, textStart, textEnd, out, false);
+        setSpans(out, mark, new StyleSpan(Typeface.ITALIC), new AlignmentSpan.Standard(Layout.Alignment.ALIGN_OPPOSITE));
+        return textEnd;
+    }
+
+    /**
+     * Checks if the para tag is one we know how to render
+     * @param tag
+     * @return
+     */
+    private static boolean isRenderedStyle(ParaTag tag) {
+        if(tag.isShort) {
+            return tag.style.equals("b");
+        }
+        switch(tag.style) {
+            case "s":
+            case "ms":
+            case "p":
+            case "qr":
+            case "cl":
+                return true;
+            default:
+                return poeticLevel(tag.style) >= 0;
+        }
+    }
+
+    /**
+     * Renders a para tag and its contents
+     * @param in
+     * @param tag
+     * @param out
+     * @return false if rendering was stopped
+     */
+    private boolean renderPara(String in, ParaTag tag, SpannableStringBuilder out) {
+        if(tag.isShort) {
+            // blank line
+            out.append("\n\n");
+            return true;
+        }
+
+        int mark;
+        switch(tag.style) {
+            case "ms":
+                if(mSuppressLeadingMajorSectionHeadings && out.length() == 0) {
+                    return true;
+                }
+                mark = out.length();
+                if(!tokenize(in, tag.contentStart, tag.contentEnd, out, true)) return false;
+                setSpans(out, mark, new StyleSpan(Typeface.BOLD), new AlignmentSpan.Standard(Layout.Alignment.ALIGN_CENTER));
+                out.append("\n");
+                return true;
+            case "s":
+                mark = out.length();
+                if(!tokenize(in, tag.contentStart, tag.contentEnd, out, false)) return false;
+                setSpans(out, mark, new StyleSpan(Typeface.BOLD), new AlignmentSpan.Standard(Layout.Alignment.ALIGN_CENTER));
+                out.append("\n");
+                return true;
+            case "p":
+                if(out.length() > 0) {
+                    out.append("\n");
+                }
+                out.append("    ");
+                if(!tokenize(in, tag.contentStart, tag.contentEnd, out, false)) return false;
+                out.append("\n");
+                return true;
+            case "qr":
+                out.append("\n");
+                mark = out.length();
+                if(!tokenize(in, tag.contentStart, tag.contentEnd, out, false)) return false;
+                setSpans(out, mark, new StyleSpan(Typeface.ITALIC), new AlignmentSpan.Standard(Layout.Alignment.ALIGN_OPPOSITE));
+                return true;
+            case "cl":
+                mark = out.length();
+                if(!tokenize(in, tag.contentStart, tag.contentEnd, out, false)) return false;
+                setSpans(out, mark, new StyleSpan(Typeface.BOLD));
+                return true;
+            default:
+                return renderPoeticLine(in, tag, poeticLevel(tag.style), out);
+        }
+    }
+
+    /**
+     * Renders a poetic line
+     */
+    private boolean renderPoeticLine(String in, ParaTag tag, int level, SpannableStringBuilder out) {
+        StringBuilder padding = new StringBuilder();
+        for(int i = 0; i < level; i ++) {
+            padding.append("    ");
+        }
+        // outdent for verse markers
+        if (level > 0 && in.startsWith("<verse number", tag.contentStart)) {
+            padding.setLength(padding.length() - 2);
+        }
+
+        // don't stack new lines
+        int last = out.length() - 1;
+        while(last >= 0 && out.charAt(last) == ' ') last --;
+        if(last >= 0 && out.charAt(last) != '\n') {
+            out.append("\n");
+        }
+
+        out.append(padding);
+        int mark = out.length();
+        if(!tokenize(in, tag.contentStart, tag.contentEnd, out, false)) return false;
+        setSpans(out, mark, new StyleSpan(Typeface.NORMAL));
+
+        // a trailing line break is only needed if there is more to come on a new line
+        int next = skip(in, tag.end, in.length(), ' ');
+        if(mNextLineBreak < tag.end && mNextLineBreak != in.length()) {
+            mNextLineBreak = indexOrLength(in, "\n", tag.end);
+        }
+        if(mNextPara < tag.end && mNextPara != in.length()) {
+            mNextPara = indexOrLength(in, PARA_OPEN, tag.end);
+        }
+        if(mNextLineBreak < in.length() && mNextLineBreak > next
+                && mNextPara < in.length() && mNextPara > next) {
+            out.append("\n");
+        }
+        return true;
+    }
+
+    /**
+     * Adds any expected verses that were not found to the front of the output
+     * @param out
+     */
+    private void populateMissingVerses(SpannableStringBuilder out) {
+        if(!mRenderVerses || mExpectedVerseRange.length == 0) return;
+
+        int minVerse = mExpectedVerseRange[0];
+        int maxVerse = mExpectedVerseRange.length > 1 ? mExpectedVerseRange[1] : minVerse;
+        for(int i = maxVerse; i >= minVerse; i --) {
+            if(!mFoundVerses.contains(i)) {
+                // generate missing verse
+                Span verse;
+                if (mVerseListener == null) {
+                    verse = new USFMVerseSpan(i);
+                } else {
+                    verse = new USFMVersePinSpan(i);
+                }
+                verse.setOnClickListener(mVerseListener);
+                out.insert(0, verse.toCharSequence());
+                mAddedMissingVerse = true;
+            }
+        }
+    }
+
+    /**
+     * Appends plain text to the output and highlights any search matches.
+     * TRICKY: the regex renderer does not highlight when only rendering verses so neither do we
+     */
+    private void appendText(String in, int start, int end, SpannableStringBuilder out, boolean upperCase) {
+        if(end <= start) return;
+        String text = in.substring(start, end);
+        if(upperCase) {
+            text = text.toUpperCase();
+        }
+        int offset = out.length();
+        out.append(text);
+        if(mSearch == null || mVersesOnly) return;
+
+        String lowerCaseText = text.toLowerCase();
+        int pos = lowerCaseText.indexOf(mSearch);
+        while(pos >= 0) {
+            out.setSpan(new BackgroundColorSpan(mHighlightColor), offset + pos, offset + pos + mSearch.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+            pos = lowerCaseText.indexOf(mSearch, pos + mSearch.length());
+        }
+    }
+
+    /**
+     * Trims the text, strips carriage returns, and collapses line breaks into a single space
+     * unless line breaks are enabled.
+     * @param in
+     * @return
+     */
+    private String normalizeWhitespace(CharSequence in) {
+        int start = 0;
+        int end = in.length();
+        while(start < end && isWhitespace(in.charAt(start))) start ++;
+        while(end > start && isWhitespace(in.charAt(end - 1))) end --;
+
+        StringBuilder out = new StringBuilder(end - start);
+        int i = start;
+        while(i < end) {
+            char c = in.charAt(i);
+            if(!isWhitespace(c)) {
+                out.append(c);
+                i ++;
+                continue;
+            }
+            // look at the whole run of whitespace
+            int runEnd = i;
+            boolean hasLineBreak = false;
+            while(runEnd < end && isWhitespace(in.charAt(runEnd))) {
+                if(in.charAt(runEnd) == '\n') hasLineBreak = true;
+                runEnd ++;
+            }
+            if(hasLineBreak && !mRenderLinebreaks) {
+                out.append(' ');
+            } else {
+                for(int j = i; j < runEnd; j ++) {
+                    if(in.charAt(j) != '\r') out.append(in.charAt(j));
+                }
+            }
+            i = runEnd;
+        }
+        return out.toString();
+    }
+
+    /**
+     * Returns the level of a poetic line style e.g. q1, or -1 if this is not a poetic line
+     * @param style
+     * @return
+     */
+    private static int poeticLevel(String style) {
+        if(style.length() < 2 || style.charAt(0) != 'q') return -1;
+        if(skipDigits(style, 1, style.length()) != style.length()) return -1;
+        try {
+            return Integer.parseInt(style.substring(1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void setSpans(SpannableStringBuilder out, int start, Object... spans) {
+        for(Object span:spans) {
+            out.setSpan(span, start, out.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
+    }
+
+    private static int indexOrLength(String in, String value, int from) {
+        int index = in.indexOf(value, from);
+        return index == -1 ? in.length() : index;
+    }
+
+    private static int skip(String in, int i, int end, char c) {
+        while(i < end && in.charAt(i) == c) i ++;
+        return i;
+    }
+
+    private static int skipDigits(String in, int i, int end) {
+        while(i < end && in.charAt(i) >= '0' && in.charAt(i) <= '9') i ++;
+        return i;
+    }
+
+    /**
+     * Matches the same characters as \s in a regular expression
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * A para tag e.g. &lt;para style="p"&gt;...&lt;/para&gt; or &lt;para style="b"/&gt;
+     */
+    private static class ParaTag {
+        String style;
+        boolean isShort;
+        int contentStart;
+        int contentEnd;
+        int end;
+
+        /**
+         * Parses the para tag at the index
+         * @param in
+         * @param start
+         * @return null if there is not a complete tag at the index
+         */
+        static ParaTag parse(String in, int start) {
+            if(!in.startsWith(PARA_OPEN, start)) return null;
+            int i = start + PARA_OPEN.length();
+            int attr = i;
+            while(i < in.length() && isWhitespace(in.charAt(i))) i ++;
+            if(i == attr || !in.startsWith("style=\"", i)) return null;
+            int styleStart = i + 7;
+            int styleEnd = in.indexOf('"', styleStart);
+            if(styleEnd == -1) return null;
+            i = styleEnd + 1;
+            while(i < in.length() && isWhitespace(in.charAt(i))) i ++;
+
+            ParaTag tag = new ParaTag();
+            tag.style = in.substring(styleStart, styleEnd);
+            if(in.startsWith("/>", i)) {
+                tag.isShort = true;
+                tag.contentStart = tag.contentEnd = tag.end = i + 2;
+                return tag;
+            }
+            if(!in.startsWith(">", i)) return null;
+            i ++;
+            while(i < in.length() && isWhitespace(in.charAt(i))) i ++;
+            int close = in.indexOf(PARA_CLOSE, i);
+            if(close == -1) return null;
+            tag.contentStart = i;
+            tag.contentEnd = close;
+            tag.end = close + PARA_CLOSE.length();
+            return tag;
+        }
+    }
+}
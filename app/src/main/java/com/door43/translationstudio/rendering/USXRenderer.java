@@ -696,4 +696,9 @@ public class USXRenderer extends ClickableRenderingEngine {
     public boolean isAddedMissingVerse() {
         return mAddedMissingVerse;
     }
+
+    @Override
+    public String getCacheKey() {
+        return makeCacheKey(mRenderVerses, mRenderLinebreaks, mSearch, mHighlightColor, mExpectedVerseRange, mSuppressLeadingMajorSectionHeadings);
+    }
 }
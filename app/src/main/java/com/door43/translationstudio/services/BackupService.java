@@ -12,6 +12,7 @@ import android.os.Build;
 import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.IBinder;
+import android.os.Process;
 import android.preference.PreferenceManager;
 import android.support.v4.app.NotificationCompat;
 import android.support.v4.content.ContextCompat;
@@ -28,9 +29,14 @@ import com.door43.translationstudio.ui.home.HomeActivity;
 import com.door43.translationstudio.App;
 import com.door43.util.FileUtilities;
 
-import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * This services runs in the background to provide automatic backups for translations.
@@ -38,6 +44,7 @@ import java.util.TimerTask;
  */
 public class BackupService extends Service implements Foreground.Listener {
     public static final String TAG = BackupService.class.getName();
+    private static final int MAX_BACKUP_THREADS = 2;
     private final Timer sTimer = new Timer();
     private static boolean sRunning = false;
     private boolean isPaused = false;
@@ -46,6 +53,7 @@ public class BackupService extends Service implements Foreground.Listener {
     private Handler handler;
     private Runnable runner;
     private HandlerThread handlerThread;
+    private final ExecutorService executor = Executors.newFixedThreadPool(MAX_BACKUP_THREADS);
 
     @Override
     public IBinder onBind(Intent intent) {
@@ -116,6 +124,7 @@ public class BackupService extends Service implements Foreground.Listener {
      * Stops the service
      */
     private void stopService() {
+        executor.shutdownNow();
         if(sTimer != null) {
             sTimer.cancel();
         }
@@ -133,47 +142,27 @@ public class BackupService extends Service implements Foreground.Listener {
         boolean backupPerformed = false;
         if(ContextCompat.checkSelfPermission(this, Manifest.permission.WRITE_EXTERNAL_STORAGE)
                 == PackageManager.PERMISSION_GRANTED) {
-            Translator translator = App.getTranslator();
+            final Translator translator = App.getTranslator();
             Logger.i(TAG, "Checking for changes");
             String[] targetTranslations = translator.getTargetTranslationFileNames();
-            for (String filename : targetTranslations) {
-
-                try {
-                    // add delay to ease background processing and also slow the memory thrashing in background
-                    Thread.sleep(1000);
-                } catch (Exception e) {
-                    Logger.e(TAG, "sleep problem", e);
-                }
-
-                TargetTranslation t = translator.getTargetTranslation(filename);
-                if(t == null) { // skip if not valid
-                    Logger.i(TAG, "Skipping invalid translation: " + filename);
-                    continue;
-                }
-
-                // commit pending changes
-                try {
-                    t.commitSync(".", false);
-                } catch (Exception e) {
-                    if(e instanceof RejectCommitException) {
-                        Logger.w(TAG, "History corrupt in " + t.getId() + ". Repairing...", e);
-                        App.recoverRepo(t);
-                    } else {
-                        Logger.w(TAG, "Could not commit changes to " + t.getId(), e);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (final String filename : targetTranslations) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        // back off while the user is working in the app
+                        Process.setThreadPriority(isPaused ? Process.THREAD_PRIORITY_BACKGROUND : Process.THREAD_PRIORITY_LOWEST);
+                        return backupTargetTranslation(translator, filename);
                     }
-                }
-
-                // run backup if there are translations
-                if (t.numTranslated() > 0) {
-                    try {
-                        boolean success = App.backupTargetTranslation(t, false);
-                        if(success) {
-                            Logger.i(TAG, t.getId() + " backed up");
-                            backupPerformed = true;
-                        }
-                    } catch (Exception e) {
-                        Logger.e(TAG, "Could not backup " + t.getId(), e);
+                }));
+            }
+            for(Future<Boolean> result:results) {
+                try {
+                    if(result.get()) {
+                        backupPerformed = true;
                     }
+                } catch (Exception e) {
+                    Logger.e(TAG, "Backup failed", e);
                 }
             }
             Logger.i(TAG, "Finished backup check.");
@@ -187,6 +176,46 @@ public class BackupService extends Service implements Foreground.Listener {
         this.executingBackup = false;
     }
 
+    /**
+     * Commits and backs up a single target translation if it has changed
+     * @param translator
+     * @param filename the name of the target translation directory
+     * @return true if a backup was performed
+     */
+    private boolean backupTargetTranslation(Translator translator, String filename) {
+        TargetTranslation t = translator.getTargetTranslation(filename);
+        if(t == null) { // skip if not valid
+            Logger.i(TAG, "Skipping invalid translation: " + filename);
+            return false;
+        }
+
+        // commit pending changes
+        try {
+            t.commitDirtySync(false);
+        } catch (Exception e) {
+            if(e instanceof RejectCommitException) {
+                Logger.w(TAG, "History corrupt in " + t.getId() + ". Repairing...", e);
+                App.recoverRepo(t);
+            } else {
+                Logger.w(TAG, "Could not commit changes to " + t.getId(), e);
+            }
+        }
+
+        // run backup if there are translations
+        if (t.numTranslated() > 0) {
+            try {
+                boolean success = App.backupTargetTranslation(t, false);
+                if(success) {
+                    Logger.i(TAG, t.getId() + " backed up");
+                    return true;
+                }
+            } catch (Exception e) {
+                Logger.e(TAG, "Could not backup " + t.getId(), e);
+            }
+        }
+        return false;
+    }
+
     /**
      * Notifies the user that a backup was made
      */
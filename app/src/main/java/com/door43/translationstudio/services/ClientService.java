@@ -8,7 +8,10 @@ import android.os.IBinder;
 import org.unfoldingword.tools.logger.Logger;
 
 import com.door43.translationstudio.App;
+import com.door43.translationstudio.core.TargetTranslation;
 import com.door43.translationstudio.core.Translator;
+import com.door43.translationstudio.git.BundleSync;
+import com.door43.translationstudio.git.Repo;
 import com.door43.translationstudio.network.Connection;
 import com.door43.translationstudio.network.Peer;
 import com.door43.util.RSAEncryption;
@@ -17,11 +20,10 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.DataInputStream;
-import java.io.File;
-import java.io.FileOutputStream;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStream;
 import java.math.BigInteger;
 import java.net.InetAddress;
 import java.net.Socket;
@@ -138,7 +140,7 @@ public class ClientService extends NetworkService {
                 // encrypt message
                 PublicKey key = RSAEncryption.getPublicKeyFromString(server.keyStore.getString(PeerStatusKeys.PUBLIC_KEY));
                 if(key != null) {
-                    message = encryptMessage(key, message);
+                    message = encryptMessage(server, key, message);
                 } else {
                     Logger.w(this.getClass().getName(), "Missing the server's public key");
                     message = SocketMessages.MSG_EXCEPTION;
@@ -170,6 +172,21 @@ public class ClientService extends NetworkService {
         JSONObject json = new JSONObject();
         try {
             json.put("target_translation_id", targetTranslationSlug);
+            json.put("accepts_encrypted", true);
+            // advertise the commits we already have so the server can send just the changes
+            TargetTranslation localTargetTranslation = App.getTranslator().getTargetTranslation(targetTranslationSlug);
+            if(localTargetTranslation != null) {
+                Repo repo = localTargetTranslation.getRepo();
+                repo.acquire();
+                try {
+                    List<String> haves = BundleSync.listHaves(repo.getGit().getRepository());
+                    json.put("have", new JSONArray(haves));
+                } catch (Exception e) {
+                    Logger.w(this.getClass().getName(), "Failed to list the local commits", e);
+                } finally {
+                    repo.release();
+                }
+            }
             Request request = new Request(Request.Type.TargetTranslation, json);
             sendRequest(server, request);
         } catch (JSONException e) {
@@ -186,7 +203,7 @@ public class ClientService extends NetworkService {
      */
     private void onMessageReceived(Peer server, String message) {
         if(server.isSecure() && server.hasIdentity()) {
-            message = decryptMessage(privateKey, message);
+            message = decryptMessage(server, privateKey, message);
             if(message != null) {
                 try {
                     Request request = Request.parse(message);
@@ -252,7 +269,7 @@ public class ClientService extends NetworkService {
             }
         } else if(!server.hasIdentity()) {
             // receive identity
-            message = decryptMessage(privateKey, message);
+            message = decryptMessage(server, privateKey, message);
             try {
                 JSONObject json = new JSONObject(message);
                 server.setName(json.getString("name"));
@@ -301,11 +318,18 @@ public class ClientService extends NetworkService {
                     // receive file download details
                     int port;
                     final long size;
-                    final String name;
+                    final boolean streamed;
+                    final boolean delta;
+                    final boolean encrypted;
+                    final String targetTranslationId;
                     try {
                         port = contextJson.getInt("port");
                         size = contextJson.getLong("size");
-                        name = contextJson.getString("name");
+                        // older servers send the exact size of the archive
+                        streamed = contextJson.optBoolean("streamed", false);
+                        delta = contextJson.optBoolean("delta", false);
+                        encrypted = contextJson.optBoolean("encrypted", false);
+                        targetTranslationId = contextJson.optString("target_translation_id", null);
                     } catch (JSONException e) {
                         if(listener != null) {
                             listener.onClientServiceError(e);
@@ -327,49 +351,29 @@ public class ClientService extends NetworkService {
                                 }
                             });
 
-                            File file = null;
                             try {
-                                file = File.createTempFile("p2p", name);
-                                // download archive
-                                DataInputStream in = new DataInputStream(connection.getSocket().getInputStream());
-                                file.getParentFile().mkdirs();
-                                file.createNewFile();
-                                OutputStream out = new FileOutputStream(file.getAbsolutePath());
-                                byte[] buffer = new byte[8 * 1024];
-                                int totalCount = 0;
-                                int count;
-                                while ((count = in.read(buffer)) > 0) {
-                                    totalCount += count;
-                                    server.keyStore.add(PeerStatusKeys.PROGRESS, totalCount / ((int) size) * 100);
-                                    if (listener != null) {
-                                        listener.onServerConnectionChanged(server);
-                                    }
-                                    out.write(buffer, 0, count);
-                                }
-                                server.keyStore.add(PeerStatusKeys.PROGRESS, 0);
-                                if (listener != null) {
-                                    listener.onServerConnectionChanged(server);
+                                // TRICKY: the archive is unpacked as it arrives rather than being downloaded first
+                                InputStream in = connection.getSocket().getInputStream();
+                                if(encrypted) {
+                                    in = openEncryptedInputStream(server, new BufferedInputStream(in));
                                 }
-                                out.close();
-                                in.close();
-
-                                // import the target translation
+                                in = new ProgressInputStream(in, server, size, streamed);
                                 Translator translator = App.getTranslator();
                                 // TODO: 11/23/2015 perform a diff first
-                                try {
-                                    Translator.ImportResults results = translator.importArchive(file);
-                                    if(listener != null) {
-                                        listener.onReceivedTargetTranslations(server, results);
-                                    }
-                                } catch (Exception e) {
-                                    e.printStackTrace();
+                                Translator.ImportResults results;
+                                if(delta && targetTranslationId != null) {
+                                    results = translator.importBundle(targetTranslationId, in);
+                                } else {
+                                    results = translator.importArchive(in);
                                 }
-                                file.delete();
-                            } catch (IOException e) {
-                                Logger.e(this.getClass().getName(), "Failed to download the file", e);
-                                if(file != null) {
-                                    file.delete();
+                                server.keyStore.add(PeerStatusKeys.PROGRESS, 0);
+                                if (listener != null) {
+                                    listener.onServerConnectionChanged(server);
+                                    listener.onReceivedTargetTranslations(server, results);
                                 }
+                            } catch (Exception e) {
+                                Logger.e(this.getClass().getName(), "Failed to download the target translation", e);
+                                server.keyStore.add(PeerStatusKeys.PROGRESS, 0);
                                 if (listener != null) {
                                     listener.onClientServiceError(e);
                                 }
@@ -413,6 +417,58 @@ public class ClientService extends NetworkService {
         void onReceivedRequest(Peer peer, Request request);
     }
 
+    /**
+     * Reports the download progress of a target translation to the peer as it is read
+     */
+    private class ProgressInputStream extends FilterInputStream {
+        private final Peer server;
+        private final long size;
+        private final boolean estimated;
+        private long totalCount = 0;
+        private int lastProgress = -1;
+
+        /**
+         * @param in
+         * @param server the peer sending the data
+         * @param size the expected number of bytes
+         * @param estimated the size is only an estimate so we will never report completion
+         */
+        ProgressInputStream(InputStream in, Peer server, long size, boolean estimated) {
+            super(in);
+            this.server = server;
+            this.size = size;
+            this.estimated = estimated;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if(b != -1) onRead(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            int read = super.read(buffer, offset, count);
+            if(read > 0) onRead(read);
+            return read;
+        }
+
+        private void onRead(int count) {
+            totalCount += count;
+            if(size <= 0) return;
+            int progress = (int) Math.min(totalCount * 100 / size, estimated ? 99 : 100);
+            // only notify when the percentage changes
+            if(progress != lastProgress) {
+                lastProgress = progress;
+                server.keyStore.add(PeerStatusKeys.PROGRESS, progress);
+                if (listener != null) {
+                    listener.onServerConnectionChanged(server);
+                }
+            }
+        }
+    }
+
     /**
      * Class to retrieve instance of service
      */
@@ -448,6 +504,7 @@ public class ClientService extends NetworkService {
                 // we store references to all connections so we can access them later
                 if(!serverConnections.containsKey(mConnection.getIpAddress())) {
                     addPeer(mServer);
+                    resetSession(mServer);
                     serverConnections.put(mConnection.getIpAddress(), mConnection);
                 } else {
                     // we already have a connection to this server
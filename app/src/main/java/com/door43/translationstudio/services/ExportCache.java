@@ -0,0 +1,217 @@
+package com.door43.translationstudio.services;
+
+import com.door43.translationstudio.core.TargetTranslation;
+import com.door43.translationstudio.core.Translator;
+import com.door43.translationstudio.git.Repo;
+import com.door43.util.FileUtilities;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.unfoldingword.tools.logger.Logger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Provides a cache of exported target translation archives keyed by the commit they were exported from.
+ * The first peer to request a target translation streams the archive and writes a copy into the cache.
+ * Later peers are sent the cached archive until the target translation changes.
+ */
+public class ExportCache {
+    private static final String TAG = ExportCache.class.getSimpleName();
+
+    private final File cacheDir;
+    private final Map<String, Export> exports = new HashMap<>();
+
+    /**
+     * Archives left over from a previous session are removed
+     * @param cacheDir the directory where the archives will be stored
+     */
+    public ExportCache(File cacheDir) {
+        this.cacheDir = cacheDir;
+        FileUtilities.deleteQuietly(cacheDir);
+    }
+
+    /**
+     * Returns the export of the target translation.
+     * The target translation is committed first so the export matches the current HEAD.
+     * If the archive has been cached {@link Export#isCached()} will be true.
+     * Otherwise the caller is responsible for writing the archive to {@link Export#openOutputStream()}
+     * and then calling {@link Export#finish()} or {@link Export#abort()}.
+     * The archive will not be deleted until the export is released. See {@link Export#release()}
+     *
+     * @param targetTranslation
+     * @return the export or null if another peer is still writing the archive. The caller must release it when finished.
+     * @throws Exception
+     */
+    public Export acquire(TargetTranslation targetTranslation) throws Exception {
+        targetTranslation.commitSync();
+        Repo repo = targetTranslation.getRepo();
+        ObjectId head;
+        repo.acquire();
+        try {
+            head = repo.getGit().getRepository().resolve(Constants.HEAD);
+        } finally {
+            repo.release();
+        }
+        String commit = head != null ? head.getName() : "empty";
+        String id = targetTranslation.getId();
+
+        synchronized (exports) {
+            Export export = exports.get(id);
+            if(export != null && export.commit.equals(commit)) {
+                if(!export.isCached()) {
+                    // TRICKY: the archive is written at the speed of the other peer's socket so don't wait for it
+                    return null;
+                }
+            } else {
+                if(export != null) {
+                    // the target translation has changed
+                    export.discard();
+                }
+                File archive = new File(cacheDir, id + "-" + commit + "." + Translator.ARCHIVE_EXTENSION);
+                export = new Export(id, commit, archive);
+                exports.put(id, export);
+            }
+            // TRICKY: retain while holding the lock so the export cannot be discarded before we have a lease
+            export.retain();
+            return export;
+        }
+    }
+
+    /**
+     * Returns the number of cached archives
+     * @return
+     */
+    public int size() {
+        synchronized (exports) {
+            return exports.size();
+        }
+    }
+
+    /**
+     * Deletes all of the cached archives.
+     * Archives that are still being sent are deleted once they are released.
+     */
+    public void clear() {
+        synchronized (exports) {
+            Iterator<Export> it = exports.values().iterator();
+            while(it.hasNext()) {
+                it.next().discard();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * A reference counted lease on an exported archive
+     */
+    public class Export {
+        private final String id;
+        private final String commit;
+        private final File archive;
+        private int users = 0;
+        private boolean discarded = false;
+        private volatile boolean cached = false;
+
+        private Export(String id, String commit, File archive) {
+            this.id = id;
+            this.commit = commit;
+            this.archive = archive;
+        }
+
+        /**
+         * Returns the exported archive.
+         * This only exists once the export has been cached.
+         * @return
+         */
+        public File getArchive() {
+            return archive;
+        }
+
+        /**
+         * Checks if the archive has been written to the cache
+         * @return
+         */
+        public boolean isCached() {
+            return cached;
+        }
+
+        /**
+         * Opens a stream to write the archive into the cache.
+         * The archive is not used until {@link #finish()} is called.
+         * @return
+         * @throws IOException
+         */
+        public OutputStream openOutputStream() throws IOException {
+            cacheDir.mkdirs();
+            return new FileOutputStream(getTempFile());
+        }
+
+        /**
+         * Adds the written archive to the cache
+         */
+        public void finish() {
+            if(!getTempFile().renameTo(archive)) {
+                Logger.w(TAG, "Failed to cache the archive of " + id);
+                abort();
+                return;
+            }
+            cached = true;
+        }
+
+        /**
+         * Removes the partially written archive so the export can be retried
+         */
+        public void abort() {
+            synchronized (exports) {
+                if(exports.get(id) == this) {
+                    exports.remove(id);
+                }
+                discard();
+            }
+        }
+
+        /**
+         * Releases the lease on the archive.
+         * The archive is deleted when the last user releases a discarded export.
+         */
+        public synchronized void release() {
+            users --;
+            if(users <= 0 && discarded) {
+                delete();
+            }
+        }
+
+        private synchronized void retain() {
+            users ++;
+        }
+
+        /**
+         * Marks the archive for deletion.
+         * TRICKY: the peer that is still writing the archive holds a lease so it is cleaned up when it finishes.
+         */
+        private synchronized void discard() {
+            discarded = true;
+            if(users <= 0) {
+                delete();
+            }
+        }
+
+        private File getTempFile() {
+            return new File(archive.getPath() + ".tmp");
+        }
+
+        private void delete() {
+            FileUtilities.deleteQuietly(getTempFile());
+            if(!archive.delete() && archive.exists()) {
+                Logger.w(TAG, "Failed to delete the cached archive " + archive);
+            }
+        }
+    }
+}
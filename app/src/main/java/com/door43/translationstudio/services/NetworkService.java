@@ -8,11 +8,15 @@ import android.util.Base64;
 
 import org.unfoldingword.tools.logger.Logger;
 import com.door43.translationstudio.network.Connection;
+import com.door43.translationstudio.network.EncryptedFrameInputStream;
+import com.door43.translationstudio.network.EncryptedFrameOutputStream;
 import com.door43.translationstudio.network.Peer;
 import com.door43.util.RSAEncryption;
 import com.tozny.crypto.android.AesCbcWithIntegrity;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
@@ -20,6 +24,7 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.security.GeneralSecurityException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.util.ArrayList;
@@ -158,14 +163,8 @@ public abstract class NetworkService extends Service {
      * They work well at establishing initial contact. We should place this elsewhere.
      */
     public ServerSocket openWriteSocket(final OnSocketEventListener listener) {
-        final ServerSocket serverSocket;
-        try {
-            serverSocket = new ServerSocket(0);
-            serverSocket.setSoTimeout(CONNECTION_TIMEOUT);
-        } catch (IOException e) {
-            Logger.e(this.getClass().getName(), "failed to create a sender socket", e);
-            return null;
-        }
+        final ServerSocket serverSocket = createWriteSocket();
+        if(serverSocket == null) return null;
         // begin listening for the socket connection
         Thread t = new Thread(new Runnable() {
             @Override
@@ -189,6 +188,22 @@ public abstract class NetworkService extends Service {
         return serverSocket;
     }
 
+    /**
+     * Creates a socket for sending data without waiting for the receiver to connect.
+     * The caller is responsible for accepting the connection and closing the socket.
+     * @return null if the socket could not be created
+     */
+    public ServerSocket createWriteSocket() {
+        try {
+            ServerSocket serverSocket = new ServerSocket(0);
+            serverSocket.setSoTimeout(CONNECTION_TIMEOUT);
+            return serverSocket;
+        } catch (IOException e) {
+            Logger.e(this.getClass().getName(), "failed to create a sender socket", e);
+            return null;
+        }
+    }
+
     /**
      * Connects to the end of a data socket
      * @param listener
@@ -245,6 +260,152 @@ public abstract class NetworkService extends Service {
         }
     }
 
+    /**
+     * Encrypts a message for a peer using the session key of the connection.
+     * The session key is generated and wrapped with the peer's public key the first time it is needed.
+     * The wrapped key is still attached to every message so the message format is unchanged,
+     * but we only perform the RSA encryption once per connection.
+     *
+     * @param peer the peer that will receive the message
+     * @param publicKey the public key of the peer
+     * @param message the message to be encrypted
+     * @return the encrypted message
+     */
+    public String encryptMessage(Peer peer, PublicKey publicKey, String message) {
+        try {
+            SessionKey session = getOutgoingSession(peer, publicKey);
+            if(session == null) {
+                Logger.e(this.getClass().getName(), "Failed to encrypt the message");
+                return null;
+            }
+            AesCbcWithIntegrity.CipherTextIvMac civ = encrypt(message, session.key);
+            return session.wrappedKey + "-key-" + civ.toString();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Decrypts a message from a peer.
+     * The session key of the peer is only decrypted with the private key when it changes.
+     *
+     * @param peer the peer that sent the message
+     * @param privateKey
+     * @param message the message to be decrypted
+     * @return the decrypted message
+     */
+    public String decryptMessage(Peer peer, PrivateKey privateKey, String message) {
+        try {
+            String[] pieces = message.split("\\-key\\-");
+            if (pieces.length == 2) {
+                SessionKey session;
+                synchronized (peer) {
+                    Object cached = peer.keyStore.get(PeerStatusKeys.SESSION_KEY_IN);
+                    if(cached instanceof SessionKey && ((SessionKey) cached).wrappedKey.equals(pieces[0])) {
+                        session = (SessionKey) cached;
+                    } else {
+                        // decode and decrypt the new session key
+                        byte[] data = Base64.decode(pieces[0].getBytes(), Base64.NO_WRAP);
+                        session = new SessionKey(keys(RSAEncryption.decryptData(data, privateKey)), pieces[0], null);
+                        peer.keyStore.add(PeerStatusKeys.SESSION_KEY_IN, session);
+                    }
+                }
+
+                // decrypt message
+                AesCbcWithIntegrity.CipherTextIvMac civ = new AesCbcWithIntegrity.CipherTextIvMac(pieces[1]);
+                return decryptString(civ, session.key);
+            } else {
+                Logger.w(this.getClass().getName(), "Invalid message to decrypt");
+                return null;
+            }
+        } catch(Exception e) {
+            Logger.e(this.getClass().getName(), "Invalid message to decrypt", e);
+            return null;
+        }
+    }
+
+    /**
+     * Wraps a stream so the data sent to the peer is encrypted with our session key.
+     * The peer must have received at least one message from us so it knows the session key.
+     * @param peer the peer receiving the data
+     * @param publicKey the public key of the peer
+     * @param out
+     * @return
+     * @throws IOException if the session key could not be created
+     */
+    public OutputStream openEncryptedOutputStream(Peer peer, PublicKey publicKey, OutputStream out) throws IOException {
+        SessionKey session = getOutgoingSession(peer, publicKey);
+        if(session == null) throw new IOException("Missing the session key for " + peer.getIpAddress());
+        return new EncryptedFrameOutputStream(out, session.key);
+    }
+
+    /**
+     * Wraps a stream so data sent from the peer is decrypted with the peer's session key
+     * @param peer the peer sending the data
+     * @param in
+     * @return
+     * @throws IOException if we have not received the session key from the peer
+     */
+    public InputStream openEncryptedInputStream(Peer peer, InputStream in) throws IOException {
+        Object session;
+        synchronized (peer) {
+            session = peer.keyStore.get(PeerStatusKeys.SESSION_KEY_IN);
+        }
+        if(!(session instanceof SessionKey)) throw new IOException("Missing the session key for " + peer.getIpAddress());
+        return new EncryptedFrameInputStream(in, ((SessionKey) session).key);
+    }
+
+    /**
+     * Forgets the session keys of the peer.
+     * This should be called when a new connection is established with the peer.
+     * @param peer
+     */
+    protected void resetSession(Peer peer) {
+        synchronized (peer) {
+            peer.keyStore.add(PeerStatusKeys.SESSION_KEY_IN, null);
+            peer.keyStore.add(PeerStatusKeys.SESSION_KEY_OUT, null);
+        }
+    }
+
+    /**
+     * Returns the session key we use to encrypt data for the peer
+     * @param peer
+     * @param publicKey the public key of the peer
+     * @return null if the session key could not be wrapped
+     * @throws GeneralSecurityException
+     */
+    private SessionKey getOutgoingSession(Peer peer, PublicKey publicKey) throws GeneralSecurityException {
+        synchronized (peer) {
+            Object cached = peer.keyStore.get(PeerStatusKeys.SESSION_KEY_OUT);
+            if(cached instanceof SessionKey && publicKey.equals(((SessionKey) cached).publicKey)) {
+                return (SessionKey) cached;
+            }
+            AesCbcWithIntegrity.SecretKeys key = generateKey();
+            byte[] encryptedKeyBytes = RSAEncryption.encryptData(keyString(key), publicKey);
+            if(encryptedKeyBytes == null) return null;
+            String wrappedKey = new String(Base64.encode(encryptedKeyBytes, Base64.NO_WRAP));
+            SessionKey session = new SessionKey(key, wrappedKey, publicKey);
+            peer.keyStore.add(PeerStatusKeys.SESSION_KEY_OUT, session);
+            return session;
+        }
+    }
+
+    /**
+     * A symmetric key shared with a peer for the life of a connection
+     */
+    private static class SessionKey {
+        final AesCbcWithIntegrity.SecretKeys key;
+        final String wrappedKey;
+        final PublicKey publicKey;
+
+        SessionKey(AesCbcWithIntegrity.SecretKeys key, String wrappedKey, PublicKey publicKey) {
+            this.key = key;
+            this.wrappedKey = wrappedKey;
+            this.publicKey = publicKey;
+        }
+    }
+
     /**
      * Decrypts a message using the private key
      * @param privateKey
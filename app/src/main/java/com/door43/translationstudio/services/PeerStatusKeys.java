@@ -8,4 +8,8 @@ public class PeerStatusKeys {
     public static final String PROGRESS = "progress";
     public static final String CONTROL_TEXT = "control_text";
     public static final String PUBLIC_KEY = "public_key";
+    public static final String BYTES_SENT = "bytes_sent";
+    public static final String THROUGHPUT = "throughput";
+    public static final String SESSION_KEY_IN = "session_key_in";
+    public static final String SESSION_KEY_OUT = "session_key_out";
 }
@@ -14,27 +14,43 @@ import com.door43.translationstudio.App;
 import com.door43.translationstudio.core.TargetTranslation;
 import com.door43.translationstudio.core.Translator;
 import com.door43.translationstudio.network.Connection;
+import com.door43.translationstudio.network.EncryptedFrameOutputStream;
 import com.door43.translationstudio.network.Peer;
+import com.door43.translationstudio.git.BundleSync;
+import com.door43.translationstudio.git.Repo;
+import com.door43.util.ArchiveWriter;
 import com.door43.util.RSAEncryption;
 
+import org.eclipse.jgit.lib.ObjectId;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedInputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigInteger;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.security.MessageDigest;
 import java.security.PrivateKey;
 import java.security.PublicKey;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class provides an exporting service (effectively a server) from which
@@ -49,12 +65,19 @@ public class ServerService extends NetworkService {
     private OnServerEventListener listener;
     private int mPort = 0;
     private Thread mServerThread;
-    private Map<String, Connection> mClientConnections = new HashMap<>();
+    // TRICKY: connections and requests are shared by the connection threads and the transfer executor
+    private Map<String, Connection> mClientConnections = new ConcurrentHashMap<>();
     private PrivateKey privateKey;
     private String mPublicKey;
     private ServerSocket mServerSocket;
     private String deviceAlias;
-    private Map<UUID, Request> requests = new HashMap<>();
+    private Map<UUID, Request> requests = new ConcurrentHashMap<>();
+    private static final int MAX_CONNECTIONS = 64;
+    private static final int MAX_TRANSFERS = 2;
+    private static final int MAX_QUEUED_TRANSFERS = 64;
+    private ThreadPoolExecutor mConnectionExecutor;
+    private ThreadPoolExecutor mTransferExecutor;
+    private ExportCache mExportCache;
 
     @Override
     public IBinder onBind(Intent intent) {
@@ -92,6 +115,9 @@ public class ServerService extends NetworkService {
                 privateKey = (PrivateKey) args.get(PARAM_PRIVATE_KEY);
                 mPublicKey = args.getString(PARAM_PUBLIC_KEY);
                 deviceAlias = args.getString(PARAM_DEVICE_ALIAS);
+                mConnectionExecutor = new ThreadPoolExecutor(0, MAX_CONNECTIONS, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>());
+                mTransferExecutor = new ThreadPoolExecutor(MAX_TRANSFERS, MAX_TRANSFERS, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(MAX_QUEUED_TRANSFERS));
+                mExportCache = new ExportCache(new File(getCacheDir(), "p2p-exports"));
                 mServerThread = new Thread(new ServerRunnable());
                 mServerThread.start();
                 return START_STICKY;
@@ -127,6 +153,15 @@ public class ServerService extends NetworkService {
             c.close();
         }
         mClientConnections.clear();
+        if(mTransferExecutor != null) {
+            mTransferExecutor.shutdownNow();
+        }
+        if(mConnectionExecutor != null) {
+            mConnectionExecutor.shutdownNow();
+        }
+        if(mExportCache != null) {
+            mExportCache.clear();
+        }
         setRunning(false);
     }
 
@@ -136,18 +171,19 @@ public class ServerService extends NetworkService {
      * @param message the message being sent to the client
      */
     private void sendMessage(Peer client, String message) {
-        if (mClientConnections.containsKey(client.getIpAddress())) {
+        Connection connection = mClientConnections.get(client.getIpAddress());
+        if (connection != null) {
             if(client.isSecure()) {
                 // encrypt message
                 PublicKey key = RSAEncryption.getPublicKeyFromString(client.keyStore.getString(PeerStatusKeys.PUBLIC_KEY));
                 if(key != null) {
-                    message = encryptMessage(key, message);
+                    message = encryptMessage(client, key, message);
                 } else {
                     Logger.w(this.getClass().getName(), "Missing the client's public key");
                     message = SocketMessages.MSG_EXCEPTION;
                 }
             }
-            mClientConnections.get(client.getIpAddress()).write(message);
+            connection.write(message);
         }
     }
 
@@ -197,7 +233,7 @@ public class ServerService extends NetworkService {
     private void onMessageReceived(Peer client, String message) {
         if(client.isAuthorized()) {
             if(client.isSecure() && client.hasIdentity()) {
-                message = decryptMessage(privateKey, message);
+                message = decryptMessage(client, privateKey, message);
                 if(message != null) {
                     try {
                         Request request = Request.parse(message);
@@ -248,7 +284,7 @@ public class ServerService extends NetworkService {
                 }
             } else if(!client.hasIdentity()) {
                 // receive identity
-                message = decryptMessage(privateKey, message);
+                message = decryptMessage(client, privateKey, message);
                 try {
                     JSONObject json = new JSONObject(message);
                     client.setName(json.getString("name"));
@@ -285,51 +321,22 @@ public class ServerService extends NetworkService {
                     Logger.e(this.getClass().getName(), "invalid context", e);
                     break;
                 }
-                final File exportFile;
-                try {
-                    exportFile = File.createTempFile(targetTranslationSlug, "." + Translator.ARCHIVE_EXTENSION);
-                } catch (IOException e) {
-                    Logger.e(this.getClass().getName(), "Could not create a temp file", e);
-                    break;
-                }
-
-                Translator translator = App.getTranslator();
-                TargetTranslation targetTranslation = translator.getTargetTranslation(targetTranslationSlug);
+                final Translator translator = App.getTranslator();
+                final TargetTranslation targetTranslation = translator.getTargetTranslation(targetTranslationSlug);
                 if(targetTranslation != null) {
+                    final Request finalRequest = request;
+                    final Peer peer = client;
                     try {
-                        targetTranslation.setDefaultContributor(App.getProfile().getNativeSpeaker());
-                        translator.exportArchive(targetTranslation, exportFile);
-                        if(exportFile.exists()) {
-                            ServerSocket fileSocket = openWriteSocket(new OnSocketEventListener() {
-                                @Override
-                                public void onOpen(Connection connection) {
-                                    try {
-                                        DataOutputStream out = new DataOutputStream(connection.getSocket().getOutputStream());
-                                        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(exportFile)));
-                                        byte[] buffer = new byte[8 * 1024];
-                                        int count;
-                                        while ((count = in.read(buffer)) > 0) {
-                                            out.write(buffer, 0, count);
-                                        }
-                                        out.close();
-                                        in.close();
-                                    } catch (IOException e) {
-                                        Logger.e(ServerService.class.getName(), "Failed to send the target translation", e);
-                                    }
-                                }
-                            });
-
-                            // send file details
-                            JSONObject targetTranslationContext = new JSONObject();
-                            targetTranslationContext.put("port", fileSocket.getLocalPort());
-                            targetTranslationContext.put("name", exportFile.getName());
-                            targetTranslationContext.put("size", exportFile.length());
-                            Request reply = request.makeReply(targetTranslationContext);
-                            sendRequest(client, reply);
-                        }
-                    } catch (Exception e) {
-                        // export failed
-                        Logger.e(this.getClass().getName(), "Failed to export the archive", e);
+                        // TRICKY: transfers are queued so a classroom full of requests cannot exhaust the device
+                        mTransferExecutor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                sendTargetTranslation(peer, finalRequest, targetTranslation);
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        Logger.w(this.getClass().getName(), "Too many queued transfers. Rejecting request from " + client.getIpAddress());
+                        sendMessage(client, SocketMessages.MSG_SERVER_ERROR);
                     }
                 } else {
                     // we don't have it
@@ -365,6 +372,230 @@ public class ServerService extends NetworkService {
         }
     }
 
+    /**
+     * Sends a target translation to the client.
+     * This runs on the transfer executor and blocks until the transfer is complete.
+     * @param client
+     * @param request the client's request
+     * @param targetTranslation
+     */
+    private void sendTargetTranslation(Peer client, Request request, TargetTranslation targetTranslation) {
+        JSONObject contextJson = request.context;
+        ServerSocket fileSocket = null;
+        ExportCache.Export export = null;
+        // TRICKY: keep the repository open until the bundle has been written to the slow socket
+        Repo repo = targetTranslation.getRepo();
+        repo.acquire();
+        try {
+            targetTranslation.setDefaultContributor(App.getProfile().getNativeSpeaker());
+
+            // find the commits the client already has
+            List<ObjectId> commonCommits = new ArrayList<>();
+            JSONArray havesJson = contextJson.optJSONArray("have");
+            if(havesJson != null && havesJson.length() > 0) {
+                List<String> haves = new ArrayList<>();
+                for(int i = 0; i < havesJson.length(); i ++) {
+                    haves.add(havesJson.getString(i));
+                }
+                targetTranslation.commitSync();
+                commonCommits.addAll(BundleSync.findCommon(repo.getGit().getRepository(), haves));
+            }
+            boolean delta = !commonCommits.isEmpty();
+
+            // only send the commits the client is missing otherwise share the cached archive
+            // TRICKY: the lease keeps the archive from being deleted if the target translation changes before it is sent
+            File archive = null;
+            if(!delta) {
+                export = mExportCache.acquire(targetTranslation);
+                if(export != null && export.isCached()) {
+                    archive = export.getArchive();
+                }
+            }
+            String archiveName = targetTranslation.getId() + "." + Translator.ARCHIVE_EXTENSION;
+
+            fileSocket = createWriteSocket();
+            if(fileSocket == null) return;
+
+            // send file details
+            JSONObject targetTranslationContext = new JSONObject();
+            targetTranslationContext.put("port", fileSocket.getLocalPort());
+            targetTranslationContext.put("target_translation_id", targetTranslation.getId());
+            if(delta) {
+                targetTranslationContext.put("name", targetTranslation.getId() + ".bundle");
+                // the size of the bundle is not known until it has been written
+                targetTranslationContext.put("size", 0);
+                targetTranslationContext.put("delta", true);
+                targetTranslationContext.put("streamed", true);
+            } else if(archive != null) {
+                targetTranslationContext.put("name", archiveName);
+                targetTranslationContext.put("size", archive.length());
+            } else {
+                targetTranslationContext.put("name", archiveName);
+                // the size is estimated since the archive has not been generated yet
+                targetTranslationContext.put("size", ArchiveWriter.sizeOf(targetTranslation.getPath()));
+                targetTranslationContext.put("streamed", true);
+            }
+            // TRICKY: older clients do not understand encrypted data so only encrypt when the client asks for it
+            boolean encrypt = contextJson.optBoolean("accepts_encrypted", false);
+            if(encrypt) {
+                targetTranslationContext.put("encrypted", true);
+            }
+            Request reply = request.makeReply(targetTranslationContext);
+            sendRequest(client, reply);
+
+            // send the data
+            PublicKey publicKey = RSAEncryption.getPublicKeyFromString(client.keyStore.getString(PeerStatusKeys.PUBLIC_KEY));
+            Socket socket = fileSocket.accept();
+            long start = System.currentTimeMillis();
+            long bytesSent;
+            try {
+                if(archive != null && !encrypt) {
+                    bytesSent = transferFile(archive, socket.getOutputStream());
+                } else {
+                    OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+                    if(encrypt) {
+                        // TRICKY: the data is encrypted with the same session key as the reply
+                        out = openEncryptedOutputStream(client, publicKey, out);
+                    }
+                    if(delta) {
+                        CountingOutputStream countingOut = new CountingOutputStream(out);
+                        BundleSync.writeBundle(repo.getGit().getRepository(), commonCommits, countingOut);
+                        bytesSent = countingOut.getCount();
+                    } else if(archive != null) {
+                        bytesSent = sendFile(archive, out);
+                    } else {
+                        // TRICKY: the archive is streamed straight into the socket and a copy is written to the cache for the next peer
+                        OutputStream cacheOut = null;
+                        if(export != null) {
+                            try {
+                                cacheOut = export.openOutputStream();
+                            } catch (IOException e) {
+                                Logger.w(this.getClass().getName(), "Failed to cache the archive of " + targetTranslation.getId(), e);
+                            }
+                        }
+                        CountingOutputStream countingOut = new CountingOutputStream(cacheOut != null ? new TeeOutputStream(out, cacheOut) : out);
+                        App.getTranslator().exportArchive(targetTranslation, countingOut, archiveName);
+                        bytesSent = countingOut.getCount();
+                        if(cacheOut != null) {
+                            export.finish();
+                        }
+                    }
+                    out.close();
+                }
+            } finally {
+                socket.close();
+            }
+            recordTransfer(client, bytesSent, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            Logger.e(this.getClass().getName(), "Failed to send the target translation", e);
+        } finally {
+            if(export != null) {
+                if(!export.isCached()) {
+                    // allow the next peer to cache the archive
+                    export.abort();
+                }
+                export.release();
+            }
+            repo.release();
+            if(fileSocket != null) {
+                try {
+                    fileSocket.close();
+                } catch (IOException e) {
+                    Logger.e(this.getClass().getName(), "Failed to close the sender socket", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies a file to the output stream
+     * @param file
+     * @param out
+     * @return the number of bytes sent
+     * @throws IOException
+     */
+    private static long sendFile(File file, OutputStream out) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[EncryptedFrameOutputStream.FRAME_SIZE];
+            long total = 0;
+            int count;
+            while((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+                total += count;
+            }
+            out.flush();
+            return total;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Transfers a file to the output stream through the file channel
+     * so the data does not have to be copied through our own buffer
+     * @param file
+     * @param out
+     * @return the number of bytes sent
+     * @throws IOException
+     */
+    private static long transferFile(File file, OutputStream out) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            WritableByteChannel target = Channels.newChannel(out);
+            long size = channel.size();
+            long total = 0;
+            while(total < size) {
+                long count = channel.transferTo(total, size - total, target);
+                if(count <= 0) {
+                    throw new IOException("Failed to transfer " + file);
+                }
+                total += count;
+            }
+            out.flush();
+            return total;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Records the transfer metrics of a peer
+     * @param client
+     * @param bytes the number of bytes sent
+     * @param duration how long the transfer took in milliseconds
+     */
+    private void recordTransfer(Peer client, long bytes, long duration) {
+        long totalBytes = bytes;
+        Object previous = client.keyStore.get(PeerStatusKeys.BYTES_SENT);
+        if(previous instanceof Long) {
+            totalBytes += (Long) previous;
+        }
+        long throughput = duration > 0 ? bytes * 1000 / duration : bytes;
+        client.keyStore.add(PeerStatusKeys.BYTES_SENT, totalBytes);
+        client.keyStore.add(PeerStatusKeys.THROUGHPUT, throughput);
+        Logger.i(this.getClass().getName(), "Sent " + bytes + " bytes to " + client.getIpAddress()
+                + " in " + duration + "ms (" + throughput + " B/s). "
+                + getQueuedTransferCount() + " transfers queued");
+    }
+
+    /**
+     * Returns the number of transfers waiting to be sent
+     * @return
+     */
+    public int getQueuedTransferCount() {
+        return mTransferExecutor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of transfers currently being sent
+     * @return
+     */
+    public int getActiveTransferCount() {
+        return mTransferExecutor.getActiveCount();
+    }
+
     /**
      * Offers a target translation to the peer
      * @param client
@@ -397,6 +628,72 @@ public class ServerService extends NetworkService {
         }
     }
 
+    /**
+     * Counts the bytes written to a stream
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count = 0;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count ++;
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+            count += length;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Writes to two streams at once
+     */
+    private static class TeeOutputStream extends FilterOutputStream {
+        private final OutputStream branch;
+
+        TeeOutputStream(OutputStream out, OutputStream branch) {
+            super(out);
+            this.branch = branch;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            branch.write(b);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+            branch.write(buffer, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+            branch.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.close();
+            } finally {
+                branch.close();
+            }
+        }
+    }
+
     /**
      * Class to retrieve instance of service
      */
@@ -447,7 +744,12 @@ public class ServerService extends NetworkService {
                 try {
                     socket = mServerSocket.accept();
                     ClientRunnable clientRunnable = new ClientRunnable(socket);
-                    new Thread(clientRunnable).start();
+                    try {
+                        mConnectionExecutor.execute(clientRunnable);
+                    } catch (RejectedExecutionException e) {
+                        Logger.w(this.getClass().getName(), "Too many connections. Rejecting " + socket.getInetAddress());
+                        clientRunnable.close();
+                    }
                 } catch (Exception e) {
                     if(!Thread.currentThread().isInterrupted()) {
                         Logger.e(this.getClass().getName(), "failed to accept socket", e);
@@ -505,6 +807,13 @@ public class ServerService extends NetworkService {
                     onMessageReceived(mClient, message);
                 }
             }
+            close();
+        }
+
+        /**
+         * Closes the connection and forgets the peer
+         */
+        public void close() {
             // close the connection
             mConnection.close();
             // remove all instances of the peer
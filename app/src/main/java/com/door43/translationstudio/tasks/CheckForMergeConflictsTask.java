@@ -1,5 +1,6 @@
 package com.door43.translationstudio.tasks;
 
+import com.door43.translationstudio.core.MergeConflictIndex;
 import com.door43.translationstudio.core.TargetTranslation;
 import com.door43.translationstudio.ui.translate.ListItem;
 
@@ -31,8 +32,15 @@ public class CheckForMergeConflictsTask extends ManagedTask {
     public void start() {
         mConflictCount = 0;
         if(mItems != null) {
+            // TRICKY: only the conflicted chunks need to be loaded when the target translation has been indexed
+            MergeConflictIndex index = MergeConflictIndex.get(mTargetTranslation.getPath());
             for (ListItem item : mItems) {
-                item.load(mSourceContainer, mTargetTranslation);
+                if(index == null || index.isConflicted(item.chapterSlug, item.chunkSlug)) {
+                    item.load(mSourceContainer, mTargetTranslation);
+                } else {
+                    // the conflict may have been resolved since the item was last loaded
+                    item.hasMergeConflicts = false;
+                }
                 if(item.hasMergeConflicts) {
                     mConflictCount++;
                 }
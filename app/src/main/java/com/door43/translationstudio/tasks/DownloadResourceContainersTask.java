@@ -1,6 +1,7 @@
 package com.door43.translationstudio.tasks;
 
 import com.door43.translationstudio.App;
+import com.door43.translationstudio.core.TranslationProgressCache;
 
 import org.unfoldingword.door43client.Door43Client;
 import org.unfoldingword.door43client.models.Translation;
@@ -68,6 +69,7 @@ public class DownloadResourceContainersTask extends ManagedTask {
                 }
                 ResourceContainer rc = library.download(translation.language.slug, translation.project.slug, translation.resource.slug);
                 downloadedContainers.add(rc);
+                TranslationProgressCache.remove(rc.slug);
                 Logger.i(TAG, "download Success: " + translation.resourceContainerSlug);
                 passSuccess = true;
             } catch (Exception e) {
@@ -8,6 +8,7 @@ import android.support.v4.provider.DocumentFile;
 import com.door43.translationstudio.App;
 import com.door43.translationstudio.R;
 import com.door43.translationstudio.core.TargetTranslation;
+import com.door43.util.ArchiveWriter;
 import com.door43.util.FileUtilities;
 import com.door43.util.SdUtils;
 
@@ -46,6 +47,14 @@ public class ExportProjectTask extends ManagedTask {
         OutputStream out = null;
         boolean success = false;
         publishProgress(-1, message);
+        ArchiveWriter.OnProgressListener progressListener = new ArchiveWriter.OnProgressListener() {
+            @Override
+            public void onProgress(long bytesWritten, long totalBytes, long bytesPerSecond) {
+                if(totalBytes > 0) {
+                    publishProgress((float)bytesWritten / (float)totalBytes, message);
+                }
+            }
+        };
         boolean isOutputToDocumentFile = !SdUtils.isRegularFile(path);
 
         try {
@@ -55,19 +64,19 @@ public class ExportProjectTask extends ManagedTask {
                 filePath = SdUtils.getPathString(sdCardFile);
                 out = SdUtils.createOutputStream(sdCardFile);
                 try {
-                    App.getTranslator().exportArchive(targetTranslation, out, filename);
+                    App.getTranslator().exportArchive(targetTranslation, out, filename, progressListener);
                     success = true;
                 } catch (NoHeadException e) {
                     // fix corrupt repo and try again
                     App.recoverRepo(targetTranslation);
-                    App.getTranslator().exportArchive(targetTranslation, out, filename);
+                    App.getTranslator().exportArchive(targetTranslation, out, filename, progressListener);
                     success = true;
                 }
 
             } else {
                 File exportFile = new File(path.getPath(), filename);
                 filePath = exportFile.toString();
-                App.getTranslator().exportArchive(targetTranslation, exportFile);
+                App.getTranslator().exportArchive(targetTranslation, exportFile, progressListener);
                 success = exportFile.exists();
             }
         } catch (Exception e) {
@@ -8,6 +8,7 @@ import com.door43.translationstudio.App;
 import com.door43.translationstudio.R;
 import com.door43.translationstudio.ui.SettingsActivity;
 import com.door43.translationstudio.core.Profile;
+import com.door43.translationstudio.core.MergeConflictIndex;
 import com.door43.translationstudio.core.TargetTranslation;
 import com.door43.translationstudio.git.Repo;
 import com.door43.translationstudio.git.TransportCallback;
@@ -78,8 +79,14 @@ public class PullTargetTranslationTask extends ManagedTask {
                     Logger.w(this.getClass().getName(), "Failed to commit the target translation " + targetTranslation.getId(), e);
                 }
                 Repo repo = this.targetTranslation.getRepo();
-                createBackupBranch(repo);
-                this.message = pull(repo, sourceURL);
+                // keep the repository open for the whole pull
+                repo.acquire();
+                try {
+                    createBackupBranch(repo);
+                    this.message = pull(repo, sourceURL);
+                } finally {
+                    repo.release();
+                }
             }
         }
     }
@@ -184,6 +191,9 @@ public class PullTargetTranslationTask extends ManagedTask {
             } else {
                 this.status = Status.UP_TO_DATE;
             }
+            if(mergeResult != null) {
+                MergeConflictIndex.fromMerge(this.targetTranslation, this.conflicts != null ? this.conflicts.keySet() : null);
+            }
 
             return "message";
         } catch (TransportException e) {
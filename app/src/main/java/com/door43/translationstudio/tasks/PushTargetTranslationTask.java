@@ -52,7 +52,13 @@ public class PushTargetTranslationTask extends ManagedTask {
             try {
                 this.targetTranslation.commitSync();
                 Repo repo = this.targetTranslation.getRepo();
-                this.message = push(repo, remote);
+                // keep the repository open for the whole push
+                repo.acquire();
+                try {
+                    this.message = push(repo, remote);
+                } finally {
+                    repo.release();
+                }
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -6,6 +6,7 @@ import com.door43.translationstudio.App;
 import com.door43.translationstudio.R;
 import com.door43.translationstudio.core.NewLanguageRequest;
 import com.door43.translationstudio.core.TargetTranslation;
+import com.door43.translationstudio.core.TargetTranslationSummary;
 import com.door43.util.FileUtilities;
 
 import org.unfoldingword.tools.taskmanager.ManagedTask;
@@ -118,9 +119,11 @@ public class SubmitNewLanguageRequestsTask extends ManagedTask {
         FileUtilities.writeStringToFile(requestFile, request.toJson());
 
         // updated affected target translations
-        TargetTranslation[] translations = App.getTranslator().getTargetTranslations();
-        for(TargetTranslation t:translations) {
-            if(t.getTargetLanguageId().equals(request.tempLanguageCode)) {
+        TargetTranslationSummary[] summaries = App.getTranslator().getTargetTranslationSummaries();
+        for(TargetTranslationSummary summary:summaries) {
+            if(summary.targetLanguageId.equals(request.tempLanguageCode)) {
+                TargetTranslation t = App.getTranslator().getTargetTranslation(summary.id);
+                if(t == null) continue;
                 Logger.i(this.getClass().getName(), "Updating language request in target translation '" + t.getId() + "'");
                 t.setNewLanguageRequest(request);
             }
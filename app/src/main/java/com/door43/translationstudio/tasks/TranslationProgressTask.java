@@ -2,26 +2,40 @@ package com.door43.translationstudio.tasks;
 
 import com.door43.translationstudio.App;
 import com.door43.translationstudio.core.TargetTranslation;
+import com.door43.translationstudio.core.TargetTranslationSummary;
+import com.door43.translationstudio.core.TranslationProgressCache;
 
 import org.unfoldingword.door43client.Door43Client;
-import org.unfoldingword.door43client.Index;
-import org.unfoldingword.door43client.models.Translation;
-import org.unfoldingword.resourcecontainer.ResourceContainer;
 import org.unfoldingword.tools.taskmanager.ManagedTask;
 
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
- * Calculates the progress of a translation
+ * Calculates the progress of a translation.
+ * When given a list of summaries the progress of all of them is calculated in a single task
+ * and the source of each project is only counted once. See {@link TranslationProgressCache}
  */
 public class TranslationProgressTask extends ManagedTask {
     public static final String TASK_ID = "translation-progress";
     private double progress = 0.0;
+    private final Map<String, Double> progressById = new HashMap<>();
 
     public final TargetTranslation targetTranslation;
+    private final TargetTranslationSummary[] summaries;
 
     public TranslationProgressTask(TargetTranslation targetTranslation) {
         this.targetTranslation = targetTranslation;
+        this.summaries = new TargetTranslationSummary[0];
+    }
+
+    /**
+     * Calculates the progress of several target translations without opening them
+     * @param summaries
+     */
+    public TranslationProgressTask(TargetTranslationSummary[] summaries) {
+        this.targetTranslation = null;
+        this.summaries = summaries;
     }
 
     @Override
@@ -29,31 +43,18 @@ public class TranslationProgressTask extends ManagedTask {
         Door43Client library = App.getLibrary();
         if(library == null) return;
 
-        // find matching source
-        Translation sourceTranslation = getSourceTranslation(library.index, this.targetTranslation);
-        if(sourceTranslation == null) return;
-
-        // load source
-        ResourceContainer container;
-        try {
-            container = library.open(sourceTranslation.resourceContainerSlug);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return;
+        if(targetTranslation != null) {
+            int numSourceChunks = TranslationProgressCache.countSourceChunks(library, targetTranslation.getProjectId());
+            this.progress = TranslationProgressCache.calculate(targetTranslation.numFinished(), numSourceChunks);
         }
 
-        // count chunks
-        int numSourceChunks = countChunks(container);
-        int numTargetChunks = countChunks(targetTranslation);
-
-        if(numSourceChunks == 0) {
-            this.progress = 0.0;
-        } else {
-            this.progress = (double)numTargetChunks / (double)numSourceChunks;
+        for(int i = 0; i < summaries.length; i ++) {
+            if(isCanceled()) return;
+            TargetTranslationSummary summary = summaries[i];
+            int numSourceChunks = TranslationProgressCache.countSourceChunks(library, summary.projectId);
+            progressById.put(summary.id, TranslationProgressCache.calculate(summary.numFinished, numSourceChunks));
+            publishProgress((float)(i + 1) / summaries.length, "");
         }
-
-        // correct invalid values
-        if(this.progress > 1) this.progress = 1.0;
     }
 
     /**
@@ -65,39 +66,10 @@ public class TranslationProgressTask extends ManagedTask {
     }
 
     /**
-     * Counts the number of chunks in a target translation.
-     * TODO: once target translations become resource containers we can use the method below instead.
-     * @param targetTranslation the target translation to count
-     * @return the number of completed chunks in the target translation
+     * Returns the progress of each of the summarized target translations
+     * @return a map of target translation ids to progress between 0 and 1
      */
-    private int countChunks(TargetTranslation targetTranslation) {
-        return targetTranslation.numFinished();
-    }
-
-    /**
-     * Counts how many chunks are in a resource container
-     * @param container the resource container to be counted
-     * @return the number of chunks in the resource container
-     */
-    private int countChunks(ResourceContainer container) {
-        int count = 0;
-        for(String chapterSlug:container.chapters()) {
-            count += container.chunks(chapterSlug).length;
-        }
-        return count;
-    }
-
-    /**
-     * Returns a single source translation that corresponds to the target translation
-     * @param index the source index
-     * @param targetTranslation the target translation to match against
-     * @return a matching source translation or null
-     */
-    private Translation getSourceTranslation(Index index, TargetTranslation targetTranslation) {
-        List<Translation> sourceTranslations = index.findTranslations(null, targetTranslation.getProjectId(), null, "book", null, App.MIN_CHECKING_LEVEL, -1);
-        if(sourceTranslations.size() > 0) {
-            return sourceTranslations.get(0);
-        }
-        return null;
+    public Map<String, Double> getProgressById() {
+        return progressById;
     }
 }
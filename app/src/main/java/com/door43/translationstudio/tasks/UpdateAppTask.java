@@ -24,13 +24,24 @@ import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * This tasks performs any upgrades that need to occur between app versions
  */
 public class UpdateAppTask extends ManagedTask {
     public static final String TASK_ID = "update_app";
+    private static final int MAX_MIGRATION_THREADS = 3;
+    private static final Pattern PACKAGE_VERSION_PATTERN = Pattern.compile("\"package_version\"\\s*:\\s*(\\d+)");
+    private static final Pattern GENERATOR_BUILD_PATTERN = Pattern.compile("\"generator\"\\s*:\\s*\\{[^}]*\"build\"\\s*:\\s*(\\d+)");
     private final Context mContext;
     private String mError = null;
     private boolean updateLibrary = true;
@@ -112,8 +123,7 @@ public class UpdateAppTask extends ManagedTask {
                 e.printStackTrace();
             }
         }
-        updateTargetTranslations();
-        updateBuildNumbers();
+        updateTargetTranslations(pInfo);
     }
 
     /**
@@ -160,8 +170,14 @@ public class UpdateAppTask extends ManagedTask {
      * Updates the target translations
      * NOTE: we used to do this manually but now we run this every time so we don't have to manually
      * add a new migration path each time
+     *
+     * Each target translation is migrated if its manifest is out of date, has its generator updated,
+     * and is committed in a single pass. Translations that are already up to date only have their
+     * language requests imported and are not opened or committed.
+     * The passes run on a small worker pool and finished target translations are checkpointed
+     * so an interrupted update will resume where it left off.
      */
-    private void updateTargetTranslations() {
+    private void updateTargetTranslations(final PackageInfo pInfo) {
         // TRICKY: we manually list the target translations because they won't be viewable until updated
         File translatorDir = App.getTranslator().getPath();
         File[] dirs = translatorDir.listFiles(new FileFilter() {
@@ -170,39 +186,163 @@ public class UpdateAppTask extends ManagedTask {
                 return pathname.isDirectory() && !pathname.getName().equals("cache");
             }
         });
-        if(dirs != null) {
-            for (File tt : dirs) {
-                Logger.i(this.getClass().getSimpleName(),"Migrating: "+ tt);
-                if (TargetTranslationMigrator.migrate(tt) == null) {
-                    Logger.w(this.getClass().getName(), "Failed to migrate the target translation " + tt.getName());
-                }
-            }
+        if(dirs == null || dirs.length == 0) return;
+
+        final int versionCode = pInfo != null ? pInfo.versionCode : 0;
+        // TRICKY: the checkpoint only lets us resume an interrupted pass. The manifest decides what needs migrating.
+        final MigrationCheckpoint checkpoint = new MigrationCheckpoint();
+        if(updateLibrary) {
+            // TRICKY: temporary languages registered by an interrupted pass were removed with the library
+            checkpoint.clear();
         }
 
-        // commit migration changes
-        TargetTranslation[] translations = App.getTranslator().getTargetTranslations();
-        for(TargetTranslation tt:translations) {
+        final Object migrationLock = new Object();
+        ExecutorService executor = Executors.newFixedThreadPool(MAX_MIGRATION_THREADS);
+        List<Future<?>> jobs = new ArrayList<>();
+        for (final File dir : dirs) {
+            if(checkpoint.isDone(dir.getName())) continue;
+            jobs.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    updateTargetTranslation(dir, versionCode, checkpoint, migrationLock);
+                }
+            }));
+        }
+        executor.shutdown();
+        for(Future<?> job:jobs) {
             try {
-                tt.unlockRepo(); // TRICKY: prune dangling locks
-                tt.commitSync();
-            } catch (Exception e) {
-                Logger.e(this.getClass().getName(), "Failed to commit migration changes to target translation " + tt.getId());
+                job.get();
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                Logger.e(this.getClass().getName(), "Failed to update a target translation", e);
             }
         }
+        checkpoint.clear();
     }
 
     /**
-     * Updates the generator information for the target translations
+     * Migrates, updates the generator of, and commits a single target translation
+     * @param dir the target translation directory
+     * @param versionCode the current app version
+     * @param checkpoint records the target translations finished in this pass
+     * @param migrationLock
      */
-    private void updateBuildNumbers() {
-        TargetTranslation[] targetTranslations = App.getTranslator().getTargetTranslations();
-        for(TargetTranslation tt:targetTranslations) {
+    private void updateTargetTranslation(File dir, int versionCode, MigrationCheckpoint checkpoint, Object migrationLock) {
+        String manifest;
+        try {
+            manifest = FileUtilities.readFileToString(new File(dir, "manifest.json"));
+        } catch (IOException e) {
+            Logger.w(this.getClass().getName(), "Missing manifest in " + dir.getName());
+            return;
+        }
+
+        // migrate
+        int packageVersion = probeInt(manifest, PACKAGE_VERSION_PATTERN, 2);
+        boolean migrated = packageVersion < TargetTranslation.PACKAGE_VERSION;
+        boolean changed = false;
+        // TRICKY: migrations touch the library index and may rename the directory so they run one at a time
+        synchronized (migrationLock) {
+            if(migrated) {
+                Logger.i(this.getClass().getSimpleName(),"Migrating: "+ dir);
+                File migratedDir = TargetTranslationMigrator.migrate(dir);
+                if(migratedDir == null) {
+                    Logger.w(this.getClass().getName(), "Failed to migrate the target translation " + dir);
+                    return;
+                }
+                dir = migratedDir;
+            } else {
+                // TRICKY: up to date translations still need their temporary languages added to the library index
+                if(!TargetTranslationMigrator.isSupported(dir)) {
+                    Logger.w(this.getClass().getName(), "Failed to migrate the target translation " + dir);
+                    return;
+                }
+                File changedDir = TargetTranslationMigrator.importLanguageRequest(dir);
+                if(changedDir != null) {
+                    changed = true;
+                    dir = changedDir;
+                }
+            }
+        }
+
+        // skip translations that are already up to date
+        boolean generatorCurrent = probeInt(manifest, GENERATOR_BUILD_PATTERN, -1) == versionCode;
+        if(!migrated && !changed && generatorCurrent) {
+            checkpoint.markDone(dir.getName());
+            return;
+        }
+
+        TargetTranslation tt = TargetTranslation.open(dir);
+        if(tt == null) return;
+
+        // update the generator
+        if(!generatorCurrent || migrated) {
             try {
                 TargetTranslation.updateGenerator(mContext, tt);
             } catch (Exception e) {
                 Logger.e(this.getClass().getName(), "Failed to update the generator in the target translation " + tt.getId());
             }
         }
+
+        // commit migration changes
+        try {
+            tt.unlockRepo(); // TRICKY: prune dangling locks
+            tt.commitSync();
+        } catch (Exception e) {
+            Logger.e(this.getClass().getName(), "Failed to commit migration changes to target translation " + tt.getId());
+        }
+        checkpoint.markDone(dir.getName());
+    }
+
+    /**
+     * Reads an integer out of the manifest without parsing the entire manifest
+     * @param manifest the raw manifest
+     * @param pattern a pattern with the integer in the first group
+     * @param defaultValue the value to return if the pattern does not match
+     * @return
+     */
+    private static int probeInt(String manifest, Pattern pattern, int defaultValue) {
+        Matcher matcher = pattern.matcher(manifest);
+        if(matcher.find()) {
+            try {
+                return Integer.parseInt(matcher.group(1));
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Records which target translations have been updated in the current pass
+     * so an interrupted pass can be resumed. The checkpoint is cleared once the pass completes.
+     */
+    private static class MigrationCheckpoint {
+        private static final String KEY_DONE = "migration_checkpoint_done";
+        private final SharedPreferences prefs;
+        private final Set<String> done = new HashSet<>();
+
+        MigrationCheckpoint() {
+            prefs = App.context().getSharedPreferences(App.PREFERENCES_TAG, App.MODE_PRIVATE);
+            done.addAll(prefs.getStringSet(KEY_DONE, new HashSet<String>()));
+        }
+
+        synchronized boolean isDone(String name) {
+            return done.contains(name);
+        }
+
+        synchronized void markDone(String name) {
+            done.add(name);
+            // TRICKY: the preferences require a new set instance
+            prefs.edit().putStringSet(KEY_DONE, new HashSet<>(done)).apply();
+        }
+
+        synchronized void clear() {
+            done.clear();
+            prefs.edit().remove(KEY_DONE).apply();
+        }
     }
 
     /**
@@ -2,6 +2,7 @@ package com.door43.translationstudio.tasks;
 
 import com.door43.translationstudio.App;
 import com.door43.translationstudio.R;
+import com.door43.translationstudio.core.TranslationProgressCache;
 import com.door43.translationstudio.ui.SettingsActivity;
 
 import org.unfoldingword.door43client.Door43Client;
@@ -80,6 +81,8 @@ public class UpdateSourceTask extends ManagedTask {
                 }
             });
             success = true;
+            // the sources chosen for the progress counts may have changed
+            TranslationProgressCache.empty();
         } catch (Exception e) {
             e.printStackTrace();
         }
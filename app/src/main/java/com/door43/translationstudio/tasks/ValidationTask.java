@@ -5,15 +5,17 @@ import android.content.Context;
 import com.door43.translationstudio.App;
 import com.door43.translationstudio.R;
 import com.door43.translationstudio.core.ChapterTranslation;
+import com.door43.translationstudio.core.ContainerCache;
 import com.door43.translationstudio.core.Frame;
 import com.door43.translationstudio.core.FrameTranslation;
+import com.door43.translationstudio.core.MergeConflictIndex;
 import com.door43.translationstudio.core.MergeConflictsHandler;
-import com.door43.translationstudio.core.ProjectTranslation;
 import com.door43.translationstudio.core.TargetTranslation;
 import com.door43.translationstudio.core.TranslationFormat;
 import com.door43.translationstudio.core.Translator;
 import com.door43.translationstudio.core.Util;
 import com.door43.translationstudio.ui.publish.ValidationItem;
+import com.door43.util.FileUtilities;
 import com.door43.util.StringUtilities;
 
 import org.json.JSONException;
@@ -24,11 +26,17 @@ import org.unfoldingword.resourcecontainer.ResourceContainer;
 import org.unfoldingword.tools.logger.Logger;
 import org.unfoldingword.tools.taskmanager.ManagedTask;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Performs the validation on a target translation.
@@ -43,6 +51,11 @@ public class ValidationTask extends ManagedTask {
     private final String referenceStr;
     private List<ValidationItem> mValidations = new ArrayList<>();
 
+    /**
+     * The results of the last validation of each target translation keyed by the target translation id
+     */
+    private static final Map<String, Map<String, ChapterResult>> sResults = new HashMap<>();
+
     public ValidationTask(Context context, String targetTranslationId, String sourceTranslationId) {
         mTargetTranslationId = targetTranslationId;
         mSourceTranslationId = sourceTranslationId;
@@ -59,109 +72,46 @@ public class ValidationTask extends ManagedTask {
         TargetTranslation targetTranslation = translator.getTargetTranslation(mTargetTranslationId);
         TargetLanguage targetLanguage = library.index().getTargetLanguage(targetTranslation.getTargetLanguageId());
 
-        ResourceContainer container;
-        try {
-            container = library.open(mSourceTranslationId);
-        } catch (Exception e) {
-            Logger.e("ValidationTask", "Failed to load resource container", e);
+        // TRICKY: the cached container is replaced when the source is updated which also invalidates the summary
+        ResourceContainer container = ContainerCache.cache(library, mSourceTranslationId);
+        if(container == null) {
+            Logger.e("ValidationTask", "Failed to load resource container " + mSourceTranslationId);
             return;
         }
-        TranslationFormat format;
-        try {
-            format = TranslationFormat.parse(container.info.getString("content_mime_type"));
-        } catch (JSONException e) {
-            Logger.e("ValidationTask", "Failed to read the translation format from the container", e);
+        SourceSummary source = SourceSummary.get(container);
+        if(source == null) {
             return;
         }
-        String projectTitle = "";
-        projectTitle = container.readChunk("front", "title");
+        TranslationFormat format = source.format;
+        String projectTitle = source.projectTitle;
         SourceLanguage sourceLanguage = library.index().getSourceLanguage(container.language.slug);
-        String[] chapters = container.chapters();
+        String[] chapters = source.chapters;
+        MergeConflictIndex conflicts = MergeConflictsHandler.getMergeConflictIndex(mTargetTranslationId);
+        Map<String, ChapterResult> previousResults = getCachedResults(mTargetTranslationId);
+        Map<String, ChapterResult> results = new HashMap<>();
 
         // validate chapters
         int lastValidChapterIndex = -1;
         List<ValidationItem> chapterValidations = new ArrayList<>();
 
-        ProjectTranslation projectTranslation = targetTranslation.getProjectTranslation();
-
         ArrayList<String> chapterList = sortChapters(chapters);
         for(int i = 0; i < chapterList.size(); i ++) {
             String chapterSlug = chapterList.get(i);
-            List<String> chunks = new ArrayList(Arrays.asList(container.chunks(chapterSlug)));
+            SourceChapter sourceChapter = source.getChapter(chapterSlug);
 
-            // validate frames
-            int lastValidFrameIndex = -1;
-            boolean chapterIsValid = true;
-            List<ValidationItem> frameValidations = new ArrayList<>();
-
-            ChapterTranslation chapterTranslation = targetTranslation.getChapterTranslation(chapterSlug);
-            if(MergeConflictsHandler.isMergeConflicted(chapterTranslation.title) || chunks.contains("title") && !chapterTranslation.isTitleFinished()) {
-                chapterIsValid = false;
-                frameValidations.add(ValidationItem.generateInvalidFrame(getChunkTitle(container, chapterSlug, "title", titleStr), sourceLanguage, chapterTranslation.title, targetLanguage, TranslationFormat.DEFAULT, mTargetTranslationId, chapterSlug, "00"));
+            // only re-validate chapters that have changed since the last run
+            ChapterState state = new ChapterState(targetTranslation, sourceChapter, conflicts);
+            String signature = state.getSignature(projectTitle, sourceLanguage, targetLanguage);
+            ChapterResult result = previousResults.get(chapterSlug);
+            if(result == null || result.source != source || !result.signature.equals(signature)) {
+                result = validateChapter(targetTranslation, state, projectTitle, format, sourceLanguage, targetLanguage);
+                result.source = source;
+                result.signature = signature;
             }
+            results.put(chapterSlug, result);
+            boolean chapterIsValid = result.valid;
+            List<ValidationItem> frameValidations = result.frameValidations;
 
-            if(MergeConflictsHandler.isMergeConflicted(chapterTranslation.reference) || chunks.contains("reference") && !chapterTranslation.isReferenceFinished()) {
-                chapterIsValid = false;
-                frameValidations.add(ValidationItem.generateInvalidFrame(getChunkTitle(container, chapterSlug, "reference", referenceStr), sourceLanguage, chapterTranslation.reference, targetLanguage, TranslationFormat.DEFAULT, mTargetTranslationId, chapterSlug, "00"));
-            }
-
-            for(int j = 0; j < chunks.size(); j ++) {
-                String chunkSlug = chunks.get(j);
-                if( ("title".equals(chunkSlug)) || ("reference".equals(chunkSlug)) ) { // if chunk types we have already handled, then skip
-                    continue;
-                }
-
-                FrameTranslation frameTranslation = targetTranslation.getFrameTranslation(chapterSlug, chunkSlug, format);
-                String chunkText;
-                chunkText = container.readChunk(chapterSlug, chunkSlug);
-                // TODO: also validate the checking questions
-                if(lastValidFrameIndex == -1 && (frameTranslation.isFinished() || chunkText.isEmpty())) {
-                    // start new valid range
-                    lastValidFrameIndex = j;
-                } else if(MergeConflictsHandler.isMergeConflicted(frameTranslation.body) || !(frameTranslation.isFinished() || chunkText.isEmpty()) || (frameTranslation.isFinished() || chunkText.isEmpty()) && j == chunks.size() - 1){
-                    // close valid range
-                    if(lastValidFrameIndex > -1) {
-                        int previousFrameIndex = j - 1;
-                        if(frameTranslation.isFinished() || chunkText.isEmpty()) {
-                            previousFrameIndex = j;
-                        }
-                        if(lastValidFrameIndex < previousFrameIndex) {
-                            // range
-                            String previousFrame = "";
-                            previousFrame = container.readChunk(chapterSlug, chunks.get(previousFrameIndex));
-                            String lastValidText = "";
-                            lastValidText = container.readChunk(chapterSlug, chunks.get(lastValidFrameIndex));
-                            String frameTitle = projectTitle + " " + StringUtilities.formatNumber(chapterSlug);
-                            frameTitle += ":" + Frame.getStartVerse(lastValidText, format) + "-" + Frame.getEndVerse(previousFrame, format);
-                            frameValidations.add(ValidationItem.generateValidFrame(frameTitle, sourceLanguage, true));
-                        } else {
-                            String lastValidFrame = chunks.get(lastValidFrameIndex);
-                            String lastValidText = "";
-                            lastValidText = container.readChunk(chapterSlug, chunks.get(lastValidFrameIndex));
-                            String frameTitle = projectTitle + " " + StringUtilities.formatNumber(chapterSlug);
-                            frameTitle += ":" + Frame.getStartVerse(lastValidText, format);
-                            if(!Frame.getStartVerse(lastValidText, format).equals(Frame.getEndVerse(lastValidText, format))) {
-                                frameTitle += "-" + Frame.getEndVerse(lastValidText, format);
-                            }
-                            frameValidations.add(ValidationItem.generateValidFrame(frameTitle, sourceLanguage, false));
-                        }
-                        lastValidFrameIndex = -1;
-                    }
-
-                    // add invalid frame
-                    if(!(frameTranslation.isFinished() || chunkText.isEmpty())) {
-                        chapterIsValid = false;
-                        String frameTitle = projectTitle + " " + StringUtilities.formatNumber(chapterSlug);
-                        frameTitle += ":" + Frame.getStartVerse(chunkText, format);
-                        if (!Frame.getStartVerse(chunkText, format).equals(Frame.getEndVerse(chunkText, format))) {
-                            frameTitle += "-" + Frame.getEndVerse(chunkText, format);
-                        }
-                        frameValidations.add(ValidationItem.generateInvalidFrame(frameTitle, sourceLanguage, frameTranslation.body,
-                                targetLanguage, frameTranslation.getFormat(), mTargetTranslationId, chapterSlug, chunkSlug));
-                    }
-                }
-
-            }
             if(lastValidChapterIndex == -1 && chapterIsValid) {
                 // start new valid range
                 lastValidChapterIndex = i;
@@ -188,8 +138,7 @@ public class ValidationTask extends ManagedTask {
 
                 // add invalid chapter
                 if(!chapterIsValid) {
-                    String chapterTitle = "";
-                    chapterTitle = container.readChunk(chapterSlug, "title");
+                    String chapterTitle = sourceChapter.title;
                     if (chapterTitle.isEmpty()) {
                         chapterTitle = projectTitle + " " + StringUtilities.formatNumber(chapterSlug);
                     }
@@ -201,6 +150,9 @@ public class ValidationTask extends ManagedTask {
                 }
             }
         }
+        synchronized (sResults) {
+            sResults.put(mTargetTranslationId, results);
+        }
 
         // close validations
         if(chapterValidations.size() > 1) {
@@ -210,6 +162,107 @@ public class ValidationTask extends ManagedTask {
         }
     }
 
+    /**
+     * Validates the title, reference and chunks of a chapter
+     * @param targetTranslation
+     * @param state the state of the chapter
+     * @param projectTitle
+     * @param format
+     * @param sourceLanguage
+     * @param targetLanguage
+     * @return
+     */
+    private ChapterResult validateChapter(TargetTranslation targetTranslation, ChapterState state, String projectTitle,
+                                          TranslationFormat format, SourceLanguage sourceLanguage, TargetLanguage targetLanguage) {
+        SourceChapter source = state.source;
+        String chapterSlug = source.slug;
+        List<String> chunks = source.chunks;
+
+        // validate frames
+        int lastValidFrameIndex = -1;
+        boolean chapterIsValid = true;
+        List<ValidationItem> frameValidations = new ArrayList<>();
+
+        if(state.titleInvalid || state.referenceInvalid) {
+            ChapterTranslation chapterTranslation = targetTranslation.getChapterTranslation(chapterSlug);
+            if(state.titleInvalid) {
+                chapterIsValid = false;
+                frameValidations.add(ValidationItem.generateInvalidFrame(formatChunkTitle(source.title, titleStr), sourceLanguage, chapterTranslation.title, targetLanguage, TranslationFormat.DEFAULT, mTargetTranslationId, chapterSlug, "00"));
+            }
+
+            if(state.referenceInvalid) {
+                chapterIsValid = false;
+                frameValidations.add(ValidationItem.generateInvalidFrame(formatChunkTitle(source.reference, referenceStr), sourceLanguage, chapterTranslation.reference, targetLanguage, TranslationFormat.DEFAULT, mTargetTranslationId, chapterSlug, "00"));
+            }
+        }
+
+        for(int j = 0; j < chunks.size(); j ++) {
+            String chunkSlug = chunks.get(j);
+            if( ("title".equals(chunkSlug)) || ("reference".equals(chunkSlug)) ) { // if chunk types we have already handled, then skip
+                continue;
+            }
+
+            boolean chunkDone = state.chunkDone[j];
+            // TODO: also validate the checking questions
+            if(lastValidFrameIndex == -1 && chunkDone) {
+                // start new valid range
+                lastValidFrameIndex = j;
+            } else if(state.chunkConflicted[j] || !chunkDone || chunkDone && j == chunks.size() - 1){
+                // close valid range
+                if(lastValidFrameIndex > -1) {
+                    int previousFrameIndex = j - 1;
+                    if(chunkDone) {
+                        previousFrameIndex = j;
+                    }
+                    if(lastValidFrameIndex < previousFrameIndex) {
+                        // range
+                        String frameTitle = projectTitle + " " + StringUtilities.formatNumber(chapterSlug);
+                        frameTitle += ":" + source.startVerses[lastValidFrameIndex] + "-" + source.endVerses[previousFrameIndex];
+                        frameValidations.add(ValidationItem.generateValidFrame(frameTitle, sourceLanguage, true));
+                    } else {
+                        String frameTitle = projectTitle + " " + StringUtilities.formatNumber(chapterSlug);
+                        frameTitle += ":" + source.startVerses[lastValidFrameIndex];
+                        if(!source.startVerses[lastValidFrameIndex].equals(source.endVerses[lastValidFrameIndex])) {
+                            frameTitle += "-" + source.endVerses[lastValidFrameIndex];
+                        }
+                        frameValidations.add(ValidationItem.generateValidFrame(frameTitle, sourceLanguage, false));
+                    }
+                    lastValidFrameIndex = -1;
+                }
+
+                // add invalid frame
+                if(!chunkDone) {
+                    chapterIsValid = false;
+                    FrameTranslation frameTranslation = targetTranslation.getFrameTranslation(chapterSlug, chunkSlug, format);
+                    String frameTitle = projectTitle + " " + StringUtilities.formatNumber(chapterSlug);
+                    frameTitle += ":" + source.startVerses[j];
+                    if (!source.startVerses[j].equals(source.endVerses[j])) {
+                        frameTitle += "-" + source.endVerses[j];
+                    }
+                    frameValidations.add(ValidationItem.generateInvalidFrame(frameTitle, sourceLanguage, frameTranslation.body,
+                            targetLanguage, frameTranslation.getFormat(), mTargetTranslationId, chapterSlug, chunkSlug));
+                }
+            }
+
+        }
+        return new ChapterResult(chapterIsValid, frameValidations);
+    }
+
+    /**
+     * Returns the results of the last validation of the target translation
+     * @param targetTranslationId
+     * @return
+     */
+    private static Map<String, ChapterResult> getCachedResults(String targetTranslationId) {
+        synchronized (sResults) {
+            Map<String, ChapterResult> results = sResults.get(targetTranslationId);
+            if(results == null) {
+                return new HashMap<>();
+            }
+            return results;
+        }
+    }
+
     /**
      * sort the chapters
      * @param chapters
@@ -240,13 +293,11 @@ public class ValidationTask extends ManagedTask {
 
     /**
      * get the text from the source for title and add the chunk type as a tip
-     * @param container
-     * @param chapterSlug
-     * @param chunkSlug
+     * @param title the source text
+     * @param type
      * @return
      */
-    protected String getChunkTitle(ResourceContainer container, String chapterSlug, String chunkSlug, String type) {
-        String title = container.readChunk(chapterSlug, chunkSlug);
+    protected static String formatChunkTitle(String title, String type) {
         if( title == null) {
             title = "";
         }
@@ -262,4 +313,209 @@ public class ValidationTask extends ManagedTask {
     public ValidationItem[] getValidations() {
         return mValidations.toArray(new ValidationItem[mValidations.size()]);
     }
+
+    /**
+     * The validation of a chapter
+     */
+    private static class ChapterResult {
+        final boolean valid;
+        final List<ValidationItem> frameValidations;
+        SourceSummary source;
+        String signature;
+
+        ChapterResult(boolean valid, List<ValidationItem> frameValidations) {
+            this.valid = valid;
+            this.frameValidations = frameValidations;
+        }
+    }
+
+    /**
+     * The state of a chapter in the target translation.
+     * This only checks the finished chunks and the merge conflict index so we don't have to read the chunks.
+     */
+    private class ChapterState {
+        final SourceChapter source;
+        final boolean titleInvalid;
+        final boolean referenceInvalid;
+        final boolean[] chunkDone;
+        final boolean[] chunkConflicted;
+        private final TargetTranslation targetTranslation;
+
+        ChapterState(TargetTranslation targetTranslation, SourceChapter source, MergeConflictIndex conflicts) {
+            this.targetTranslation = targetTranslation;
+            this.source = source;
+            String chapterSlug = source.slug;
+
+            File chapterDir = new File(targetTranslation.getPath(), chapterSlug);
+            String[] files = chapterDir.list();
+            Set<String> translated = files != null ? new HashSet<>(Arrays.asList(files)) : new HashSet<String>();
+
+            titleInvalid = isConflicted(conflicts, chapterSlug, "title", translated)
+                    || source.chunks.contains("title") && !targetTranslation.isChapterTitleFinished(chapterSlug);
+            referenceInvalid = isConflicted(conflicts, chapterSlug, "reference", translated)
+                    || source.chunks.contains("reference") && !targetTranslation.isChapterReferenceFinished(chapterSlug);
+
+            int count = source.chunks.size();
+            chunkDone = new boolean[count];
+            chunkConflicted = new boolean[count];
+            for(int j = 0; j < count; j ++) {
+                String chunkSlug = source.chunks.get(j);
+                // TRICKY: like FrameTranslation.isFinished() this only checks the finished list
+                chunkDone[j] = targetTranslation.isFrameFinished(chapterSlug + "-" + chunkSlug) || source.emptyChunks[j];
+                chunkConflicted[j] = isConflicted(conflicts, chapterSlug, chunkSlug, translated);
+            }
+        }
+
+        /**
+         * Checks if a chunk is conflicted. If the target translation has not been indexed the chunk is read.
+         */
+        private boolean isConflicted(MergeConflictIndex conflicts, String chapterSlug, String chunkSlug, Set<String> translated) {
+            if(!translated.contains(chunkSlug + ".txt")) {
+                return false;
+            }
+            if(conflicts != null) {
+                return conflicts.isConflicted(chapterSlug, chunkSlug);
+            }
+            try {
+                File file = new File(targetTranslation.getPath(), chapterSlug + "/" + chunkSlug + ".txt");
+                return MergeConflictsHandler.isMergeConflicted(FileUtilities.readFileToString(file));
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Generates a signature of everything that affects the validation of the chapter.
+         * The text of a chunk only matters when it is invalid so only those files are included.
+         *
+         * TRICKY: modified files are detected by their timestamp and size
+         */
+        String getSignature(String projectTitle, SourceLanguage sourceLanguage, TargetLanguage targetLanguage) {
+            String chapterSlug = source.slug;
+            StringBuilder signature = new StringBuilder();
+            signature.append(projectTitle).append('|')
+                    .append(sourceLanguage != null ? sourceLanguage.slug : "").append('|')
+                    .append(targetLanguage != null ? targetLanguage.slug : "").append('|')
+                    .append(titleStr).append('|')
+                    .append(referenceStr).append('|');
+            signature.append(titleInvalid ? 'x' : '-');
+            if(titleInvalid) {
+                appendStamp(signature, targetTranslation.getChapterTitleFile(chapterSlug));
+            }
+            signature.append(referenceInvalid ? 'x' : '-');
+            if(referenceInvalid) {
+                appendStamp(signature, targetTranslation.getChapterReferenceFile(chapterSlug));
+            }
+            for(int j = 0; j < chunkDone.length; j ++) {
+                signature.append(chunkDone[j] ? '-' : 'x').append(chunkConflicted[j] ? 'c' : '-');
+                if(!chunkDone[j]) {
+                    appendStamp(signature, targetTranslation.getFrameFile(chapterSlug, source.chunks.get(j)));
+                }
+            }
+            return signature.toString();
+        }
+
+        private void appendStamp(StringBuilder signature, File file) {
+            signature.append('(').append(file.lastModified()).append(':').append(file.length()).append(')');
+        }
+    }
+
+    /**
+     * A summary of the source translation.
+     * The chunks are read once and the verse ranges parsed once for as long as the container is being validated.
+     */
+    private static class SourceSummary {
+        /**
+         * The summary of the last validated container.
+         * Only one is kept so we don't hold on to containers that are no longer in use.
+         */
+        private static SourceSummary sSummary = null;
+
+        final ResourceContainer container;
+        final TranslationFormat format;
+        final String projectTitle;
+        final String[] chapters;
+        private final Map<String, SourceChapter> chapterSummaries = new HashMap<>();
+
+        private SourceSummary(ResourceContainer container, TranslationFormat format) {
+            this.container = container;
+            this.format = format;
+            this.projectTitle = container.readChunk("front", "title");
+            this.chapters = container.chapters();
+        }
+
+        /**
+         * Returns the summary of the container
+         * @param container
+         * @return null if the container is invalid
+         */
+        static synchronized SourceSummary get(ResourceContainer container) {
+            SourceSummary summary = sSummary;
+            if(summary != null && summary.container == container) {
+                return summary;
+            }
+            TranslationFormat format;
+            try {
+                format = TranslationFormat.parse(container.info.getString("content_mime_type"));
+            } catch (JSONException e) {
+                Logger.e("ValidationTask", "Failed to read the translation format from the container", e);
+                return null;
+            }
+            summary = new SourceSummary(container, format);
+            sSummary = summary;
+            return summary;
+        }
+
+        synchronized SourceChapter getChapter(String chapterSlug) {
+            SourceChapter chapter = chapterSummaries.get(chapterSlug);
+            if(chapter == null) {
+                chapter = new SourceChapter(container, format, chapterSlug);
+                chapterSummaries.put(chapterSlug, chapter);
+            }
+            return chapter;
+        }
+    }
+
+    /**
+     * A summary of a chapter in the source translation
+     */
+    private static class SourceChapter {
+        final String slug;
+        final List<String> chunks;
+        final String title;
+        final String reference;
+        final boolean[] emptyChunks;
+        final String[] startVerses;
+        final String[] endVerses;
+
+        SourceChapter(ResourceContainer container, TranslationFormat format, String chapterSlug) {
+            slug = chapterSlug;
+            chunks = new ArrayList<>(Arrays.asList(container.chunks(chapterSlug)));
+            title = nonNull(container.readChunk(chapterSlug, "title"));
+            reference = nonNull(container.readChunk(chapterSlug, "reference"));
+
+            int count = chunks.size();
+            emptyChunks = new boolean[count];
+            startVerses = new String[count];
+            endVerses = new String[count];
+            for(int j = 0; j < count; j ++) {
+                String chunkSlug = chunks.get(j);
+                String text = nonNull(container.readChunk(chapterSlug, chunkSlug));
+                emptyChunks[j] = text.isEmpty();
+                int[] verses = Frame.getVerseRange(text, format);
+                startVerses[j] = verses.length > 0 ? verses[0] + "" : "";
+                if(verses.length == 1) {
+                    endVerses[j] = verses[0] + "";
+                } else if(verses.length == 2) {
+                    endVerses[j] = verses[1] + "";
+                } else {
+                    endVerses[j] = "";
+                }
+            }
+        }
+
+        private static String nonNull(String text) {
+            return text != null ? text : "";
+        }
+    }
 }
@@ -26,10 +26,12 @@ import com.door43.translationstudio.core.MissingNameItem;
 import com.door43.translationstudio.core.TargetTranslation;
 import com.door43.translationstudio.core.TranslationViewMode;
 import com.door43.translationstudio.core.Translator;
+import com.door43.translationstudio.git.RepoCache;
 import com.door43.translationstudio.ui.newtranslation.ProjectListFragment;
 import com.door43.translationstudio.ui.newtranslation.TargetLanguageListFragment;
 import com.door43.translationstudio.ui.translate.TargetTranslationActivity;
 import com.door43.util.FileUtilities;
+import com.door43.util.Manifest;
 
 import java.io.File;
 import java.io.Serializable;
@@ -473,6 +475,10 @@ public class ImportUsfmActivity extends BaseActivity implements TargetLanguageLi
                                 }
                             } else {
                                 // import new translation
+                                Manifest.flushPending(mDestinationTargetTranslationDir);
+                                Manifest.flushPending(newDir);
+                                RepoCache.close(mDestinationTargetTranslationDir);
+                                RepoCache.close(newDir);
                                 FileUtilities.safeDelete(mDestinationTargetTranslationDir); // in case local was an invalid target translation
                                 FileUtilities.moveOrCopyQuietly(newDir, mDestinationTargetTranslationDir);
                             }
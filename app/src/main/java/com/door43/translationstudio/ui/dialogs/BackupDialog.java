@@ -32,6 +32,7 @@ import com.door43.translationstudio.core.MergeConflictsHandler;
 import com.door43.translationstudio.core.TargetTranslation;
 import com.door43.translationstudio.core.TranslationViewMode;
 import com.door43.translationstudio.core.Translator;
+import com.door43.translationstudio.git.Repo;
 import com.door43.translationstudio.tasks.ExportProjectTask;
 import com.door43.translationstudio.tasks.ExportToUsfmTask;
 import com.door43.translationstudio.ui.ProfileActivity;
@@ -978,8 +979,10 @@ public class BackupDialog extends DialogFragment implements SimpleTaskWatcher.On
     }
 
     private boolean resetToMasterBackup(TargetTranslation targetTranslation) {
+        Repo repo = targetTranslation.getRepo();
+        repo.acquire();
         try { // restore state before the pull
-            Git git = targetTranslation.getRepo().getGit();
+            Git git = repo.getGit();
             ResetCommand resetCommand = git.reset();
             resetCommand.setMode(ResetCommand.ResetType.HARD)
                     .setRef("backup-master")
@@ -987,6 +990,8 @@ public class BackupDialog extends DialogFragment implements SimpleTaskWatcher.On
         } catch (Exception e) {
             e.printStackTrace();
             return false;
+        } finally {
+            repo.release();
         }
         return true;
     }
@@ -17,7 +17,8 @@ import android.widget.TextView;
 import com.door43.translationstudio.App;
 import com.door43.translationstudio.R;
 import com.door43.translationstudio.core.BibleCodes;
-import com.door43.translationstudio.core.TargetTranslation;
+import com.door43.translationstudio.core.TargetTranslationSummary;
+import com.door43.translationstudio.core.TranslationProgressCache;
 import com.door43.translationstudio.core.TranslationType;
 import com.door43.translationstudio.core.Typography;
 
@@ -37,8 +38,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.unfoldingword.resourcecontainer.Resource;
 
@@ -46,11 +49,12 @@ import org.unfoldingword.resourcecontainer.Resource;
  * Created by joel on 9/3/2015.
  */
 public class TargetTranslationAdapter extends BaseAdapter implements ManagedTask.OnFinishedListener {
+    private static final String PROGRESS_TASK_ID = TranslationProgressTask.TASK_ID + "-list";
     private final Context mContext;
-    private List<TargetTranslation> mTranslations;
+    private List<TargetTranslationSummary> mTranslations;
     private OnInfoClickListener mInfoClickListener = null;
     private Map<String, Integer> mTranslationProgress = new HashMap<>();
-    private List<String> mTranslationProgressCalculated = new ArrayList<>();
+    private Set<String> mTranslationProgressCalculated = new HashSet<>();
     private List<ViewHolder> holders = new ArrayList<>();
     private SortProjectColumnType mSortProjectColumn = SortProjectColumnType.bibleOrder;
     private SortByColumnType mSortByColumn = SortByColumnType.projectThenLanguage;;
@@ -87,19 +91,19 @@ public class TargetTranslationAdapter extends BaseAdapter implements ManagedTask
     public void sort(final SortByColumnType sortByColumn, final SortProjectColumnType sortProjectColumn) {
         mSortByColumn = sortByColumn;
         mSortProjectColumn = sortProjectColumn;
-        Collections.sort(mTranslations, new Comparator<TargetTranslation>() {
+        Collections.sort(mTranslations, new Comparator<TargetTranslationSummary>() {
             @Override
-            public int compare(TargetTranslation lhs, TargetTranslation rhs) {
+            public int compare(TargetTranslationSummary lhs, TargetTranslationSummary rhs) {
                 int compare;
                 switch (sortByColumn) {
                     case projectThenLanguage:
                         compare = compareProject(lhs, rhs, sortProjectColumn);
                         if(compare == 0) {
-                            compare = lhs.getTargetLanguageName().compareToIgnoreCase(rhs.getTargetLanguageName());
+                            compare = lhs.targetLanguageName.compareToIgnoreCase(rhs.targetLanguageName);
                         }
                         return compare;
                     case languageThenProject:
-                        compare = lhs.getTargetLanguageName().compareToIgnoreCase(rhs.getTargetLanguageName());
+                        compare = lhs.targetLanguageName.compareToIgnoreCase(rhs.targetLanguageName);
                         if(compare == 0) {
                             compare = compareProject(lhs, rhs, sortProjectColumn);
                         }
@@ -130,10 +134,10 @@ public class TargetTranslationAdapter extends BaseAdapter implements ManagedTask
      * @param rhs
      * @return
      */
-    private int compareProject(TargetTranslation lhs, TargetTranslation rhs, SortProjectColumnType sortProjectColumn) {
+    private int compareProject(TargetTranslationSummary lhs, TargetTranslationSummary rhs, SortProjectColumnType sortProjectColumn) {
         if(sortProjectColumn == SortProjectColumnType.bibleOrder) {
-            int lhsIndex = bookList.indexOf(lhs.getProjectId());
-            int rhsIndex = bookList.indexOf(rhs.getProjectId());
+            int lhsIndex = bookList.indexOf(lhs.projectId);
+            int rhsIndex = bookList.indexOf(rhs.projectId);
             if((lhsIndex == rhsIndex) && (lhsIndex < 0)) { // if not bible books, then compare by name
                 return getProjectName(lhs).compareToIgnoreCase(getProjectName(rhs));
             }
@@ -145,7 +149,7 @@ public class TargetTranslationAdapter extends BaseAdapter implements ManagedTask
     }
 
     @Override
-    public TargetTranslation getItem(int position) {
+    public TargetTranslationSummary getItem(int position) {
         return mTranslations.get(position);
     }
 
@@ -167,32 +171,19 @@ public class TargetTranslationAdapter extends BaseAdapter implements ManagedTask
             holder = (ViewHolder)v.getTag();
         }
 
-        final TargetTranslation targetTranslation = getItem(position);
+        final TargetTranslationSummary targetTranslation = getItem(position);
         final Door43Client library = App.getLibrary();
         holder.currentTargetTranslation = targetTranslation;
         holder.mProgressView.setVisibility(View.INVISIBLE);
 
-        // calculate translation progress
-        if(!mTranslationProgressCalculated.contains(targetTranslation.getId())) {
-            String taskId = TranslationProgressTask.TASK_ID + targetTranslation.getId();
-            TranslationProgressTask progressTask = (TranslationProgressTask) TaskManager.getTask(taskId);
-            if(progressTask != null) {
-                // attach listener
-                progressTask.removeAllOnFinishedListener();
-                progressTask.addOnFinishedListener(this);
-            } else {
-                progressTask = new TranslationProgressTask(targetTranslation);
-                progressTask.addOnFinishedListener(this);
-                TaskManager.addTask(progressTask, TranslationProgressTask.TASK_ID + targetTranslation.getId());
-                TaskManager.groupTask(progressTask, "calc-translation-progress");
-            }
-        } else {
+        // progress is calculated in a single batch. See changeData()
+        if(mTranslationProgressCalculated.contains(targetTranslation.id)) {
             holder.setProgress(getProgress(targetTranslation));
         }
 
         // render view
         holder.mTitleView.setText(getProjectName(targetTranslation));
-        holder.mLanguageView.setText(targetTranslation.getTargetLanguageName());
+        holder.mLanguageView.setText(targetTranslation.targetLanguageName);
 
         // set typeface for language
         TargetLanguage targetLanguage = targetTranslation.getTargetLanguage();
@@ -204,7 +195,7 @@ public class TargetTranslationAdapter extends BaseAdapter implements ManagedTask
             @Override
             public void onClick(View v) {
                 if(mInfoClickListener != null) {
-                    mInfoClickListener.onClick(getItem(position).getId());
+                    mInfoClickListener.onClick(getItem(position).id);
                 }
             }
         });
@@ -216,19 +207,19 @@ public class TargetTranslationAdapter extends BaseAdapter implements ManagedTask
      * @param targetTranslation
      * @return
      */
-    private String getProjectName(TargetTranslation targetTranslation) {
+    private String getProjectName(TargetTranslationSummary targetTranslation) {
         String projectName = "";
-        Project project = App.getLibrary().index.getProject(App.getDeviceLanguageCode(), targetTranslation.getProjectId(), true);
+        Project project = App.getLibrary().index.getProject(App.getDeviceLanguageCode(), targetTranslation.projectId, true);
         if(project != null) {
-            if(!targetTranslation.getResourceSlug().equals(Resource.REGULAR_SLUG) && !targetTranslation.getResourceSlug().equals("obs")) {
+            if(targetTranslation.resourceSlug != null && !Resource.REGULAR_SLUG.equals(targetTranslation.resourceSlug) && !"obs".equals(targetTranslation.resourceSlug)) {
                 // display the resource type if not a regular resource e.g. this is for a gateway language
-                projectName = project.name + " (" + targetTranslation.getResourceSlug() + ")";
+                projectName = project.name + " (" + targetTranslation.resourceSlug + ")";
             } else {
                 projectName = project.name;
             }
         } else {
-            Logger.w(this.getClass().getName(), "Could not find a source translation for " + targetTranslation.getId());
-            projectName = targetTranslation.getProjectId();
+            Logger.w(this.getClass().getName(), "Could not find a source translation for " + targetTranslation.id);
+            projectName = targetTranslation.projectId;
         }
         return projectName;
     }
@@ -238,37 +229,62 @@ public class TargetTranslationAdapter extends BaseAdapter implements ManagedTask
      * @param targetTranslation
      * @return
      */
-    private Integer getProgress(TargetTranslation targetTranslation) {
-        if(mTranslationProgressCalculated.contains(targetTranslation.getId())) {
-            Integer value =  mTranslationProgress.get(targetTranslation.getId());
+    private Integer getProgress(TargetTranslationSummary targetTranslation) {
+        if(mTranslationProgressCalculated.contains(targetTranslation.id)) {
+            Integer value =  mTranslationProgress.get(targetTranslation.id);
             if(value != null) return value;
         }
         return -1;
     }
 
-    public void changeData(TargetTranslation[] targetTranslations) {
+    public void changeData(TargetTranslationSummary[] targetTranslations) {
         mTranslations = Arrays.asList(targetTranslations);
         mTranslationProgress = new HashMap<>();
-        mTranslationProgressCalculated = new ArrayList<>();
+        mTranslationProgressCalculated = new HashSet<>();
+
+        // use the cached source counts where we can and calculate the rest in one task
+        List<TargetTranslationSummary> pending = new ArrayList<>();
+        for(TargetTranslationSummary summary:targetTranslations) {
+            Integer numSourceChunks = TranslationProgressCache.getSourceChunkCount(summary.projectId);
+            if(numSourceChunks != null) {
+                setProgress(summary.id, TranslationProgressCache.calculate(summary.numFinished, numSourceChunks));
+            } else {
+                pending.add(summary);
+            }
+        }
+
+        ManagedTask task = TaskManager.getTask(PROGRESS_TASK_ID);
+        if(task != null) {
+            task.removeAllOnFinishedListener();
+            TaskManager.cancelTask(task);
+            TaskManager.clearTask(task);
+        }
+        if(pending.size() > 0) {
+            task = new TranslationProgressTask(pending.toArray(new TargetTranslationSummary[pending.size()]));
+            task.addOnFinishedListener(this);
+            TaskManager.addTask(task, PROGRESS_TASK_ID);
+        }
         sort();
     }
 
+    private void setProgress(String targetTranslationId, double progress) {
+        mTranslationProgress.put(targetTranslationId, (int)Math.round(progress * 100));
+        mTranslationProgressCalculated.add(targetTranslationId);
+    }
+
     @Override
-    public void onTaskFinished(ManagedTask task) {
+    public void onTaskFinished(final ManagedTask task) {
         TaskManager.clearTask(task);
 
-        if(task instanceof TranslationProgressTask) {
-            // save progress
-            double progressLong = ((TranslationProgressTask) task).getProgress();
-            final int progress = Math.round((float)progressLong * 100);
-            final TargetTranslation targetTranslation = ((TranslationProgressTask) task).targetTranslation;
-            mTranslationProgress.put(targetTranslation.getId(), progress);
-            mTranslationProgressCalculated.add(targetTranslation.getId());
-
+        if(task instanceof TranslationProgressTask && !task.isCanceled()) {
             Handler hand = new Handler(Looper.getMainLooper());
             hand.post(new Runnable() {
                 @Override
                 public void run() {
+                    // publish all of the results at once
+                    for(Map.Entry<String, Double> entry:((TranslationProgressTask) task).getProgressById().entrySet()) {
+                        setProgress(entry.getKey(), entry.getValue());
+                    }
                     sort();
                 }
             });
@@ -285,7 +301,7 @@ public class TargetTranslationAdapter extends BaseAdapter implements ManagedTask
         public TextView mLanguageView;
         public ProgressPieView mProgressView;
         public ImageButton mInfoButton;
-        public TargetTranslation currentTargetTranslation;
+        public TargetTranslationSummary currentTargetTranslation;
 
         public ViewHolder(View view, Context context) {
             mIconView = (ImageView) view.findViewById(R.id.projectIcon);
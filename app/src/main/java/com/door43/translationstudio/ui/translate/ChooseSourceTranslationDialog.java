@@ -27,8 +27,10 @@ import com.door43.translationstudio.App;
 import com.door43.translationstudio.R;
 import com.door43.translationstudio.core.ContainerCache;
 import com.door43.translationstudio.core.TargetTranslation;
+import com.door43.translationstudio.core.TranslationProgressCache;
 import com.door43.translationstudio.core.Translator;
 import com.door43.translationstudio.tasks.DownloadResourceContainerTask;
+import com.door43.translationstudio.ui.translate.review.HelpIndex;
 import com.door43.widget.ViewUtil;
 
 import org.unfoldingword.door43client.Door43Client;
@@ -322,7 +324,9 @@ public class ChooseSourceTranslationDialog extends DialogFragment implements Man
             for(ResourceContainer rc:t.getDownloadedContainers()) {
                 // reset cached containers that were downloaded
                 ContainerCache.remove(rc.slug);
+                TranslationProgressCache.remove(rc.slug);
             }
+            HelpIndex.clear();
             Handler hand = new Handler(Looper.getMainLooper());
             hand.post(new Runnable() {
                 @Override
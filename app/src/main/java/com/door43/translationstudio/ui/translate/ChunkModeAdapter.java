@@ -48,6 +48,7 @@ import com.door43.translationstudio.core.Typography;
 import com.door43.translationstudio.rendering.ClickableRenderingEngine;
 import com.door43.translationstudio.rendering.Clickables;
 import com.door43.translationstudio.rendering.DefaultRenderer;
+import com.door43.translationstudio.rendering.RenderCache;
 import com.door43.translationstudio.rendering.RenderingGroup;
 import com.door43.translationstudio.ui.spannables.NoteSpan;
 import com.door43.translationstudio.ui.spannables.Span;
@@ -81,6 +82,7 @@ public class ChunkModeAdapter extends ViewModeAdapter<ChunkModeAdapter.ViewHolde
     private List<String> mChapters = new ArrayList();
     private List<String> mFilteredChapters = new ArrayList<>();
     private CharSequence filterConstraint = null;
+    private final RenderCache mRenderCache = new RenderCache();
     private SearchSubject filterSubject = null;
 
     public ChunkModeAdapter(Activity context, String targetTranslationId, String startingChapterSlug, String startingChunkSlug, boolean openSelectedTarget) {
@@ -502,14 +504,14 @@ public class ChunkModeAdapter extends ViewModeAdapter<ChunkModeAdapter.ViewHolde
         // render source text
         if(item.renderedSourceText == null) {
             boolean enableSearch = filterConstraint != null && filterSubject != null && filterSubject == SearchSubject.SOURCE;
-            item.renderedSourceText = renderText(item.sourceText, item.sourceTranslationFormat, enableSearch);
+            item.renderedSourceText = renderText(item.sourceText, item.sourceTranslationFormat, enableSearch, true);
         }
         holder.mSourceBody.setText(item.renderedSourceText);
 
         // render target text
         if(item.renderedTargetText == null) {
             boolean enableSearch = filterConstraint != null && filterSubject != null && filterSubject == SearchSubject.TARGET;
-            item.renderedTargetText = renderText(item.targetText, item.targetTranslationFormat, enableSearch);
+            item.renderedTargetText = renderText(item.targetText, item.targetTranslationFormat, enableSearch, false);
         }
         if(holder.mTextWatcher != null) holder.mTargetBody.removeTextChangedListener(holder.mTextWatcher);
         holder.mTargetBody.setText(TextUtils.concat(item.renderedTargetText, "\n"));
@@ -565,7 +567,7 @@ public class ChunkModeAdapter extends ViewModeAdapter<ChunkModeAdapter.ViewHolde
                 }
 
                 boolean enableSearch = filterConstraint != null && filterSubject != null && filterSubject == SearchSubject.TARGET;
-                item.renderedTargetText = renderText(translation, item.targetTranslationFormat, enableSearch);
+                item.renderedTargetText = renderText(translation, item.targetTranslationFormat, enableSearch, false);
             }
 
             @Override
@@ -588,7 +590,16 @@ public class ChunkModeAdapter extends ViewModeAdapter<ChunkModeAdapter.ViewHolde
         }
     }
 
-    private CharSequence renderText(String text, TranslationFormat format, boolean enableSearch) {
+    /**
+     * Renders the text of a card
+     * @param text
+     * @param format
+     * @param enableSearch
+     * @param useCache true if the rendering may be cached. Text that is being edited should not be cached
+     *                 since every keystroke would add another entry to the cache.
+     * @return
+     */
+    private CharSequence renderText(String text, TranslationFormat format, boolean enableSearch, boolean useCache) {
         RenderingGroup renderingGroup = new RenderingGroup();
         if (Clickables.isClickableFormat(format)) {
             // TODO: add click listeners for verses and notes
@@ -621,6 +632,9 @@ public class ChunkModeAdapter extends ViewModeAdapter<ChunkModeAdapter.ViewHolde
                 renderingGroup.setSearchString(filterConstraint, HIGHLIGHT_COLOR);
             }
         }
+        if(useCache) {
+            renderingGroup.setCache(mRenderCache, "chunk");
+        }
         renderingGroup.init(text);
         return renderingGroup.start();
     }
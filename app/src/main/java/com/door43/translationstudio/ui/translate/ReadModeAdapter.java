@@ -35,6 +35,7 @@ import com.door43.translationstudio.core.Typography;
 import com.door43.translationstudio.rendering.ClickableRenderingEngine;
 import com.door43.translationstudio.rendering.Clickables;
 import com.door43.translationstudio.rendering.DefaultRenderer;
+import com.door43.translationstudio.rendering.RenderCache;
 import com.door43.translationstudio.rendering.RenderingGroup;
 import com.door43.translationstudio.tasks.CheckForMergeConflictsTask;
 import com.door43.translationstudio.ui.spannables.NoteSpan;
@@ -62,6 +63,7 @@ public class ReadModeAdapter extends ViewModeAdapter<ReadModeAdapter.ViewHolder>
 
     private CharSequence[] mRenderedTargetBody = new CharSequence[0];
     private CharSequence[] mRenderedSourceBody = new CharSequence[0];
+    private final RenderCache mRenderCache = new RenderCache();
 
     private final String startingChapterSlug;
     private SourceLanguage mSourceLanguage;
@@ -364,6 +366,7 @@ public class ReadModeAdapter extends ViewModeAdapter<ReadModeAdapter.ViewHolder>
             } else {
                 sourceRendering.addEngine(new DefaultRenderer());
             }
+            sourceRendering.setCache(mRenderCache, "source");
             sourceRendering.init(chapterBody);
             mRenderedSourceBody[position] = sourceRendering.start();
         }
@@ -396,6 +399,7 @@ public class ReadModeAdapter extends ViewModeAdapter<ReadModeAdapter.ViewHolder>
             } else {
                 targetRendering.addEngine(new DefaultRenderer());
             }
+            targetRendering.setCache(mRenderCache, "target");
             targetRendering.init(chapterBody);
             mRenderedTargetBody[position] = targetRendering.start();
         }
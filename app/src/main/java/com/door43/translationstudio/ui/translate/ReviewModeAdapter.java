@@ -58,6 +58,7 @@ import com.door43.translationstudio.core.Translator;
 import com.door43.translationstudio.core.Typography;
 import com.door43.translationstudio.rendering.Clickables;
 import com.door43.translationstudio.rendering.DefaultRenderer;
+import com.door43.translationstudio.rendering.RenderCache;
 import com.door43.translationstudio.rendering.RenderingGroup;
 import com.door43.translationstudio.rendering.ClickableRenderingEngine;
 import com.door43.translationstudio.ui.spannables.NoteSpan;
@@ -84,6 +85,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -115,9 +117,10 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
     private List<String> mChapters = new ArrayList<>();
     private List<String> mFilteredChapters = new ArrayList<>();
     private CharSequence mSearchText = null;
+    private final RenderCache mRenderCache = new RenderCache();
     private SearchSubject searchSubject = null;
 
-    private Map<String, String[]> mSortedChunks = new HashMap<>();
+    private Map<String, String[]> mSortedChunks = new ConcurrentHashMap<>();
     private boolean mHaveMergeConflict = false;
     private boolean mMergeConflictFilterEnabled = false;
     private boolean mMergeConflictFilterOn = false;
@@ -453,7 +456,7 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
 
         // schedule rendering
         if(task == null && item.renderedSourceText == null) {
-            task = new RenderSourceTask(item, this, mSearchText, searchSubject);
+            task = new RenderSourceTask(item, this, mSearchText, searchSubject, mRenderCache);
             task.addOnFinishedListener(this);
             TaskManager.addTask(task, tag);
             TaskManager.groupTask(task, RENDER_GROUP);
@@ -815,7 +818,7 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
                         item.targetText = newBody;
                     }
 
-                    new AlertDialog.Builder(mContext,R.style.AppTheme_Dialog)
+                    AlertDialog.Builder builder = new AlertDialog.Builder(mContext,R.style.AppTheme_Dialog)
                             .setTitle(R.string.chunk_checklist_title)
                             .setMessage(Html.fromHtml(mContext.getString(R.string.chunk_checklist_body)))
                             .setPositiveButton(R.string.confirm, new DialogInterface.OnClickListener() {
@@ -831,8 +834,17 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
                                 public void onClick(DialogInterface dialog, int which) {
                                     holder.mDoneSwitch.setChecked(false); // force back off if not accepted
                                 }
-                            })
-                            .show();
+                            });
+                    if(item.isChapterTitle()) {
+                        builder.setNeutralButton(R.string.finish_chapter, new DialogInterface.OnClickListener() {
+                            @Override
+                            public void onClick(DialogInterface dialog, int which) {
+                                onFinishChapter(item.chapterSlug);
+                                holder.mDoneSwitch.setChecked(item.isComplete);
+                            }
+                        });
+                    }
+                    builder.show();
 
                 } else { // done button checked off
                     reOpenItem(item);
@@ -941,6 +953,25 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
         }
     }
 
+    /**
+     * Marks every translated item in the chapter as done
+     * @param chapterSlug
+     */
+    private void onFinishChapter(String chapterSlug) {
+        if(mTargetTranslation.finishChapter(chapterSlug) > 0) {
+            for(ListItem item:mItems) {
+                if(item.chapterSlug.equals(chapterSlug) && !item.isProjectTitle()
+                        && mTargetTranslation.isFrameFinished(item.chapterSlug + "-" + item.chunkSlug)) {
+                    item.isComplete = true;
+                    item.isEditing = false;
+                    item.renderedTargetText = null;
+                }
+            }
+            mTargetTranslation.scheduleCommit();
+            triggerNotifyDataSetChanged();
+        }
+    }
+
     /**
      * mark item as not done
      * @param item
@@ -1443,14 +1474,9 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
             }
         }
 
-        // Wrap up.
+        // Wrap up. Several chunks are often marked done in a row so we fold them into one commit
         if (success) {
-            try {
-                mTargetTranslation.commit();
-            } catch (Exception e) {
-                String frameComplexId =  ":" + item.chapterSlug + "-" + item.chunkSlug;
-                Logger.e(TAG, "Failed to commit translation of " + mTargetTranslation.getId() + frameComplexId, e);
-            }
+            mTargetTranslation.scheduleCommit();
             item.isEditing = false;
             item.renderedTargetText = null;
             triggerNotifyDataSetChanged();
@@ -1490,7 +1516,7 @@ public class ReviewModeAdapter extends ViewModeAdapter<ReviewHolder> implements
 
             // schedule rendering
             if (task == null) {
-                task = new RenderHelpsTask(mLibrary, item, mSortedChunks);
+                task = new RenderHelpsTask(mLibrary, item);
                 task.addOnFinishedListener(this);
                 TaskManager.addTask(task, tag);
                 TaskManager.groupTask(task, RENDER_GROUP);
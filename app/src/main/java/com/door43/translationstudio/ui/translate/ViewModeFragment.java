@@ -30,8 +30,10 @@ import com.door43.translationstudio.R;
 import com.door43.translationstudio.core.ContainerCache;
 import com.door43.translationstudio.core.TargetTranslation;
 import com.door43.translationstudio.core.TranslationViewMode;
+import com.door43.translationstudio.core.TranslationProgressCache;
 import com.door43.translationstudio.core.Translator;
 import com.door43.translationstudio.ui.BaseFragment;
+import com.door43.translationstudio.ui.translate.review.HelpIndex;
 import com.door43.translationstudio.ui.translate.review.SearchSubject;
 
 import org.json.JSONException;
@@ -78,6 +80,8 @@ public abstract class ViewModeFragment extends BaseFragment implements ViewModeA
      */
     public static void reset() {
         ContainerCache.empty();
+        TranslationProgressCache.empty();
+        HelpIndex.clear();
         mSourceContainer = null;
     }
 
@@ -0,0 +1,250 @@
+package com.door43.translationstudio.ui.translate.review;
+
+import com.door43.translationstudio.App;
+import com.door43.translationstudio.core.ContainerCache;
+import com.door43.translationstudio.ui.translate.ReviewModeAdapter;
+import com.door43.translationstudio.ui.translate.TranslationHelp;
+
+import org.unfoldingword.door43client.Door43Client;
+import org.unfoldingword.door43client.models.Translation;
+import org.unfoldingword.resourcecontainer.Link;
+import org.unfoldingword.resourcecontainer.ResourceContainer;
+import org.unfoldingword.tools.logger.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Indexes the translation helps of a source translation by chunk.
+ * Each chapter is indexed once and the index is shared by all of the cards
+ * so looking up the helps for a chunk does not have to scan the help containers.
+ * Only the index of the current source translation is kept. It is cleared along with the {@link ContainerCache}
+ * so updated helps are picked up.
+ *
+ * This is safe to use from multiple threads.
+ */
+public class HelpIndex {
+    private static final String TAG = "HelpIndex";
+    private static final Pattern TITLE_PATTERN = Pattern.compile("#(.*)");
+
+    /**
+     * The index of the current source translation
+     */
+    private static HelpIndex sIndex = null;
+
+    private final Door43Client library;
+    private final ResourceContainer source;
+    private final Map<String, String[]> sortedChunks = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, List<TranslationHelp>>> questions = new ConcurrentHashMap<>();
+    private final Map<String, List<TranslationHelp>> notes = new ConcurrentHashMap<>();
+    private final Map<String, List<Link>> words = new ConcurrentHashMap<>();
+    private volatile ResourceContainer questionContainer = null;
+    private volatile ResourceContainer noteContainer = null;
+
+    private HelpIndex(Door43Client library, ResourceContainer source) {
+        this.library = library;
+        this.source = source;
+    }
+
+    /**
+     * Returns the index of the source translation
+     * @param library
+     * @param source
+     * @return
+     */
+    public static synchronized HelpIndex get(Door43Client library, ResourceContainer source) {
+        // TRICKY: the container is replaced in the cache when the source is updated
+        if(sIndex == null || sIndex.source != source) {
+            sIndex = new HelpIndex(library, source);
+        }
+        return sIndex;
+    }
+
+    /**
+     * Removes the index.
+     * This should be called whenever containers are removed from the {@link ContainerCache}
+     */
+    public static synchronized void clear() {
+        sIndex = null;
+    }
+
+    /**
+     * Returns the translation words linked from a chunk
+     * @param chapterSlug
+     * @param chunkSlug
+     * @param linkData the raw links from the chunk config
+     * @return
+     */
+    public List<Link> getWords(String chapterSlug, String chunkSlug, List<String> linkData) {
+        String key = chapterSlug + "-" + chunkSlug;
+        List<Link> links = words.get(key);
+        if(links != null) return links;
+
+        links = ContainerCache.cacheFromLinks(library, linkData, source.language);
+        boolean resolved = true;
+        for (Link link : links) {
+            try {
+                ResourceContainer rc = ContainerCache.cacheClosest(App.getLibrary(), link.language, link.project, link.resource);
+                if (rc != null) {
+                    // TODO: 10/12/16 the words need to have their title placed into a "title" file instead of being inline in the chunk
+                    String word = rc.readChunk(link.chapter, "01");
+                    Matcher match = TITLE_PATTERN.matcher(word.trim());
+                    if (match.find()) {
+                        link.title = match.group(1);
+                    }
+                } else {
+                    resolved = false;
+                    Logger.w(TAG, "could not find resource container for words " + link.language + "-" + link.project + "-" + link.resource);
+                }
+            } catch (Exception e) {
+                resolved = false;
+                Logger.e(TAG, e.getMessage(), e);
+            }
+        }
+        links = Collections.unmodifiableList(links);
+        // TRICKY: try again next time if the words have not been downloaded yet
+        if(resolved) {
+            words.put(key, links);
+        }
+        return links;
+    }
+
+    /**
+     * Returns the translation questions of a chunk.
+     * TRICKY: questions are id'd by verse not chunk so the whole chapter is indexed the first time.
+     * @param chapterSlug
+     * @param chunkSlug
+     * @return
+     */
+    public List<TranslationHelp> getQuestions(String chapterSlug, String chunkSlug) {
+        Map<String, List<TranslationHelp>> chapter = questions.get(chapterSlug);
+        if(chapter == null) {
+            ResourceContainer rc = getQuestionContainer();
+            if(rc == null) return Collections.emptyList();
+            chapter = indexQuestions(rc, chapterSlug);
+            questions.put(chapterSlug, chapter);
+        }
+        List<TranslationHelp> helps = chapter.get(chunkSlug);
+        if(helps == null) return Collections.emptyList();
+        return helps;
+    }
+
+    /**
+     * Returns the translation notes of a chunk
+     * @param chapterSlug
+     * @param chunkSlug
+     * @return
+     */
+    public List<TranslationHelp> getNotes(String chapterSlug, String chunkSlug) {
+        String key = chapterSlug + "-" + chunkSlug;
+        List<TranslationHelp> helps = notes.get(key);
+        if(helps != null) return helps;
+
+        ResourceContainer rc = getNoteContainer();
+        if(rc == null) return Collections.emptyList();
+        String rawNotes = rc.readChunk(chapterSlug, chunkSlug);
+        if (rawNotes != null && !rawNotes.isEmpty()) {
+            helps = Collections.unmodifiableList(parseHelps(rawNotes));
+        } else {
+            helps = Collections.emptyList();
+        }
+        notes.put(key, helps);
+        return helps;
+    }
+
+    /**
+     * Maps each of the questions in the chapter to the chunk that contains its verse
+     * @param rc the questions container
+     * @param chapterSlug
+     * @return the questions keyed by chunk
+     */
+    private Map<String, List<TranslationHelp>> indexQuestions(ResourceContainer rc, String chapterSlug) {
+        Map<String, StringBuilder> rawQuestions = new HashMap<>();
+        for (String verse : rc.chunks(chapterSlug)) {
+            String chunk = ReviewModeAdapter.mapVerseToChunk(chapterSlug, verse, sortedChunks, source);
+            StringBuilder raw = rawQuestions.get(chunk);
+            if(raw == null) {
+                raw = new StringBuilder();
+                rawQuestions.put(chunk, raw);
+            }
+            raw.append("\n\n").append(rc.readChunk(chapterSlug, verse));
+        }
+
+        Map<String, List<TranslationHelp>> chapter = new HashMap<>();
+        for(Map.Entry<String, StringBuilder> entry:rawQuestions.entrySet()) {
+            chapter.put(entry.getKey(), Collections.unmodifiableList(parseHelps(entry.getValue().toString().trim())));
+        }
+        return chapter;
+    }
+
+    private ResourceContainer getQuestionContainer() {
+        if(questionContainer == null) {
+            questionContainer = findHelpContainer("tq");
+        }
+        return questionContainer;
+    }
+
+    private ResourceContainer getNoteContainer() {
+        if(noteContainer == null) {
+            noteContainer = findHelpContainer("tn");
+        }
+        return noteContainer;
+    }
+
+    /**
+     * Looks up the help container that goes with the source
+     * @param resourceSlug
+     * @return null if the helps have not been downloaded
+     */
+    private ResourceContainer findHelpContainer(String resourceSlug) {
+        List<Translation> translations = library.index.findTranslations(source.language.slug, source.project.slug, resourceSlug, "help", null, 0, -1);
+        if(translations.size() == 0) return null;
+        ResourceContainer rc = ContainerCache.cache(library, translations.get(0).resourceContainerSlug);
+        if(rc == null) {
+            Logger.w(TAG, "could not find resource container for " + resourceSlug + " " + translations.get(0).resourceContainerSlug);
+        }
+        return rc;
+    }
+
+    /**
+     * Splits some raw help text into translation helps
+     * @param rawText the help text
+     * @return
+     */
+    private static List<TranslationHelp> parseHelps(String rawText) {
+        List<TranslationHelp> helps = new ArrayList<>();
+        List<String> foundTitles = new ArrayList<>();
+
+        // split up multiple helps
+        String[] helpTextArray = rawText.split("#");
+        for(String helpText:helpTextArray) {
+            if(helpText.trim().isEmpty()) continue;
+
+            // split help title and body
+            String[] parts = helpText.trim().split("\n", 2);
+            String title = parts[0].trim();
+            String body = parts.length > 1 ? parts[1].trim() : null;
+
+            // prepare snippets (has no title)
+            int maxSnippetLength = 50;
+            if(body == null) {
+                body = title;
+                if (title.length() > maxSnippetLength) {
+                    title = title.substring(0, maxSnippetLength) + "...";
+                }
+            }
+            // TRICKY: avoid duplicates. e.g. if a question appears in verses 1 and 2 while the chunk spans both verses.
+            if(!foundTitles.contains(title)) {
+                foundTitles.add(title);
+                helps.add(new TranslationHelp(title, body));
+            }
+        }
+        return helps;
+    }
+}
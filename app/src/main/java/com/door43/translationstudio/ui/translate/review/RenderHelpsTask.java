@@ -1,12 +1,8 @@
 package com.door43.translationstudio.ui.translate.review;
 
-import com.door43.translationstudio.App;
-import com.door43.translationstudio.core.ContainerCache;
-import com.door43.translationstudio.ui.translate.ReviewModeAdapter;
 import com.door43.translationstudio.ui.translate.TranslationHelp;
 
 import org.unfoldingword.door43client.Door43Client;
-import org.unfoldingword.door43client.models.Translation;
 import org.unfoldingword.resourcecontainer.Link;
 import org.unfoldingword.resourcecontainer.ResourceContainer;
 import org.unfoldingword.tools.logger.Logger;
@@ -16,8 +12,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Created by joel on 3/3/17.
@@ -27,12 +21,10 @@ public class RenderHelpsTask extends ManagedTask {
     private static final String TAG = "RenderHelpsTask";
     private final Door43Client library;
     private final ReviewListItem item;
-    private final Map<String, String[]> sortedChunks;
 
-    public RenderHelpsTask (Door43Client library, ReviewListItem item, Map<String, String[]> sortedChunks) {
+    public RenderHelpsTask (Door43Client library, ReviewListItem item) {
         this.library = library;
         this.item = item;
-        this.sortedChunks = sortedChunks;
     }
 
     @Override
@@ -47,98 +39,46 @@ public class RenderHelpsTask extends ManagedTask {
         setResult(null);
 
         if(interrupted()) return;
+        ResourceContainer source = item.getSource();
+        if(source == null) {
+            setResult(result);
+            return;
+        }
+        HelpIndex index = HelpIndex.get(library, source);
         Map<String, List<String>> config = item.getChunkConfig();
 
         if(interrupted()) return;
         if (config.containsKey("words")) {
-            List<Link> links = ContainerCache.cacheFromLinks(library, config.get("words"), item.getSource().language);
-            Pattern titlePattern = Pattern.compile("#(.*)");
-            for (Link link : links) {
-                if (interrupted()) return;
-                try {
-                    ResourceContainer rc = ContainerCache.cacheClosest(App.getLibrary(), link.language, link.project, link.resource);
-                    if (interrupted()) return;
-                    if (rc != null) {
-                        // TODO: 10/12/16 the words need to have their title placed into a "title" file instead of being inline in the chunk
-                        String word = rc.readChunk(link.chapter, "01");
-                        Matcher match = titlePattern.matcher(word.trim());
-                        if (match.find()) {
-                            link.title = match.group(1);
-                        }
-                    } else {
-                        Logger.w(TAG, "could not find resource container for words " + link.language + "-" + link.project + "-" + link.resource);
-                    }
-                } catch (Exception e) {
-                    Logger.e(TAG, e.getMessage(), e);
+            try {
+                List<Link> links = index.getWords(item.chapterSlug, item.chunkSlug, config.get("words"));
+                if(links.size() > 0) {
+                    result.put("words", links);
                 }
-            }
-//                    if(links.size() > 0) Logger.i("Resource Card", getTaskId() + " found words at position " + position);
-            if(links.size() > 0) {
-                result.put("words", links);
+            } catch (Exception e) {
+                Logger.e(TAG, e.getMessage(), e);
             }
         }
 
-        if (interrupted()) return;
-        List<TranslationHelp> translationQuestions = new ArrayList<>();
         // TRICKY: since helps are currently not read from links in the config we must restrict to only loading when this is ulb
-        if (item.getSource() != null && item.getSource().resource.slug.equals("ulb")) {
-            List<Translation> questionTranslations = library.index.findTranslations(item.getSource().language.slug, item.getSource().project.slug, "tq", "help", null, 0, -1);
-            if (questionTranslations.size() > 0) {
-                try {
-                    ResourceContainer rc = ContainerCache.cache(library, questionTranslations.get(0).resourceContainerSlug);
-                    if (interrupted()) return;
-                    if(rc != null) {
-                        // TRICKY: questions are id'd by verse not chunk
-                        String[] verses = rc.chunks(item.chapterSlug);
-                        String rawQuestions = "";
-                        // TODO: 2/21/17 this is very inefficient. We should only have to map chunk id's once, not for every chunk.
-                        for (String verse : verses) {
-                            if (interrupted()) return;
-                            String chunk = ReviewModeAdapter.mapVerseToChunk(item.chapterSlug, verse, sortedChunks, item.getSource());
-                            if (chunk.equals(item.chunkSlug)) {
-                                rawQuestions += "\n\n" + rc.readChunk(item.chapterSlug, verse);
-                            }
-                        }
-                        List<TranslationHelp> helps = parseHelps(rawQuestions.trim());
-                        translationQuestions.addAll(helps);
-                    } else {
-                        Logger.w(TAG, "could not find resource container for questions " + questionTranslations.get(0).resourceContainerSlug);
-                    }
-                } catch (Exception e) {
-                    Logger.e(TAG, e.getMessage(), e);
-                }
-//                    if(translationQuestions.size() > 0) Logger.i("Resource Card", getTaskId() + " found questions at position " + position);
+        if (source.resource.slug.equals("ulb")) {
+            if (interrupted()) return;
+            try {
+                List<TranslationHelp> translationQuestions = index.getQuestions(item.chapterSlug, item.chunkSlug);
                 if(translationQuestions.size() > 0) {
                     result.put("questions", translationQuestions);
                 }
+            } catch (Exception e) {
+                Logger.e(TAG, e.getMessage(), e);
             }
-        }
 
-        if (interrupted()) return;
-        List<TranslationHelp> translationNotes = new ArrayList<>();
-        // TRICKY: since helps are currenlty not read from links in the config we must restrict to only loading when this is ulb.
-        if (item.getSource() != null && item.getSource().resource.slug.equals("ulb")) {
-            List<Translation> noteTranslations = library.index.findTranslations(item.getSource().language.slug, item.getSource().project.slug, "tn", "help", null, 0, -1);
-            if (noteTranslations.size() > 0) {
-                try {
-                    ResourceContainer rc = ContainerCache.cache(library, noteTranslations.get(0).resourceContainerSlug);
-                    if (interrupted()) return;
-                    if(rc != null) {
-                        String rawNotes = rc.readChunk(item.chapterSlug, item.chunkSlug);
-                        if (!rawNotes.isEmpty()) {
-                            List<TranslationHelp> helps = parseHelps(rawNotes);
-                            translationNotes.addAll(helps);
-                        }
-                    } else {
-                        Logger.w(TAG, "could not find resource container for notes " + noteTranslations.get(0).resourceContainerSlug);
-                    }
-                } catch (Exception e) {
-                    Logger.e(TAG, e.getMessage(), e);
-                }
-//                    if(translationNotes.size() > 0) Logger.i("Resource Card", getTaskId() + " found notes at position " + position);
+            if (interrupted()) return;
+            try {
+                List<TranslationHelp> translationNotes = index.getNotes(item.chapterSlug, item.chunkSlug);
                 if(translationNotes.size() > 0) {
                     result.put("notes", translationNotes);
                 }
+            } catch (Exception e) {
+                Logger.e(TAG, e.getMessage(), e);
             }
         }
 
@@ -157,42 +97,6 @@ public class RenderHelpsTask extends ManagedTask {
         return "render_helps_" + chapter + "_" + chunk + "_task";
     }
 
-    /**
-     * Splits some raw help text into translation helps
-     * @param rawText the help text
-     * @return
-     */
-    private List<TranslationHelp> parseHelps(String rawText) {
-        List<TranslationHelp> helps = new ArrayList<>();
-        List<String> foundTitles = new ArrayList<>();
-
-        // split up multiple helps
-        String[] helpTextArray = rawText.split("#");
-        for(String helpText:helpTextArray) {
-            if(helpText.trim().isEmpty()) continue;
-
-            // split help title and body
-            String[] parts = helpText.trim().split("\n", 2);
-            String title = parts[0].trim();
-            String body = parts.length > 1 ? parts[1].trim() : null;
-
-            // prepare snippets (has no title)
-            int maxSnippetLength = 50;
-            if(body == null) {
-                body = title;
-                if (title.length() > maxSnippetLength) {
-                    title = title.substring(0, maxSnippetLength) + "...";
-                }
-            }
-            // TRICKY: avoid duplicates. e.g. if a question appears in verses 1 and 2 while the chunk spans both verses.
-            if(!foundTitles.contains(title)) {
-                foundTitles.add(title);
-                helps.add(new TranslationHelp(title, body));
-            }
-        }
-        return helps;
-    }
-
     public ReviewListItem getItem() {
         return item;
     }
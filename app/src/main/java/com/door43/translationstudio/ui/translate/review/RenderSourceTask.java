@@ -6,6 +6,7 @@ import android.view.View;
 import com.door43.translationstudio.core.TranslationFormat;
 import com.door43.translationstudio.rendering.Clickables;
 import com.door43.translationstudio.rendering.DefaultRenderer;
+import com.door43.translationstudio.rendering.RenderCache;
 import com.door43.translationstudio.rendering.RenderingGroup;
 import com.door43.translationstudio.ui.spannables.NoteSpan;
 import com.door43.translationstudio.ui.spannables.Span;
@@ -23,10 +24,19 @@ public class RenderSourceTask extends ManagedTask {
     private OnSourceClickListener listener;
     private final CharSequence searchQuery;
     private final SearchSubject searchSubject;
+    private final RenderCache cache;
     RenderingGroup renderingGroup = null;
 
-    public RenderSourceTask(ReviewListItem item, OnSourceClickListener listener, CharSequence searchQuery, SearchSubject searchSubject) {
+    /**
+     * @param item
+     * @param listener
+     * @param searchQuery
+     * @param searchSubject
+     * @param cache the cache of rendered text. May be null
+     */
+    public RenderSourceTask(ReviewListItem item, OnSourceClickListener listener, CharSequence searchQuery, SearchSubject searchSubject, RenderCache cache) {
         this.item = item;
+        this.cache = cache;
         this.listener = listener;
         this.searchQuery = searchQuery;
         this.searchSubject = searchSubject;
@@ -78,6 +88,8 @@ public class RenderSourceTask extends ManagedTask {
                 renderingGroup.setSearchString(this.searchQuery, HIGHLIGHT_COLOR);
             }
         }
+        // TRICKY: the note listener is bound to the item so renderings are only shared within a chunk
+        renderingGroup.setCache(cache, item.chapterSlug + "-" + item.chunkSlug);
         renderingGroup.init(text);
         CharSequence results = renderingGroup.start();
         item.hasMissingVerses = renderingGroup.isAddedMissingVerse();
@@ -0,0 +1,174 @@
+package com.door43.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams a zip archive directly to an output stream.
+ * Entries can be added from memory or from the disk so nothing needs to be staged in a temp directory.
+ * A single large buffer is reused for every file.
+ */
+public class ArchiveWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * How often progress is reported when the total size is not known
+     */
+    private static final long UNKNOWN_PROGRESS_INTERVAL = 1024 * 1024;
+
+    private final ZipOutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private boolean storeCompressedFiles = false;
+    private OnProgressListener listener = null;
+    private long totalBytes = 0;
+    private long bytesWritten = 0;
+    private long startTime = 0;
+    private long lastProgress = -1;
+
+    /**
+     * @param out the stream the archive will be written to
+     */
+    public ArchiveWriter(OutputStream out) {
+        this.out = new ZipOutputStream(out);
+    }
+
+    /**
+     * When enabled files that are already compressed (such as git objects and pack files)
+     * will be written to the archive without being compressed again.
+     * @param store
+     */
+    public void setStoreCompressedFiles(boolean store) {
+        this.storeCompressedFiles = store;
+    }
+
+    /**
+     * Sets the listener that will receive progress updates.
+     * Progress is reported each time the written percentage changes.
+     * @param listener
+     * @param totalBytes the expected number of bytes to be written including entries added from memory.
+     *                   Use {@link #sizeOf(File)} to calculate the size of files.
+     */
+    public void setOnProgressListener(OnProgressListener listener, long totalBytes) {
+        this.listener = listener;
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * Adds an entry to the archive from memory
+     * @param name the path of the entry within the archive
+     * @param data the contents of the entry
+     * @throws IOException
+     */
+    public void putEntry(String name, byte[] data) throws IOException {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(data);
+        out.closeEntry();
+        onBytesWritten(data.length);
+    }
+
+    /**
+     * Adds a file or directory to the archive
+     * @param file the file or directory to add
+     * @param name the path of the file within the archive
+     * @throws IOException
+     */
+    public void putFile(File file, String name) throws IOException {
+        if(file.isDirectory()) {
+            File[] children = file.listFiles();
+            if(children == null) return; // skip unreadable folders
+            for(File child:children) {
+                putFile(child, name + "/" + child.getName());
+            }
+            return;
+        }
+
+        // TRICKY: stored entries must declare their checksum up front which would mean reading the file twice.
+        // Instead we deflate without compression so the checksum is calculated as the file is written.
+        boolean skipCompression = storeCompressedFiles && isCompressed(name);
+        if(skipCompression) {
+            out.setLevel(Deflater.NO_COMPRESSION);
+        }
+        out.putNextEntry(new ZipEntry(name));
+        InputStream in = new FileInputStream(file);
+        try {
+            int count;
+            while((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+                onBytesWritten(count);
+            }
+        } finally {
+            FileUtilities.closeQuietly(in);
+        }
+        out.closeEntry();
+        if(skipCompression) {
+            out.setLevel(Deflater.DEFAULT_COMPRESSION);
+        }
+    }
+
+    /**
+     * Finishes writing the archive and closes the stream
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Checks if the file at this path is already compressed
+     * @param name
+     * @return
+     */
+    private static boolean isCompressed(String name) {
+        // loose objects and pack files are zlib compressed
+        return name.contains(".git/objects/") && !name.endsWith(".idx");
+    }
+
+    private void onBytesWritten(long count) {
+        if(startTime == 0) {
+            startTime = System.currentTimeMillis();
+        }
+        bytesWritten += count;
+        if(listener != null) {
+            // only report when the progress visibly changes
+            long progress = totalBytes > 0 ? Math.min(100, bytesWritten * 100 / totalBytes) : bytesWritten / UNKNOWN_PROGRESS_INTERVAL;
+            if(progress == lastProgress) return;
+            lastProgress = progress;
+            long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+            listener.onProgress(bytesWritten, totalBytes, bytesWritten * 1000 / elapsed);
+        }
+    }
+
+    /**
+     * Returns the total size of a file or directory
+     * @param file
+     * @return
+     */
+    public static long sizeOf(File file) {
+        if(file.isDirectory()) {
+            long size = 0;
+            File[] children = file.listFiles();
+            if(children != null) {
+                for (File child : children) {
+                    size += sizeOf(child);
+                }
+            }
+            return size;
+        }
+        return file.length();
+    }
+
+    public interface OnProgressListener {
+        /**
+         * Called as data is written to the archive
+         * @param bytesWritten the number of uncompressed bytes written so far
+         * @param totalBytes the expected number of bytes or 0 if unknown
+         * @param bytesPerSecond the average throughput
+         */
+        void onProgress(long bytesWritten, long totalBytes, long bytesPerSecond);
+    }
+}
@@ -1,6 +1,9 @@
 package com.door43.util;
 
+import android.os.Build;
 import android.support.annotation.Nullable;
+import android.system.ErrnoException;
+import android.system.Os;
 
 import org.unfoldingword.tools.logger.Logger;
 
@@ -78,6 +81,44 @@ public class FileUtilities {
         }
     }
 
+    /**
+     * Writes a string to a file by first writing to a temporary file and then renaming it.
+     * Readers will either see the old contents or the new contents, never a partial write.
+     * @param file
+     * @param contents
+     * @throws IOException
+     */
+    public static void writeStringToFileAtomically(File file, String contents) throws IOException {
+        writeStringToFileAtomically(file, contents, file.getParentFile());
+    }
+
+    /**
+     * Writes a string to a temporary file and then moves it over the destination file
+     * @param file the destination file
+     * @param contents
+     * @param tempDir the directory where the temporary file is written. This must be on the same file system as the destination
+     * @throws IOException
+     */
+    public static void writeStringToFileAtomically(File file, String contents, File tempDir) throws IOException {
+        File tempFile = new File(tempDir, "." + file.getName() + ".tmp");
+        FileOutputStream fos = null;
+        try {
+            fos = new FileOutputStream(tempFile);
+            fos.write(contents.getBytes());
+            fos.flush();
+            fos.getFD().sync();
+        } finally {
+            if(fos != null) {
+                fos.close();
+            }
+        }
+        if(!tempFile.renameTo(file)) {
+            // some file systems will not rename over an existing file
+            deleteQuietly(tempFile);
+            writeStringToFile(file, contents);
+        }
+    }
+
     public static void copyInputStreamToFile(InputStream source, File destination) throws IOException {
         try {
             FileOutputStream output = openOutputStream(destination);
@@ -204,6 +245,28 @@ public class FileUtilities {
         return false;
     }
 
+    /**
+     * Attempts to hard link a file. If the file system does not support links it will be copied instead.
+     * Any existing destination file will be replaced.
+     * @param sourceFile
+     * @param destFile
+     * @throws IOException
+     */
+    public static void linkOrCopy(File sourceFile, File destFile) throws IOException {
+        if(destFile.exists()) {
+            destFile.delete();
+        }
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            try {
+                Os.link(sourceFile.getAbsolutePath(), destFile.getAbsolutePath());
+                return;
+            } catch (ErrnoException e) {
+                // links are not supported across devices or on FAT file systems
+            }
+        }
+        copyFile(sourceFile, destFile);
+    }
+
     /**
      * Deletes a file/directory by first moving it to a temporary location then deleting it.
      * This avoids an issue with FAT32 on some devices where you cannot create a file
@@ -3,18 +3,43 @@ package com.door43.util;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.unfoldingword.tools.logger.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class handles the management of a manifest file.
  *
  */
 public class Manifest {
+    private static final String TAG = "Manifest";
+    private static final long MIN_RETRY_DELAY = 1000;
+    private static final long MAX_RETRY_DELAY = 60000;
+    private static final ScheduledExecutorService sWriter = Executors.newSingleThreadScheduledExecutor();
+    /**
+     * Manifests that have changes waiting to be written
+     */
+    private static final Set<Manifest> sPending = new HashSet<>();
     private final File mManifestFile;
+    private final Object mWriteLock = new Object();
     private JSONObject mManifest = new JSONObject();
+    private boolean mWriteBehind = false;
+    private boolean mDirty = false;
+    private boolean mWriteScheduled = false;
+    private long mVersion = 0;
+    private volatile long mWrittenVersion = 0;
+    private String mSnapshot = null;
+    private long mRetryDelay = MIN_RETRY_DELAY;
+    private OnSaveListener mOnSaveListener = null;
     public static final String MANIFEST_JSON = "manifest.json";
 
     /**
@@ -115,7 +140,7 @@ public class Manifest {
      * @param key
      * @param json
      */
-    public void put(String key, JSONObject json) {
+    public synchronized void put(String key, JSONObject json) {
         try {
             mManifest.put(key, json);
             save();
@@ -129,7 +154,7 @@ public class Manifest {
      * @param key
      * @param obj
      */
-    public void put(String key, Object obj) {
+    public synchronized void put(String key, Object obj) {
         try {
             mManifest.put(key, obj);
             save();
@@ -143,7 +168,7 @@ public class Manifest {
      * @param key
      * @param json
      */
-    public void put(String key, JSONArray json) {
+    public synchronized void put(String key, JSONArray json) {
         try {
             mManifest.put(key, json);
             save();
@@ -157,7 +182,7 @@ public class Manifest {
      * @param key
      * @param value
      */
-    public void put(String key, int value) {
+    public synchronized void put(String key, int value) {
         try {
             mManifest.put(key, value);
             save();
@@ -171,7 +196,7 @@ public class Manifest {
      * @param key
      * @param value
      */
-    public void put(String key, String value) {
+    public synchronized void put(String key, String value) {
         try {
             mManifest.put(key, value);
             save();
@@ -184,22 +209,198 @@ public class Manifest {
      * Removes an element from the manifest
      * @param key
      */
-    public void remove(String key) {
+    public synchronized void remove(String key) {
         mManifest.remove(key);
         save();
     }
 
     /**
-     * Saves the manifest to the disk
+     * Enables or disables write-behind mode.
+     * When enabled changes are marked dirty and written to the disk on a background thread.
+     * Multiple changes made before the writer runs are coalesced into a single write.
+     * Disabling write-behind mode will flush any pending changes.
+     * @param writeBehind
+     */
+    public void setWriteBehind(boolean writeBehind) {
+        synchronized (this) {
+            mWriteBehind = writeBehind;
+        }
+        if(!writeBehind) {
+            flush();
+        }
+    }
+
+    /**
+     * Sets the listener that will be notified whenever the manifest is changed and saved
+     * @param listener
+     */
+    public void setOnSaveListener(OnSaveListener listener) {
+        mOnSaveListener = listener;
+    }
+
+    /**
+     * Saves the manifest to the disk.
+     * In write-behind mode this only schedules a save.
      */
     public void save() {
-        try {
-            FileUtilities.writeStringToFile(mManifestFile, mManifest.toString());
-        } catch (IOException e) {
-            e.printStackTrace();
+        OnSaveListener listener = mOnSaveListener;
+        if(listener != null) {
+            listener.onSave(this);
+        }
+        synchronized (this) {
+            mDirty = true;
+            if(mWriteBehind) {
+                synchronized (sPending) {
+                    sPending.add(this);
+                }
+                if(!mWriteScheduled) {
+                    mWriteScheduled = true;
+                    sWriter.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            flush();
+                        }
+                    });
+                }
+                return;
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Writes any pending changes to the disk.
+     * If the write fails it will be retried on the background thread.
+     * This should be called before the manifest file is read by something else e.g. commits and exports.
+     */
+    public void flush() {
+        String contents;
+        long version;
+        synchronized (this) {
+            mWriteScheduled = false;
+            if(mDirty) {
+                mDirty = false;
+                mSnapshot = mManifest.toString();
+                ++mVersion;
+            } else if(mVersion <= mWrittenVersion) {
+                return;
+            }
+            // TRICKY: if the last snapshot is still being written we write it again so we don't return before it is on the disk
+            contents = mSnapshot;
+            version = mVersion;
+        }
+        boolean written = false;
+        synchronized (mWriteLock) {
+            // a newer snapshot may have already been written
+            if(version <= mWrittenVersion) {
+                return;
+            }
+            try {
+                FileUtilities.writeStringToFileAtomically(mManifestFile, contents, getTempDir());
+                mWrittenVersion = version;
+                written = true;
+            } catch (IOException e) {
+                Logger.w(TAG, "Failed to write the manifest " + mManifestFile, e);
+            }
+        }
+        if(written) {
+            synchronized (this) {
+                mRetryDelay = MIN_RETRY_DELAY;
+                if(mWrittenVersion == mVersion) {
+                    mSnapshot = null;
+                }
+                if(!mDirty) {
+                    synchronized (sPending) {
+                        sPending.remove(this);
+                    }
+                }
+            }
+        } else {
+            scheduleRetry();
         }
     }
 
+    /**
+     * Schedules another attempt to write the manifest after a failed write.
+     * The delay doubles after each failure.
+     */
+    private synchronized void scheduleRetry() {
+        mDirty = true;
+        if(mWriteScheduled) {
+            return;
+        }
+        if(!mManifestFile.getParentFile().isDirectory()) {
+            // the directory was moved or deleted so there is nothing left to write to
+            Logger.e(TAG, "The manifest directory no longer exists. Dropping changes to " + mManifestFile);
+            synchronized (sPending) {
+                sPending.remove(this);
+            }
+            return;
+        }
+        mWriteScheduled = true;
+        long delay = mRetryDelay;
+        mRetryDelay = Math.min(mRetryDelay * 2, MAX_RETRY_DELAY);
+        sWriter.schedule(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the directory where the manifest is staged before it is moved into place.
+     * TRICKY: the staged file is kept inside the git dir when there is one so it is never committed or exported.
+     * @return
+     */
+    private File getTempDir() {
+        File gitDir = new File(mManifestFile.getParentFile(), ".git");
+        if(gitDir.isDirectory()) {
+            return gitDir;
+        }
+        return mManifestFile.getParentFile();
+    }
+
+    /**
+     * Writes the pending changes of every manifest within the directory.
+     * This must be called before a directory containing manifests is moved or deleted
+     * otherwise a queued write may be lost or recreate the manifest in the old location.
+     * @param directory
+     */
+    public static void flushPending(File directory) {
+        String path = directory.getAbsolutePath();
+        List<Manifest> manifests = new ArrayList<>();
+        synchronized (sPending) {
+            for(Manifest m:sPending) {
+                String manifestPath = m.mManifestFile.getAbsolutePath();
+                if(manifestPath.startsWith(path + File.separator)) {
+                    manifests.add(m);
+                }
+            }
+        }
+        for(Manifest m:manifests) {
+            m.flush();
+        }
+    }
+
+    /**
+     * Checks if there are changes that have not been written to the disk
+     * @return
+     */
+    public synchronized boolean isDirty() {
+        return mDirty;
+    }
+
+    /**
+     * Returns the number of snapshots that have been written to the disk.
+     * This is used to check that changes are coalesced.
+     * @return
+     */
+    public long getWrittenVersion() {
+        synchronized (mWriteLock) {
+            return mWrittenVersion;
+        }
+    }
 
     /**
      * Deletes the manifest file
@@ -213,22 +414,26 @@ public class Manifest {
      * Reads the manifest file from the disk
      */
     public void load() {
+        // don't lose pending changes
+        flush();
+
         String contents = "";
         try {
             contents = FileUtilities.readFileToString(mManifestFile);
         } catch (IOException e) {
             e.printStackTrace();
         }
-        if(contents.isEmpty()) {
-            mManifest = new JSONObject();
-        } else {
+        JSONObject json = new JSONObject();
+        if(!contents.isEmpty()) {
             try {
-                mManifest = new JSONObject(contents);
+                json = new JSONObject(contents);
             } catch (JSONException e) {
                 e.printStackTrace();
-                mManifest = new JSONObject();
             }
         }
+        synchronized (this) {
+            mManifest = json;
+        }
     }
 
     /**
@@ -236,7 +441,7 @@ public class Manifest {
      * @param newArray
      * @param key
      */
-    public void join(JSONArray newArray, String key) {
+    public synchronized void join(JSONArray newArray, String key) {
         if(newArray != null && key != null) {
             try {
                 if (!mManifest.has(key)) {
@@ -263,7 +468,7 @@ public class Manifest {
      * @param newObj
      * @param key
      */
-    public void join(JSONObject newObj, String key) {
+    public synchronized void join(JSONObject newObj, String key) {
         if(newObj != null && key != null) {
             try {
                 if (!mManifest.has(key)) {
@@ -352,4 +557,8 @@ public class Manifest {
         }
         return updatedArray;
     }
+
+    public interface OnSaveListener {
+        void onSave(Manifest manifest);
+    }
 }
@@ -5,18 +5,24 @@ import android.support.annotation.Nullable;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
@@ -352,6 +358,39 @@ public class Zip {
         zis.close();
     }
 
+    /**
+     * Reads a zip archive from a stream and hands each file to the visitor as it is read.
+     * Nothing is written to disk.
+     * @param zipStream - input stream of zip file
+     * @param visitor receives each file in the archive. Directories are skipped
+     * @throws IOException
+     */
+    public static void visitEntries(InputStream zipStream, EntryVisitor visitor) throws IOException {
+        ZipInputStream zis = new ZipInputStream(new BufferedInputStream(zipStream));
+        try {
+            // TRICKY: the visitor must not be able to close the archive
+            InputStream content = new FilterInputStream(zis) {
+                @Override
+                public void close() throws IOException {
+                    // closed with the archive
+                }
+            };
+            ZipEntry ze;
+            while ((ze = zis.getNextEntry()) != null) {
+                if (ze.isDirectory()) {
+                    continue;
+                }
+                boolean keepGoing = visitor.visit(ze, content);
+                zis.closeEntry();
+                if (!keepGoing) {
+                    break;
+                }
+            }
+        } finally {
+            zis.close();
+        }
+    }
+
     /**
      * Lists the contents of the zip file
      * @param zipArchive
@@ -384,9 +423,69 @@ public class Zip {
      * @return
      */
     public static String read(File zipArchive, String path) throws IOException {
-        InputStream is;
-        is = new FileInputStream(zipArchive);
-        return readInputStream(is, path);
+        ZipFile zip = new ZipFile(zipArchive);
+        try {
+            return read(zip, path);
+        } finally {
+            zip.close();
+        }
+    }
+
+    /**
+     * Reads the contents of a file from the zip archive.
+     * The entry is located with the central directory so only the entry itself is read.
+     * @param zip
+     * @param path the path of the entry (case insensitive)
+     * @return null if the entry does not exist
+     */
+    @Nullable
+    public static String read(ZipFile zip, String path) throws IOException {
+        ZipEntry entry = zip.getEntry(path);
+        if(entry == null) {
+            // fall back to a case insensitive search of the directory
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while(entries.hasMoreElements()) {
+                ZipEntry e = entries.nextElement();
+                if(!e.isDirectory() && e.getName().equalsIgnoreCase(path)) {
+                    entry = e;
+                    break;
+                }
+            }
+        }
+        if(entry == null || entry.isDirectory()) {
+            return null;
+        }
+        InputStream is = zip.getInputStream(entry);
+        try {
+            return FileUtilities.readStreamToString(is);
+        } finally {
+            FileUtilities.closeQuietly(is);
+        }
+    }
+
+    /**
+     * Reads the contents of all the entries that match the pattern in a single pass over the stream
+     * @param zipStream
+     * @param pattern matched against the entry names
+     * @return a map of lower case entry names to the entry contents
+     */
+    public static Map<String, String> readEntries(InputStream zipStream, Pattern pattern) throws IOException {
+        Map<String, String> contents = new HashMap<>();
+        ZipInputStream zis = new ZipInputStream(new BufferedInputStream(zipStream));
+        try {
+            ZipEntry ze;
+            while ((ze = zis.getNextEntry()) != null) {
+                if (!ze.isDirectory() && pattern.matcher(ze.getName()).find()) {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    FileUtilities.copy(zis, out);
+                    contents.put(ze.getName().toLowerCase(), out.toString("UTF-8"));
+                }
+                zis.closeEntry();
+            }
+        } finally {
+            zis.close();
+        }
+        return contents;
     }
 
     /**
@@ -423,4 +522,18 @@ public class Zip {
         zis.close();
         return contents;
     }
+
+    /**
+     * Receives the files in a zip archive as it is read. See {@link #visitEntries(InputStream, EntryVisitor)}
+     */
+    public interface EntryVisitor {
+        /**
+         * Called for each file in the archive
+         * @param entry
+         * @param content the content of the entry. This is only valid until the method returns
+         * @return false to stop reading the archive
+         * @throws IOException
+         */
+        boolean visit(ZipEntry entry, InputStream content) throws IOException;
+    }
 }
@@ -0,0 +1,146 @@
+package com.door43.translationstudio.git;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BundleSyncTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Git sender;
+    private Git receiver;
+
+    @Before
+    public void setUp() throws Exception {
+        sender = Git.init().setDirectory(folder.newFolder("sender")).call();
+        receiver = Git.init().setDirectory(folder.newFolder("receiver")).call();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sender.close();
+        receiver.close();
+    }
+
+    @Test
+    public void fullBundleRoundTrip() throws Exception {
+        commit(sender, "01/01.txt", "first");
+        commit(sender, "01/02.txt", "second");
+        RevCommit head = commit(sender, "01/01.txt", "third");
+
+        List<String> haves = BundleSync.listHaves(receiver.getRepository());
+        assertTrue(haves.isEmpty());
+
+        ObjectId fetched = transfer(haves, "peer");
+
+        assertEquals(head, fetched);
+        assertTrue(receiver.getRepository().hasObject(head.getTree()));
+    }
+
+    @Test
+    public void deltaBundleRoundTrip() throws Exception {
+        for(int i = 0; i < 20; i ++) {
+            commit(sender, "01/" + i + ".txt", "chunk " + i);
+        }
+        transfer(BundleSync.listHaves(receiver.getRepository()), "peer");
+        receiver.checkout().setName("peer").call();
+
+        RevCommit head = commit(sender, "02/01.txt", "new chunk");
+        List<String> haves = BundleSync.listHaves(receiver.getRepository());
+        List<ObjectId> common = BundleSync.findCommon(sender.getRepository(), haves);
+        assertEquals(haves.size(), common.size());
+
+        byte[] delta = writeBundle(common);
+        byte[] full = writeBundle(Collections.<ObjectId>emptyList());
+        assertTrue(delta.length < full.length);
+
+        ObjectId fetched = BundleSync.fetchBundle(receiver.getRepository(), new ByteArrayInputStream(delta), "peer");
+        assertEquals(head, fetched);
+        assertEquals(head, receiver.getRepository().resolve(Constants.R_HEADS + "peer"));
+    }
+
+    @Test
+    public void findCommonIgnoresUnknownCommits() throws Exception {
+        RevCommit first = commit(sender, "01/01.txt", "first");
+        RevCommit second = commit(sender, "01/01.txt", "second");
+        String unknown = "0123456789012345678901234567890123456789";
+
+        List<ObjectId> common = BundleSync.findCommon(sender.getRepository(),
+                Arrays.asList(second.getName(), unknown, "not a commit", second.getTree().getName(), first.getName()));
+
+        assertEquals(Arrays.<ObjectId>asList(second, first), common);
+    }
+
+    @Test
+    public void listHavesSamplesOlderHistory() throws Exception {
+        List<String> history = new ArrayList<>();
+        for(int i = 0; i < 200; i ++) {
+            history.add(0, commit(sender, "01/01.txt", "revision " + i).getName());
+        }
+
+        List<String> haves = BundleSync.listHaves(sender.getRepository());
+
+        assertTrue(haves.size() < history.size());
+        // the recent commits are listed in full
+        assertEquals(history.subList(0, 16), haves.subList(0, 16));
+        // the older commits are sampled
+        assertTrue(history.indexOf(haves.get(haves.size() - 1)) > haves.size());
+    }
+
+    @Test
+    public void writeBundleRequiresCommits() throws Exception {
+        try {
+            writeBundle(Collections.<ObjectId>emptyList());
+            fail("an empty repository should not be bundled");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private ObjectId transfer(List<String> haves, String branch) throws Exception {
+        List<ObjectId> common = BundleSync.findCommon(sender.getRepository(), haves);
+        byte[] bundle = writeBundle(common);
+        return BundleSync.fetchBundle(receiver.getRepository(), new ByteArrayInputStream(bundle), branch);
+    }
+
+    private byte[] writeBundle(List<ObjectId> common) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BundleSync.writeBundle(sender.getRepository(), common, out);
+        return out.toByteArray();
+    }
+
+    private static RevCommit commit(Git git, String path, String contents) throws Exception {
+        File file = new File(git.getRepository().getWorkTree(), path);
+        file.getParentFile().mkdirs();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(contents.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        git.add().addFilepattern(path).call();
+        return git.commit().setMessage("update " + path).call();
+    }
+}